@@ -1,8 +1,13 @@
 package controller;
 
 import model.Ecosystem;
-import data.EcosystemDAO;
+import model.SimulationParameters;
+import data.AsyncStateWriter;
+import data.CheckpointDAO;
+import data.ConfigurationRepository;
+import data.RepositoryFactory;
 import data.StateDAO;
+import data.StateRepository;
 
 /**
  * Controlador extendido con soporte para tercera especie y mutaciones
@@ -10,25 +15,51 @@ import data.StateDAO;
 public class EcosystemController {
     
     private Ecosystem ecosystem;
-    private EcosystemDAO ecosystemDAO;
-    private StateDAO stateDAO;
+    private ConfigurationRepository configurations;
+    private StateRepository states;
+    private CheckpointDAO checkpointDAO;
     private String currentUsername;
+    private PersistencePolicy persistencePolicy;
     
     // Flags para extensiones
     private boolean terceraEspecieActiva = false;
     private boolean mutacionesActivas = false;
+    // null = valores por defecto del escenario
+    private SimulationParameters parameters;
+    // Sufijo del ID de las simulaciones (null = ninguno)
+    private String simulationTag;
+    private boolean verbose = true;
     
     public EcosystemController() {
         this.ecosystem = null;
-        this.ecosystemDAO = new EcosystemDAO();
-        this.stateDAO = new StateDAO();
+        RepositoryFactory storage = RepositoryFactory.getDefault();
+        this.configurations = storage.createConfigurationRepository();
+        this.states = storage.createStateRepository();
+        if (states instanceof StateDAO stateDAO) {
+            // Los turnos se escriben en segundo plano para no frenar el Timer de la vista
+            stateDAO.setAsyncWrites(256, AsyncStateWriter.Backpressure.BLOCK);
+        }
+        this.checkpointDAO = new CheckpointDAO();
         this.currentUsername = "Guest";
+        this.persistencePolicy = PersistencePolicy.full();
     }
     
     public void setCurrentUser(String username) {
         this.currentUsername = username;
     }
     
+    /**
+     * Que se guarda de cada simulación. Se aplica a la próxima
+     * createEcosystem() o resumeFromCheckpoint().
+     */
+    public void setPersistencePolicy(PersistencePolicy policy) {
+        this.persistencePolicy = policy;
+    }
+    
+    public PersistencePolicy getPersistencePolicy() {
+        return persistencePolicy;
+    }
+    
     /**
      * Configura la tercera especie antes de crear el ecosistema
      */
@@ -43,23 +74,65 @@ public class EcosystemController {
         this.mutacionesActivas = activas;
     }
     
+    /**
+     * Parámetros del escenario y de las reglas antes de crear el ecosistema
+     * (null = los del escenario)
+     */
+    public void setSimulationParameters(SimulationParameters parameters) {
+        this.parameters = parameters;
+    }
+    
+    /**
+     * Sufijo del ID de las próximas simulaciones, para distinguir las que
+     * empiezan en el mismo segundo (null = ninguno)
+     */
+    public void setSimulationTag(String tag) {
+        this.simulationTag = tag;
+    }
+    
+    /**
+     * Mensajes por consola de cada turno y de cada animal de los próximos
+     * ecosistemas (los análisis los apagan)
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
     public void createEcosystem(int maxTurns, String scenario) {
-        this.ecosystem = new Ecosystem(maxTurns, scenario);
+        setUpEcosystem(new Ecosystem(maxTurns, scenario));
+    }
+    
+    /**
+     * Crea el ecosistema con una semilla fija (simulación reproducible)
+     */
+    public void createEcosystem(int maxTurns, String scenario, long seed) {
+        setUpEcosystem(new Ecosystem(maxTurns, scenario, seed));
+    }
+    
+    private void setUpEcosystem(Ecosystem created) {
+        this.ecosystem = created;
+        String scenario = created.getScenario();
+        int maxTurns = created.getMaxTurns();
         
         // Configurar extensiones ANTES de inicializar
         this.ecosystem.setTerceraEspecieActiva(terceraEspecieActiva);
         this.ecosystem.setMutacionesActivas(mutacionesActivas);
+        this.ecosystem.setVerbose(verbose);
+        if (parameters != null) {
+            this.ecosystem.setParameters(parameters);
+        }
         
         this.ecosystem.initialize();
         
         // Guardar configuración inicial
         int numPreys = ecosystem.countPreys();
         int numPredators = ecosystem.countPredators();
-        ecosystemDAO.saveConfiguration(scenario, maxTurns, numPreys, numPredators, currentUsername);
+        if (persistencePolicy.mode != PersistencePolicy.Mode.NONE) {
+            configurations.saveConfiguration(scenario, maxTurns, numPreys, numPredators, currentUsername);
+        }
         
-        // Iniciar registro de estados
-        stateDAO.startNewSimulation(scenario, currentUsername);
-        stateDAO.saveTurnState(ecosystem);
+        // Iniciar registro de estados (cierra el escritor de la simulación anterior)
+        startRecording(scenario);
         
         System.out.println("[CONTROLLER] Ecosystem created:");
         System.out.println("  Scenario: " + scenario);
@@ -81,7 +154,7 @@ public class EcosystemController {
         }
         
         ecosystem.executeTurn();
-        stateDAO.saveTurnState(ecosystem);
+        recordTurn();
         
         int currentTurn = ecosystem.getCurrentTurn();
         int maxTurns = ecosystem.getMaxTurns();
@@ -90,7 +163,10 @@ public class EcosystemController {
         boolean shouldContinue = (currentTurn < maxTurns) && !hasExtinction;
         
         if (!shouldContinue) {
-            stateDAO.saveFinalState(ecosystem, currentTurn);
+            if (persistencePolicy.mode != PersistencePolicy.Mode.NONE) {
+                states.saveFinalState(ecosystem, currentTurn);
+            }
+            states.closeWriter();
             
             System.out.println("[CONTROLLER] Simulation ended:");
             System.out.println("  Turns executed: " + currentTurn);
@@ -105,6 +181,70 @@ public class EcosystemController {
         return shouldContinue;
     }
     
+    /**
+     * Guarda un checkpoint binario completo del ecosistema actual
+     * @param fileName Archivo de destino
+     * @return true si se guardó exitosamente
+     */
+    public boolean saveCheckpoint(String fileName) {
+        if (ecosystem == null) {
+            System.err.println("[ERROR] No ecosystem initialized");
+            return false;
+        }
+        return checkpointDAO.saveCheckpoint(ecosystem, fileName);
+    }
+    
+    /**
+     * Reanuda una simulación desde un checkpoint binario.
+     * Los turnos siguientes se registran como una nueva simulación.
+     * @param fileName Archivo del checkpoint
+     * @return true si se reanudó exitosamente
+     */
+    public boolean resumeFromCheckpoint(String fileName) {
+        Ecosystem restored = checkpointDAO.loadCheckpoint(fileName);
+        if (restored == null) {
+            return false;
+        }
+        
+        this.ecosystem = restored;
+        this.terceraEspecieActiva = restored.isTerceraEspecieActiva();
+        this.mutacionesActivas = restored.isMutacionesActivas();
+        restored.setVerbose(verbose);
+        
+        startRecording(restored.getScenario());
+        
+        System.out.println("[CONTROLLER] Simulation resumed at turn " + restored.getCurrentTurn());
+        return true;
+    }
+    
+    /**
+     * Inicia el registro de estados según la política y guarda el turno actual
+     */
+    private void startRecording(String scenario) {
+        states.closeWriter();
+        if (persistencePolicy.mode == PersistencePolicy.Mode.NONE) return;
+        
+        states.startNewSimulation(scenario, currentUsername, simulationTag);
+        if (persistencePolicy.savesTurns()) {
+            states.openWriter();
+        }
+        recordTurn();
+    }
+    
+    private void recordTurn() {
+        if (persistencePolicy.savesTurn(ecosystem.getCurrentTurn())) {
+            states.saveTurnState(ecosystem);
+        }
+    }
+    
+    /**
+     * Termina el registro de la simulación actual (detener, cerrar sesión o
+     * salir). Vuelca los turnos pendientes y libera el archivo de estados.
+     */
+    public void endSimulation() {
+        states.closeWriter();
+    }
+    
     public Ecosystem getEcosystem() {
         return ecosystem;
     }
@@ -148,12 +288,12 @@ public class EcosystemController {
         return stats.toString();
     }
     
-    public EcosystemDAO getEcosystemDAO() {
-        return ecosystemDAO;
+    public ConfigurationRepository getConfigurationRepository() {
+        return configurations;
     }
     
-    public StateDAO getStateDAO() {
-        return stateDAO;
+    public StateRepository getStateRepository() {
+        return states;
     }
     
     public boolean isTerceraEspecieActiva() {
@@ -163,4 +303,67 @@ public class EcosystemController {
     public boolean isMutacionesActivas() {
         return mutacionesActivas;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Política de persistencia de una simulación:
+     *   FULL:       configuración, cada turno y el estado final
+     *   EVERY_N:    configuración, un turno cada N (y el inicial) y el estado final
+     *   FINAL_ONLY: configuración y estado final (solo el resumen)
+     *   NONE:       no se guarda nada
+     */
+    public static class PersistencePolicy {
+        
+        public enum Mode {
+            FULL,
+            EVERY_N,
+            FINAL_ONLY,
+            NONE
+        }
+        
+        public final Mode mode;
+        public final int everyTurns; // solo en EVERY_N
+        
+        public PersistencePolicy(Mode mode, int everyTurns) {
+            if (mode == Mode.EVERY_N && everyTurns < 1) {
+                throw new IllegalArgumentException("Turns between saved states must be >= 1");
+            }
+            this.mode = mode;
+            this.everyTurns = everyTurns;
+        }
+        
+        public static PersistencePolicy full() {
+            return new PersistencePolicy(Mode.FULL, 1);
+        }
+        
+        /**
+         * Guarda un turno cada N
+         */
+        public static PersistencePolicy everyTurns(int turns) {
+            return new PersistencePolicy(Mode.EVERY_N, turns);
+        }
+        
+        /**
+         * Solo el resumen: la configuración y el estado final
+         */
+        public static PersistencePolicy finalOnly() {
+            return new PersistencePolicy(Mode.FINAL_ONLY, 0);
+        }
+        
+        public static PersistencePolicy none() {
+            return new PersistencePolicy(Mode.NONE, 0);
+        }
+        
+        public boolean savesTurns() {
+            return mode == Mode.FULL || mode == Mode.EVERY_N;
+        }
+        
+        public boolean savesTurn(int turn) {
+            return mode == Mode.FULL || (mode == Mode.EVERY_N && turn % everyTurns == 0);
+        }
+        
+        @Override
+        public String toString() {
+            return mode == Mode.EVERY_N ? "EVERY_" + everyTurns : mode.toString();
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package controller;
 
 import model.User;
-import data.UserDAO;
+import data.RepositoryFactory;
+import data.UserRepository;
 import data.EmailService;
 import util.Encryption;
 import util.Validations;
@@ -13,14 +14,14 @@ import java.time.LocalDate;
  */
 public class UserController {
     
-    private UserDAO userDAO;
+    private UserRepository userDAO;
     private EmailService emailService;
     
     /**
      * Constructor del controlador
      */
     public UserController() {
-        this.userDAO = new UserDAO();
+        this.userDAO = RepositoryFactory.getDefault().createUserRepository();
         this.emailService = new EmailService();
     }
     
@@ -0,0 +1,349 @@
+package data;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida del registro de estados.
+ * Los registros se encolan en una cola acotada y un hilo en segundo plano
+ * los escribe en el escritor real, asi quien guarda el turno (por ejemplo
+ * el Timer de Swing) no espera al disco.
+ *
+ * Cuando la cola se llena se aplica la politica de contrapresion:
+ * - BLOCK: espera a que haya lugar (no se pierde ningun turno)
+ * - SAMPLE: descarta turnos y mientras la cola no baje a la mitad
+ *   solo acepta uno de cada N
+ * - COALESCE: reemplaza el ultimo turno encolado de la misma simulacion
+ *   por el nuevo (se conserva el estado mas reciente)
+ * Los cierres de simulacion nunca se descartan.
+ */
+public class AsyncStateWriter implements StateLogWriter {
+
+    /**
+     * Politica cuando la cola esta llena
+     */
+    public enum Backpressure {
+        BLOCK,
+        SAMPLE,
+        COALESCE
+    }
+
+    // Marcadores de control en la cola
+    private static final Object FLUSH = new Object();
+    private static final Object FORCE = new Object();
+    private static final Object CLOSE = new Object();
+
+    private static final int SAMPLE_EVERY = 4;
+
+    private final StateLogWriter target;
+    private final Backpressure backpressure;
+    private final int capacity;
+
+    private final ArrayDeque<Object> queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition written = lock.newCondition();
+
+    private final Thread worker;
+    private long enqueued;      // registros y marcadores encolados
+    private long completed;     // registros y marcadores procesados
+    private boolean closed;
+    private boolean sampling;
+    private int sampleCounter;
+    private long dropped;
+    private long coalesced;
+    private IOException failure;
+
+    /**
+     * @param target Escritor real (solo lo usa el hilo en segundo plano)
+     * @param capacity Registros que pueden esperar en la cola
+     * @param backpressure Politica cuando la cola esta llena
+     */
+    public AsyncStateWriter(StateLogWriter target, int capacity, Backpressure backpressure) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be >= 1");
+        }
+        this.target = target;
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+        this.queue = new ArrayDeque<>(capacity);
+
+        this.worker = new Thread(this::drain, "state-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void writeTurn(TurnSnapshot snapshot) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+
+            if (queue.size() >= capacity) {
+                if (backpressure == Backpressure.SAMPLE) {
+                    sampling = true;
+                    dropped++;
+                    return;
+                }
+                if (backpressure == Backpressure.COALESCE && coalesce(snapshot)) {
+                    return;
+                }
+            }
+
+            if (sampling) {
+                if (queue.size() <= capacity / 2) {
+                    sampling = false;
+                } else if (++sampleCounter % SAMPLE_EVERY != 0) {
+                    dropped++;
+                    return;
+                }
+            }
+
+            put(snapshot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void writeFinal(FinalState state) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            put(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pide un volcado a disco sin esperarlo. Con la cola llena no hace
+     * nada: el hilo ya tiene trabajo pendiente y volcara mas adelante.
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            if (queue.size() < capacity) {
+                put(FLUSH);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera a que todo lo encolado hasta ahora este escrito y volcado
+     */
+    @Override
+    public void sync() throws IOException {
+        waitFor(FLUSH);
+    }
+
+    /**
+     * Espera a que todo lo encolado hasta ahora este escrito y en disco
+     */
+    @Override
+    public void force() throws IOException {
+        waitFor(FORCE);
+    }
+
+    private void waitFor(Object marker) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            put(marker);
+            long target = enqueued;
+            while (completed < target && failure == null) {
+                written.awaitUninterruptibly();
+            }
+            rethrowFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, vuelca y cierra el escritor real
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            put(CLOSE);
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (dropped > 0 || coalesced > 0) {
+            System.out.println("[ASYNC] Turns dropped: " + dropped + ", coalesced: " + coalesced);
+        }
+        lock.lock();
+        try {
+            rethrowFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registros esperando en la cola
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Con el lock tomado
+
+    private void put(Object item) {
+        while (queue.size() >= capacity && failure == null) {
+            notFull.awaitUninterruptibly();
+        }
+        queue.addLast(item);
+        enqueued++;
+        notEmpty.signal();
+    }
+
+    /**
+     * Reemplaza el ultimo turno encolado si es de la misma simulacion
+     */
+    private boolean coalesce(TurnSnapshot snapshot) {
+        Object last = queue.peekLast();
+        if (last instanceof TurnSnapshot &&
+            ((TurnSnapshot) last).simulationId.equals(snapshot.simulationId)) {
+            queue.pollLast();
+            queue.addLast(snapshot);
+            coalesced++;
+            return true;
+        }
+        return false;
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("State writer is closed");
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Background state writer failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Hilo en segundo plano
+
+    private void drain() {
+        while (true) {
+            Object item;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                item = queue.pollFirst();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                if (item instanceof TurnSnapshot) {
+                    target.writeTurn((TurnSnapshot) item);
+                } else if (item instanceof FinalState) {
+                    target.writeFinal((FinalState) item);
+                } else if (item == FLUSH) {
+                    target.flush();
+                } else if (item == FORCE) {
+                    target.force();
+                } else if (item == CLOSE) {
+                    target.close();
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                if (error != null && failure == null) {
+                    failure = error;
+                    System.err.println("[ERROR] Background state writer failed: " + error.getMessage());
+                }
+                completed++;
+                written.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            if (item == CLOSE) {
+                return;
+            }
+            if (error != null) {
+                // Tras un error se descarta lo que quede, pero se cierra el escritor real
+                closeAfterFailure();
+                return;
+            }
+        }
+    }
+
+    private void closeAfterFailure() {
+        try {
+            target.close();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to close state writer: " + e.getMessage());
+        }
+        lock.lock();
+        try {
+            completed = enqueued;
+            queue.clear();
+            written.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,639 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binario compacto del registro de estados (estado_turnos.bin).
+ *
+ * Archivo: cabecera "ESTB" + version, seguida de registros
+ *   [tipo: 1 byte][largo: varint][contenido][CRC32C de tipo + contenido: 4 bytes]
+ *
+ * Tipos de registro:
+ * - SIMULATION: handle, ID, escenario y hora de inicio.
+ *   Asigna un handle numerico para no repetir el ID en cada turno.
+ * - TURN: handle, turno, segundos desde el inicio, conteos, extincion y
+ *   la matriz empaquetada a 2 bits por celda (keyframe).
+ * - DELTA (desde v2): igual que TURN pero en lugar de la matriz guarda solo
+ *   las celdas que cambiaron respecto al turno anterior de la simulacion.
+ * - FINAL: handle, total de turnos, poblaciones finales y extincion.
+ */
+public class BinaryStateLog {
+
+    private static final byte[] MAGIC = {'E', 'S', 'T', 'B'};
+    private static final byte VERSION = 2;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+
+    static final byte RECORD_SIMULATION = 1;
+    static final byte RECORD_TURN = 2;
+    static final byte RECORD_FINAL = 3;
+    static final byte RECORD_DELTA = 4;
+
+    private final String fileName;
+
+    // Cada cuantos turnos se escribe la matriz completa (1 = siempre)
+    private int keyframeInterval = 1;
+
+    // Tabla de handles conocidos, valida mientras el archivo mida knownLength
+    private final Map<String, Integer> handles = new HashMap<>();
+    private final Map<Integer, String> simulationIds = new HashMap<>();
+    private final Map<Integer, Long> startTimes = new HashMap<>();
+    private final Map<Integer, String> scenarios = new HashMap<>();
+    // handle -> (turno -> posicion del keyframe en el archivo)
+    private final Map<Integer, TreeMap<Integer, Long>> keyframes = new HashMap<>();
+    private int nextHandle;
+    private long knownLength = -1;
+
+    public BinaryStateLog(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Configura cada cuantos turnos se guarda la matriz completa.
+     * Entre keyframes solo se guardan las celdas que cambiaron.
+     * Se aplica al proximo openWriter().
+     * @param keyframeInterval Turnos entre keyframes (1 = sin deltas)
+     */
+    public void setKeyframeInterval(int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be >= 1");
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Abre un escritor que agrega registros al final del archivo
+     * @param bufferSize Tamaño del buffer en bytes
+     */
+    public StateLogWriter openWriter(int bufferSize) throws IOException {
+        File file = new File(fileName);
+        if (file.exists() && file.length() != knownLength) {
+            recover(); // no seguir escribiendo detras de un registro roto
+        }
+        boolean fresh = !file.exists() || file.length() == 0;
+        if (fresh) {
+            clearHandles();
+        }
+
+        FileOutputStream stream = new FileOutputStream(file, true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, bufferSize));
+        if (fresh) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+        }
+        return new Writer(out, stream.getChannel(), fresh ? HEADER_SIZE : file.length(), keyframeInterval);
+    }
+
+    /**
+     * Lee los registros de las simulaciones que cumplan el filtro
+     * @param simulationFilter Filtro por ID de simulacion
+     * @param includeCells Si es false no se reconstruye la matriz (cells queda en null)
+     * @param handler Receptor de los registros
+     */
+    public void read(Predicate<String> simulationFilter, boolean includeCells,
+                     StateRecordHandler handler) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) return;
+
+        Map<Integer, String[]> simulations = new HashMap<>(); // handle -> {id, escenario}
+        Map<Integer, Long> starts = new HashMap<>();
+        Map<Integer, byte[]> currentCells = new HashMap<>();
+
+        try (RecordReader in = new RecordReader(new FileInputStream(file))) {
+            in.readHeader();
+
+            while (in.next()) {
+                ByteBuffer buffer = in.payload();
+                int handle = (int) VarInt.read(buffer);
+
+                if (in.type == RECORD_SIMULATION) {
+                    String id = readString(buffer);
+                    String scenario = readString(buffer);
+                    simulations.put(handle, new String[]{id, scenario});
+                    starts.put(handle, VarInt.read(buffer));
+                    continue;
+                }
+
+                String[] simulation = simulations.get(handle);
+                if (simulation == null || !simulationFilter.test(simulation[0])) continue;
+
+                if (in.type == RECORD_TURN || in.type == RECORD_DELTA) {
+                    TurnSnapshot snapshot = decodeTurn(buffer, in.type, simulation[0], simulation[1],
+                        starts.get(handle), currentCells.get(handle), includeCells);
+                    if (snapshot == null) {
+                        System.err.println("[WARNING] Skipping delta without keyframe for " + simulation[0]);
+                        continue;
+                    }
+                    if (includeCells) currentCells.put(handle, snapshot.cells);
+                    handler.onTurn(snapshot);
+                } else if (in.type == RECORD_FINAL) {
+                    handler.onFinal(decodeFinal(buffer, simulation[0]));
+                    currentCells.remove(handle);
+                }
+            }
+        } catch (EOFException e) {
+            System.err.println("[WARNING] Binary state log ends with an incomplete record");
+        }
+    }
+
+    /**
+     * Reconstruye un turno: salta al keyframe mas cercano anterior y
+     * aplica los deltas siguientes hasta llegar al turno pedido.
+     * @param simulationId ID de la simulacion
+     * @param turn Turno buscado
+     * @return Captura del turno o null si no existe
+     */
+    public TurnSnapshot readTurn(String simulationId, int turn) throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) return null;
+
+        if (file.length() != knownLength) {
+            loadHandles();
+        }
+        Integer handle = handles.get(simulationId);
+        if (handle == null) return null;
+
+        TreeMap<Integer, Long> turnKeyframes = keyframes.get(handle);
+        Map.Entry<Integer, Long> keyframe = turnKeyframes == null ? null : turnKeyframes.floorEntry(turn);
+        if (keyframe == null) return null;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             RecordReader in = new RecordReader(Channels.newInputStream(channel.position(keyframe.getValue())))) {
+            byte[] cells = null;
+
+            while (in.next()) {
+                ByteBuffer buffer = in.payload();
+                if ((int) VarInt.read(buffer) != handle) continue;
+
+                if (in.type == RECORD_TURN || in.type == RECORD_DELTA) {
+                    TurnSnapshot snapshot = decodeTurn(buffer, in.type, simulationId,
+                        scenarios.get(handle), startTimes.get(handle), cells, true);
+                    if (snapshot == null || snapshot.turn > turn) return null;
+                    if (snapshot.turn == turn) return snapshot;
+                    cells = snapshot.cells;
+                } else if (in.type == RECORD_FINAL) {
+                    return null;
+                }
+            }
+        } catch (EOFException e) {
+            System.err.println("[WARNING] Binary state log ends with an incomplete record");
+        }
+        return null;
+    }
+
+    /**
+     * Recuperacion tras un corte: recorre el archivo verificando el largo y
+     * el CRC de cada registro y lo trunca en el primer registro incompleto
+     * o corrupto, para que lo que se agregue despues se pueda leer.
+     * @return Bytes descartados (0 si el archivo estaba sano)
+     */
+    public long recover() throws IOException {
+        File file = new File(fileName);
+        if (!file.exists() || file.length() == 0 || file.length() == knownLength) return 0;
+
+        long valid = loadHandles();
+        long discarded = file.length() - valid;
+        if (discarded <= 0) return 0;
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(valid);
+        }
+        System.out.println("[RECOVERY] Truncated " + discarded + " bytes of incomplete records from " + fileName);
+        if (valid == 0) {
+            clearHandles();
+        } else {
+            loadHandles();
+        }
+        return discarded;
+    }
+
+    /**
+     * IDs de todas las simulaciones, en orden de aparicion
+     */
+    public List<String> listSimulations() throws IOException {
+        File file = new File(fileName);
+        if (!file.exists()) return new ArrayList<>();
+
+        if (file.length() != knownLength) {
+            loadHandles();
+        }
+        List<String> ids = new ArrayList<>();
+        for (int handle = 0; handle < nextHandle; handle++) {
+            ids.add(simulationIds.get(handle));
+        }
+        return ids;
+    }
+
+    /**
+     * Elimina el archivo binario
+     */
+    public boolean clear() {
+        clearHandles();
+        File file = new File(fileName);
+        return !file.exists() || file.delete();
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    // Lectura de handles
+
+    private void clearHandles() {
+        handles.clear();
+        simulationIds.clear();
+        startTimes.clear();
+        scenarios.clear();
+        keyframes.clear();
+        nextHandle = 0;
+        knownLength = -1;
+    }
+
+    /**
+     * Recorre el archivo registrando las simulaciones y la posicion
+     * de cada keyframe.
+     * @return Bytes validos: hasta el primer registro incompleto o corrupto
+     */
+    private long loadHandles() throws IOException {
+        clearHandles();
+        File file = new File(fileName);
+        long valid = 0;
+
+        try (RecordReader in = new RecordReader(new FileInputStream(file))) {
+            in.readHeader();
+
+            while (true) {
+                long position = in.position;
+                valid = position;
+                if (!in.next()) break;
+
+                ByteBuffer buffer = in.payload();
+                int handle = (int) VarInt.read(buffer);
+
+                if (in.type == RECORD_SIMULATION) {
+                    String id = readString(buffer);
+                    String scenario = readString(buffer);
+                    registerHandle(id, handle, scenario, VarInt.read(buffer));
+                } else if (in.type == RECORD_TURN) {
+                    registerKeyframe(handle, (int) VarInt.read(buffer), position);
+                }
+            }
+            knownLength = in.position;
+            return in.position;
+        } catch (EOFException | CorruptRecordException e) {
+            System.err.println("[WARNING] Binary state log ends with an incomplete record");
+            knownLength = -1;
+            return valid;
+        }
+    }
+
+    private void registerHandle(String id, int handle, String scenario, long start) {
+        handles.put(id, handle);
+        simulationIds.put(handle, id);
+        scenarios.put(handle, scenario);
+        startTimes.put(handle, start);
+        nextHandle = Math.max(nextHandle, handle + 1);
+    }
+
+    private void registerKeyframe(int handle, int turn, long position) {
+        keyframes.computeIfAbsent(handle, h -> new TreeMap<>()).put(turn, position);
+    }
+
+    // Codificacion de registros
+
+    /**
+     * Decodifica un TURN o un DELTA. Para reconstruir la matriz de un DELTA
+     * se necesita la del turno anterior; si falta devuelve null.
+     */
+    private static TurnSnapshot decodeTurn(ByteBuffer buffer, int type, String simulationId,
+                                           String scenario, long start, byte[] previousCells,
+                                           boolean includeCells) {
+        int turn = (int) VarInt.read(buffer);
+        long timestamp = start + VarInt.unZigZag(VarInt.read(buffer));
+        int preys = (int) VarInt.read(buffer);
+        int predators = (int) VarInt.read(buffer);
+        int caimans = (int) VarInt.read(buffer);
+        int empty = (int) VarInt.read(buffer);
+        boolean extinction = buffer.get() != 0;
+        int size = (int) VarInt.read(buffer);
+
+        byte[] cells = null;
+        if (includeCells) {
+            if (type == RECORD_TURN) {
+                cells = unpackCells(buffer, size * size);
+            } else if (previousCells != null && previousCells.length == size * size) {
+                cells = applyDelta(buffer, previousCells);
+            } else {
+                return null;
+            }
+        }
+        return new TurnSnapshot(simulationId, scenario, turn, timestamp, preys, predators,
+                                caimans, empty, extinction, size, cells);
+    }
+
+    private static FinalState decodeFinal(ByteBuffer buffer, String simulationId) {
+        return new FinalState(simulationId, (int) VarInt.read(buffer), (int) VarInt.read(buffer),
+                              (int) VarInt.read(buffer), buffer.get() != 0);
+    }
+
+    /**
+     * Escribe las celdas que cambiaron: cantidad y, por cada una,
+     * (salto desde la celda cambiada anterior << 2 | codigo nuevo).
+     * Un movimiento son dos cambios; un nacimiento o una muerte, uno.
+     * @return false si cambiaron tantas celdas que conviene un keyframe
+     */
+    static boolean writeDelta(ByteArrayOutputStream out, byte[] previous, byte[] cells) {
+        int changes = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != previous[i]) changes++;
+        }
+        // Cada cambio ocupa al menos un byte, la matriz completa ocupa n/4
+        if (changes > cells.length / 4) return false;
+
+        VarInt.write(out, changes);
+        int last = -1;
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != previous[i]) {
+                VarInt.write(out, ((long) (i - last - 1) << 2) | cells[i]);
+                last = i;
+            }
+        }
+        return true;
+    }
+
+    static byte[] applyDelta(ByteBuffer buffer, byte[] previous) {
+        byte[] cells = previous.clone();
+        int changes = (int) VarInt.read(buffer);
+        int index = -1;
+        for (int k = 0; k < changes; k++) {
+            long entry = VarInt.read(buffer);
+            index += (int) (entry >>> 2) + 1;
+            cells[index] = (byte) (entry & 0x3);
+        }
+        return cells;
+    }
+
+    /**
+     * Empaqueta codigos de celda a 2 bits (4 celdas por byte)
+     */
+    static void packCells(ByteArrayOutputStream out, byte[] cells) {
+        for (int i = 0; i < cells.length; i += 4) {
+            int packed = 0;
+            for (int k = 0; k < 4 && i + k < cells.length; k++) {
+                packed |= (cells[i + k] & 0x3) << (k * 2);
+            }
+            out.write(packed);
+        }
+    }
+
+    static byte[] unpackCells(ByteBuffer buffer, int count) {
+        byte[] cells = new byte[count];
+        for (int i = 0; i < count; i += 4) {
+            int packed = buffer.get() & 0xFF;
+            for (int k = 0; k < 4 && i + k < count; k++) {
+                cells[i + k] = (byte) ((packed >> (k * 2)) & 0x3);
+            }
+        }
+        return cells;
+    }
+
+    static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        VarInt.write(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = (int) VarInt.read(buffer);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                                  length, java.nio.charset.StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Registro cuyo CRC no coincide (por ejemplo, escrito a medias)
+     */
+    private static class CorruptRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptRecordException() {
+            super("Corrupted state record (CRC mismatch)");
+        }
+    }
+
+    /**
+     * Lector secuencial de registros con verificacion de CRC
+     */
+    private static class RecordReader implements Closeable {
+        private final DataInputStream in;
+        private final CRC32C crc = new CRC32C();
+        private byte[] payload = new byte[256];
+        private int length;
+        int type;
+        long position; // posicion en el archivo despues del ultimo registro leido
+
+        RecordReader(InputStream source) {
+            this.in = new DataInputStream(new BufferedInputStream(source, 64 * 1024));
+        }
+
+        void readHeader() throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary state log");
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported state log version: " + version);
+            }
+            position = HEADER_SIZE;
+        }
+
+        /**
+         * Avanza al siguiente registro
+         * @return false al llegar al final del archivo
+         */
+        boolean next() throws IOException {
+            int read = in.read();
+            if (read < 0) return false;
+            type = read;
+
+            long value = 0;
+            int shift = 0;
+            int lengthBytes = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                lengthBytes++;
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            length = (int) value;
+
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+            in.readFully(payload, 0, length);
+            int storedCrc = in.readInt();
+
+            crc.reset();
+            crc.update(type);
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != storedCrc) {
+                throw new CorruptRecordException();
+            }
+            position += 1 + lengthBytes + length + 4;
+            return true;
+        }
+
+        ByteBuffer payload() {
+            return ByteBuffer.wrap(payload, 0, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Escritor binario. Registra un handle nuevo la primera vez que ve una
+     * simulacion y, entre keyframes, escribe solo las celdas que cambiaron.
+     */
+    private class Writer implements StateLogWriter {
+        private final DataOutputStream out;
+        private final FileChannel channel;
+        private final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        private final CRC32C crc = new CRC32C();
+        private final int keyframeInterval;
+        // Ultima matriz escrita y turnos desde el ultimo keyframe, por handle
+        private final Map<Integer, byte[]> lastCells = new HashMap<>();
+        private final Map<Integer, Integer> sinceKeyframe = new HashMap<>();
+        private long position;
+
+        Writer(DataOutputStream out, FileChannel channel, long position, int keyframeInterval) {
+            this.out = out;
+            this.channel = channel;
+            this.position = position;
+            this.keyframeInterval = keyframeInterval;
+        }
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) throws IOException {
+            int handle = handleFor(snapshot.simulationId, snapshot.scenario, snapshot.timestamp);
+
+            payload.reset();
+            VarInt.write(payload, handle);
+            VarInt.write(payload, snapshot.turn);
+            VarInt.write(payload, VarInt.zigZag(snapshot.timestamp - startTimes.get(handle)));
+            VarInt.write(payload, snapshot.preys);
+            VarInt.write(payload, snapshot.predators);
+            VarInt.write(payload, snapshot.caimans);
+            VarInt.write(payload, snapshot.empty);
+            payload.write(snapshot.extinction ? 1 : 0);
+            VarInt.write(payload, snapshot.size);
+
+            byte[] previous = lastCells.get(handle);
+            int since = sinceKeyframe.getOrDefault(handle, 0);
+            int headerLength = payload.size();
+
+            boolean delta = previous != null && previous.length == snapshot.cells.length
+                && since < keyframeInterval - 1 && writeDelta(payload, previous, snapshot.cells);
+
+            if (delta) {
+                sinceKeyframe.put(handle, since + 1);
+                writeRecord(RECORD_DELTA);
+            } else {
+                // Descartar lo que writeDelta haya escrito antes de rendirse
+                byte[] header = Arrays.copyOf(payload.toByteArray(), headerLength);
+                payload.reset();
+                payload.write(header, 0, header.length);
+                packCells(payload, snapshot.cells);
+                sinceKeyframe.put(handle, 0);
+                registerKeyframe(handle, snapshot.turn, position);
+                writeRecord(RECORD_TURN);
+            }
+            lastCells.put(handle, snapshot.cells);
+        }
+
+        @Override
+        public void writeFinal(FinalState state) throws IOException {
+            int handle = handleFor(state.simulationId, "", 0);
+
+            payload.reset();
+            VarInt.write(payload, handle);
+            VarInt.write(payload, state.totalTurns);
+            VarInt.write(payload, state.finalPreys);
+            VarInt.write(payload, state.finalPredators);
+            payload.write(state.extinction ? 1 : 0);
+            writeRecord(RECORD_FINAL);
+            lastCells.remove(handle);
+            sinceKeyframe.remove(handle);
+        }
+
+        private int handleFor(String simulationId, String scenario, long start) throws IOException {
+            Integer handle = handles.get(simulationId);
+            if (handle != null) return handle;
+
+            int newHandle = nextHandle;
+            registerHandle(simulationId, newHandle, scenario, start);
+
+            payload.reset();
+            VarInt.write(payload, newHandle);
+            writeString(payload, simulationId);
+            writeString(payload, scenario);
+            VarInt.write(payload, start);
+            writeRecord(RECORD_SIMULATION);
+            return newHandle;
+        }
+
+        private void writeRecord(byte type) throws IOException {
+            byte[] bytes = payload.toByteArray();
+            crc.reset();
+            crc.update(type);
+            crc.update(bytes);
+
+            ByteArrayOutputStream lengthBytes = new ByteArrayOutputStream(5);
+            VarInt.write(lengthBytes, bytes.length);
+
+            out.writeByte(type);
+            lengthBytes.writeTo(out);
+            out.write(bytes);
+            out.writeInt((int) crc.getValue());
+            position += 1 + lengthBytes.size() + bytes.length + 4;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void force() throws IOException {
+            out.flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            knownLength = position;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package data;
+
+import model.Animal;
+import model.Caiman;
+import model.Ecosystem;
+import model.GridStore;
+import model.Position;
+import model.Predator;
+import model.Prey;
+import model.SimulationParameters;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Data Access Object para checkpoints binarios de una simulacion completa.
+ * A diferencia de estado_turnos.txt, guarda todo lo necesario para reanudar:
+ * turno, estado del generador aleatorio y todos los atributos de cada animal
+ * (hambre, edad, mutacion, historial de alimentacion), en el orden original.
+ *
+ * Formato (big-endian):
+ * - Cabecera: magic, version, escenario, maxTurns, turno, banderas, tamaño,
+ *   radio de densidad (desde v2), estado RNG
+ * - Parametros de la simulacion (desde v3): cantidad y, por cada uno,
+ *   nombre y valor
+ * - Animales: cantidad y, por cada uno, tipo, posicion, banderas y contadores
+ * - CRC32 de todo lo anterior
+ */
+public class CheckpointDAO {
+
+    private static final int MAGIC = 0x45434B50; // "ECKP"
+    private static final short VERSION = 3;
+
+    private static final byte TYPE_PREY = 1;
+    private static final byte TYPE_PREDATOR = 2;
+    private static final byte TYPE_CAIMAN = 3;
+
+    private static final int FLAG_ALIVE = 1;
+    private static final int FLAG_PLACED = 2;
+
+    private static final int FLAG_THIRD_SPECIES = 1;
+    private static final int FLAG_MUTATIONS = 2;
+    private static final int FLAG_MORTON_LAYOUT = 4;
+    private static final int FLAG_GLOBAL_OVERPOPULATION = 8;
+
+    /**
+     * Guarda un checkpoint completo del ecosistema.
+     * Se escribe en un archivo temporal, se lleva al disco y luego reemplaza
+     * al destino con un rename atomico, para no dejar un checkpoint a medio
+     * escribir ni perder el anterior.
+     * @param ecosystem Ecosistema a guardar
+     * @param fileName Archivo de destino
+     * @return true si se guardo exitosamente
+     */
+    public boolean saveCheckpoint(Ecosystem ecosystem, String fileName) {
+        Path target = Paths.get(fileName);
+        Path temp = Paths.get(fileName + ".tmp");
+
+        try {
+            CRC32 crc = new CRC32();
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(file), crc))) {
+
+                writeEcosystem(out, ecosystem);
+                out.flush();
+                // El CRC no se incluye a si mismo
+                long checksum = crc.getValue();
+                out.writeLong(checksum);
+                out.flush();
+                // En disco antes del reemplazo: un corte no deja el destino truncado
+                file.getChannel().force(true);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("[DAO] Checkpoint saved at turn " + ecosystem.getCurrentTurn() +
+                             " to " + fileName);
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save checkpoint: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Carga un checkpoint leyendolo como flujo.
+     * @param fileName Archivo del checkpoint
+     * @return Ecosistema restaurado o null si no se pudo cargar
+     */
+    public Ecosystem loadCheckpoint(String fileName) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+            return readCheckpoint(in);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load checkpoint: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Carga un checkpoint mapeando el archivo en memoria.
+     * Evita copias intermedias en checkpoints de mundos grandes.
+     * @param fileName Archivo del checkpoint
+     * @return Ecosistema restaurado o null si no se pudo cargar
+     */
+    public Ecosystem loadCheckpointMapped(String fileName) {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return readCheckpoint(new ByteBufferInputStream(buffer));
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load checkpoint: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lee y valida un checkpoint desde un flujo
+     */
+    private Ecosystem readCheckpoint(InputStream source) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(source, crc));
+
+        Ecosystem ecosystem = readEcosystem(in);
+        long expected = crc.getValue();
+        long stored = in.readLong();
+
+        if (stored != expected) {
+            throw new IOException("Checkpoint checksum mismatch");
+        }
+
+        System.out.println("[DAO] Checkpoint loaded at turn " + ecosystem.getCurrentTurn());
+        return ecosystem;
+    }
+
+    private void writeEcosystem(DataOutputStream out, Ecosystem ecosystem) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF(ecosystem.getScenario());
+        out.writeInt(ecosystem.getMaxTurns());
+        out.writeInt(ecosystem.getCurrentTurn());
+
+        int flags = 0;
+        if (ecosystem.isTerceraEspecieActiva()) flags |= FLAG_THIRD_SPECIES;
+        if (ecosystem.isMutacionesActivas()) flags |= FLAG_MUTATIONS;
+        if (ecosystem.getGridLayout() == GridStore.Layout.MORTON) flags |= FLAG_MORTON_LAYOUT;
+        if (ecosystem.getOverpopulationMode() == Ecosystem.OverpopulationMode.GLOBAL) {
+            flags |= FLAG_GLOBAL_OVERPOPULATION;
+        }
+        out.writeByte(flags);
+        out.writeInt(ecosystem.getSize());
+        out.writeInt(ecosystem.getDensityRadius());
+        out.writeLong(ecosystem.getRandom().getState());
+
+        SimulationParameters parameters = ecosystem.getParameters();
+        SimulationParameters.Parameter[] all = SimulationParameters.Parameter.values();
+        out.writeInt(all.length);
+        for (SimulationParameters.Parameter parameter : all) {
+            out.writeUTF(parameter.name());
+            out.writeDouble(parameters.get(parameter));
+        }
+
+        List<Animal> animals = ecosystem.getAliveAnimals();
+        out.writeInt(animals.size());
+
+        for (Animal animal : animals) {
+            Position pos = animal.getPosition();
+
+            if (animal instanceof Prey) {
+                out.writeByte(TYPE_PREY);
+            } else if (animal instanceof Predator) {
+                out.writeByte(TYPE_PREDATOR);
+            } else {
+                out.writeByte(TYPE_CAIMAN);
+            }
+            out.writeInt(pos.getRow());
+            out.writeInt(pos.getColumn());
+
+            int animalFlags = 0;
+            if (animal.isAlive()) animalFlags |= FLAG_ALIVE;
+            if (ecosystem.getAnimal(pos) == animal) animalFlags |= FLAG_PLACED;
+            out.writeByte(animalFlags);
+
+            out.writeInt(animal.getTurnsWithoutEating());
+            out.writeInt(animal.getTurnsSurvived());
+            out.writeByte(animal.getMutationFactor());
+
+            if (animal instanceof Predator) {
+                Predator predator = (Predator) animal;
+                out.writeInt(predator.getLastTurnAte());
+                out.writeInt(predator.getTotalPreysEaten());
+            } else if (animal instanceof Caiman) {
+                out.writeInt(((Caiman) animal).getLastTurnAte());
+            }
+        }
+    }
+
+    private Ecosystem readEcosystem(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an ecosystem checkpoint");
+        }
+        short version = in.readShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported checkpoint version: " + version);
+        }
+
+        String scenario = in.readUTF();
+        int maxTurns = in.readInt();
+        int currentTurn = in.readInt();
+        int flags = in.readByte();
+        int size = in.readInt();
+        // v1 es anterior a la regla local: usaba siempre la ocupación global
+        int densityRadius = version >= 2 ? in.readInt() : 0;
+        if (version < 2) flags |= FLAG_GLOBAL_OVERPOPULATION;
+        long randomState = in.readLong();
+        // Antes de v3 se usaban siempre los del escenario
+        SimulationParameters parameters = version >= 3
+            ? readParameters(in, scenario) : SimulationParameters.forScenario(scenario);
+
+        Ecosystem ecosystem = new Ecosystem(maxTurns, scenario);
+        ecosystem.setParameters(parameters);
+        ecosystem.configureGrid(size, (flags & FLAG_MORTON_LAYOUT) != 0 
+            ? GridStore.Layout.MORTON : GridStore.Layout.ROW_MAJOR);
+        ecosystem.setOverpopulationMode((flags & FLAG_GLOBAL_OVERPOPULATION) != 0
+            ? Ecosystem.OverpopulationMode.GLOBAL : Ecosystem.OverpopulationMode.LOCAL, densityRadius);
+        ecosystem.setTerceraEspecieActiva((flags & FLAG_THIRD_SPECIES) != 0);
+        ecosystem.setMutacionesActivas((flags & FLAG_MUTATIONS) != 0);
+
+        int count = in.readInt();
+        List<Animal> animals = new ArrayList<>(count);
+        List<Animal> placed = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            Position pos = new Position(in.readInt(), in.readInt());
+            int animalFlags = in.readByte();
+
+            Animal animal;
+            switch (type) {
+                case TYPE_PREY:
+                    animal = new Prey(pos);
+                    break;
+                case TYPE_PREDATOR:
+                    animal = new Predator(pos);
+                    break;
+                case TYPE_CAIMAN:
+                    animal = new Caiman(pos);
+                    break;
+                default:
+                    throw new IOException("Unknown animal type in checkpoint: " + type);
+            }
+
+            animal.restoreCounters(in.readInt(), in.readInt());
+            animal.setMutationFactor(in.readByte());
+
+            if (animal instanceof Predator) {
+                ((Predator) animal).restoreFeedingState(in.readInt(), in.readInt());
+            } else if (animal instanceof Caiman) {
+                ((Caiman) animal).restoreFeedingState(in.readInt());
+            }
+
+            if ((animalFlags & FLAG_ALIVE) == 0) {
+                animal.die();
+            }
+            if ((animalFlags & FLAG_PLACED) != 0) {
+                placed.add(animal);
+            }
+            animals.add(animal);
+        }
+
+        ecosystem.restoreState(currentTurn, animals, placed, randomState);
+        return ecosystem;
+    }
+
+    private SimulationParameters readParameters(DataInputStream in, String scenario) throws IOException {
+        int count = in.readInt();
+        List<SimulationParameters.Parameter> parameters = new ArrayList<>(count);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            double value = in.readDouble();
+            try {
+                parameters.add(SimulationParameters.Parameter.valueOf(name));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown simulation parameter in checkpoint: " + name);
+            }
+            values[i] = value;
+        }
+
+        try {
+            return SimulationParameters.forScenario(scenario)
+                .with(parameters.toArray(new SimulationParameters.Parameter[0]), values);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid simulation parameters in checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adaptador de un ByteBuffer (p. ej. un archivo mapeado) a InputStream
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+    }
+}
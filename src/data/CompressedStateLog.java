@@ -0,0 +1,448 @@
+package data;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Registro de estados de texto comprimido por bloques (estado_turnos.dz).
+ * Los registros se escriben en el mismo formato que estado_turnos.txt, pero
+ * agrupados en bloques independientes comprimidos con Deflater. Un registro
+ * nunca se parte entre dos bloques.
+ *
+ * Cada bloque empieza con una cabecera sin comprimir:
+ *   magic, largo de la cabecera, largo comprimido, largo original, CRC32 del
+ *   original y, por cada simulacion del bloque, ID, primer y ultimo turno y
+ *   si contiene el cierre.
+ * Las cabeceras forman el indice de bloques: para leer una simulacion o un
+ * turno solo se descomprimen los bloques que lo contienen. El indice se arma
+ * en memoria saltando de cabecera en cabecera y se pone al dia leyendo solo
+ * los bloques agregados desde la ultima vez.
+ */
+public class CompressedStateLog {
+
+    private static final int BLOCK_MAGIC = 0x53424C4B; // "SBLK"
+
+    private final String fileName;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    // Indice de bloques, valido mientras el archivo mida indexedLength
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<String, List<Block>> blocksBySimulation = new LinkedHashMap<>();
+    private long indexedLength;
+
+    public CompressedStateLog(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Nivel de compresion de Deflater (1 = rapido ... 9 = maximo)
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Abre un escritor que agrega bloques al final del archivo
+     * @param blockSize Tamaño aproximado de cada bloque sin comprimir
+     */
+    public StateLogWriter openWriter(int blockSize) throws IOException {
+        recover(); // no seguir escribiendo detras de un bloque roto
+        return new Writer(new FileOutputStream(fileName, true), blockSize);
+    }
+
+    /**
+     * Lee los registros de una simulacion descomprimiendo solo sus bloques
+     * @param includeCells Si es false no se decodifican las matrices
+     */
+    public void readSimulation(String simulationId, boolean includeCells,
+                               StateRecordHandler handler) throws IOException {
+        refreshIndex();
+        List<Block> simulationBlocks = blocksBySimulation.get(simulationId);
+        if (simulationBlocks == null) return;
+
+        readBlocks(simulationBlocks, simulationId::equals, includeCells, handler);
+    }
+
+    /**
+     * Lee un turno descomprimiendo solo el bloque que lo contiene
+     * @return Captura del turno o null si no existe
+     */
+    public TurnSnapshot readTurn(String simulationId, int turn) throws IOException {
+        refreshIndex();
+        List<Block> simulationBlocks = blocksBySimulation.get(simulationId);
+        if (simulationBlocks == null) return null;
+
+        List<Block> candidates = new ArrayList<>();
+        for (Block block : simulationBlocks) {
+            int[] range = block.turns.get(simulationId);
+            if (range[0] <= turn && turn <= range[1]) {
+                candidates.add(block);
+            }
+        }
+
+        TurnSnapshot[] found = new TurnSnapshot[1];
+        readBlocks(candidates, simulationId::equals, true, new StateRecordHandler() {
+            @Override
+            public void onTurn(TurnSnapshot snapshot) {
+                if (snapshot.turn == turn) found[0] = snapshot;
+            }
+
+            @Override
+            public void onFinal(FinalState state) {
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Lee todos los registros de las simulaciones que cumplan el filtro
+     */
+    public void read(Predicate<String> simulationFilter, boolean includeCells,
+                     StateRecordHandler handler) throws IOException {
+        refreshIndex();
+        List<Block> selected = new ArrayList<>();
+        for (Block block : blocks) {
+            for (String id : block.turns.keySet()) {
+                if (simulationFilter.test(id)) {
+                    selected.add(block);
+                    break;
+                }
+            }
+        }
+        readBlocks(selected, simulationFilter, includeCells, handler);
+    }
+
+    /**
+     * IDs de todas las simulaciones, en orden de aparicion
+     */
+    public List<String> listSimulations() throws IOException {
+        refreshIndex();
+        return new ArrayList<>(blocksBySimulation.keySet());
+    }
+
+    /**
+     * Tamaño total sin comprimir de los bloques
+     */
+    public long getUncompressedSize() throws IOException {
+        refreshIndex();
+        long total = 0;
+        for (Block block : blocks) {
+            total += block.rawLength;
+        }
+        return total;
+    }
+
+    /**
+     * Elimina el archivo comprimido
+     */
+    public boolean clear() {
+        clearIndex();
+        File file = new File(fileName);
+        return !file.exists() || file.delete();
+    }
+
+    // Indice de bloques
+
+    private void clearIndex() {
+        blocks.clear();
+        blocksBySimulation.clear();
+        indexedLength = 0;
+    }
+
+    /**
+     * Recuperacion tras un corte: trunca el archivo al final del ultimo
+     * bloque completo. Un bloque con cabecera ilegible se trata igual que
+     * uno incompleto y se descarta junto con lo que le sigue.
+     * @return Bytes descartados (0 si el archivo estaba sano)
+     */
+    public long recover() throws IOException {
+        try {
+            refreshIndex();
+        } catch (IOException e) {
+            System.err.println("[WARNING] " + e.getMessage());
+        }
+
+        File file = new File(fileName);
+        long discarded = file.exists() ? file.length() - indexedLength : 0;
+        if (discarded <= 0) return 0;
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(indexedLength);
+        }
+        System.out.println("[RECOVERY] Truncated " + discarded + " bytes of incomplete blocks from " + fileName);
+        return discarded;
+    }
+
+    /**
+     * Lee las cabeceras de los bloques agregados desde la ultima vez.
+     * Si el archivo se acorto se vuelve a leer desde el inicio; un bloque
+     * incompleto al final se ignora.
+     */
+    private void refreshIndex() throws IOException {
+        File file = new File(fileName);
+        long length = file.exists() ? file.length() : 0;
+
+        if (length < indexedLength) {
+            clearIndex();
+        }
+        if (length == indexedLength) return;
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long position = indexedLength;
+
+            while (position + 8 <= length) {
+                in.seek(position);
+                if (in.readInt() != BLOCK_MAGIC) {
+                    throw new IOException("Corrupted compressed state log at byte " + position);
+                }
+                int headerLength = in.readInt();
+                if (headerLength < 0 || position + 8 + headerLength > length) break; // Cabecera incompleta
+                byte[] header = new byte[headerLength];
+                in.readFully(header);
+
+                Block block = Block.parseHeader(header, position + 8 + header.length);
+                long end = block.dataOffset + block.compressedLength;
+                if (end > length) break; // Bloque a medio escribir
+
+                addBlock(block);
+                position = end;
+                indexedLength = position;
+            }
+        } catch (EOFException e) {
+            // Cabecera incompleta al final: queda para la proxima vez
+        }
+    }
+
+    private void addBlock(Block block) {
+        blocks.add(block);
+        for (String id : block.turns.keySet()) {
+            blocksBySimulation.computeIfAbsent(id, k -> new ArrayList<>()).add(block);
+        }
+    }
+
+    private void readBlocks(List<Block> selected, Predicate<String> simulationFilter,
+                            boolean includeCells, StateRecordHandler handler) throws IOException {
+        if (selected.isEmpty()) return;
+
+        StateRecordHandler filtered = new StateRecordHandler() {
+            @Override
+            public void onTurn(TurnSnapshot snapshot) throws IOException {
+                if (simulationFilter.test(snapshot.simulationId)) handler.onTurn(snapshot);
+            }
+
+            @Override
+            public void onFinal(FinalState state) throws IOException {
+                if (simulationFilter.test(state.simulationId)) handler.onFinal(state);
+            }
+        };
+
+        Inflater inflater = new Inflater();
+        try (RandomAccessFile in = new RandomAccessFile(fileName, "r")) {
+            byte[] compressed = new byte[0];
+
+            for (Block block : selected) {
+                if (compressed.length < block.compressedLength) {
+                    compressed = new byte[block.compressedLength];
+                }
+                in.seek(block.dataOffset);
+                in.readFully(compressed, 0, block.compressedLength);
+
+                byte[] raw = inflate(inflater, compressed, block);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new ByteArrayInputStream(raw), StandardCharsets.UTF_8))) {
+                    TextStateLog.readRecords(reader, includeCells, filtered);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] compressed, Block block) throws IOException {
+        byte[] raw = new byte[block.rawLength];
+        inflater.reset();
+        inflater.setInput(compressed, 0, block.compressedLength);
+
+        try {
+            int total = 0;
+            while (total < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, total, raw.length - total);
+                if (n == 0 && inflater.needsInput()) break;
+                total += n;
+            }
+            if (total != raw.length) {
+                throw new IOException("Truncated compressed block at byte " + block.dataOffset);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed block: " + e.getMessage());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != block.checksum) {
+            throw new IOException("Compressed block checksum mismatch at byte " + block.dataOffset);
+        }
+        return raw;
+    }
+
+    /**
+     * Entrada del indice: ubicacion del bloque y que turnos contiene
+     */
+    private static class Block {
+        long dataOffset;
+        int compressedLength;
+        int rawLength;
+        int checksum;
+        // ID -> {primer turno, ultimo turno}
+        final Map<String, int[]> turns = new LinkedHashMap<>();
+
+        static Block parseHeader(byte[] header, long dataOffset) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            Block block = new Block();
+            block.dataOffset = dataOffset;
+            block.compressedLength = in.readInt();
+            block.rawLength = in.readInt();
+            block.checksum = in.readInt();
+
+            int simulations = in.readShort();
+            for (int i = 0; i < simulations; i++) {
+                String id = in.readUTF();
+                block.turns.put(id, new int[]{in.readInt(), in.readInt()});
+                in.readBoolean(); // contiene el cierre
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Escritor que acumula registros de texto y los comprime por bloques
+     */
+    private class Writer implements StateLogWriter {
+        private final OutputStream out;
+        private final FileChannel channel;
+        private final int blockSize;
+        private final ByteArrayOutputStream raw;
+        private final BufferedWriter text;
+        private final Deflater deflater = new Deflater(compressionLevel);
+        private byte[] compressed = new byte[8192];
+        // Simulaciones del bloque actual: ID -> {primer turno, ultimo turno, tiene cierre}
+        private final Map<String, int[]> pending = new LinkedHashMap<>();
+
+        Writer(FileOutputStream out, int blockSize) {
+            this.out = new BufferedOutputStream(out);
+            this.channel = out.getChannel();
+            this.blockSize = blockSize;
+            this.raw = new ByteArrayOutputStream(blockSize + 4096);
+            this.text = new BufferedWriter(new OutputStreamWriter(raw, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) throws IOException {
+            TextStateLog.writeTurn(text, snapshot);
+            int[] range = pending.computeIfAbsent(snapshot.simulationId,
+                id -> new int[]{snapshot.turn, snapshot.turn, 0});
+            range[1] = snapshot.turn;
+            endRecord();
+        }
+
+        @Override
+        public void writeFinal(FinalState state) throws IOException {
+            TextStateLog.writeFinal(text, state);
+            int[] range = pending.computeIfAbsent(state.simulationId,
+                id -> new int[]{Integer.MAX_VALUE, Integer.MIN_VALUE, 0});
+            range[2] = 1;
+            endRecord();
+        }
+
+        private void endRecord() throws IOException {
+            text.flush();
+            if (raw.size() >= blockSize) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * Comprime y agrega el bloque actual al archivo
+         */
+        private void writeBlock() throws IOException {
+            text.flush();
+            if (raw.size() == 0) return;
+
+            byte[] data = raw.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            deflater.reset();
+            deflater.setInput(data);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = java.util.Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(length);
+            header.writeInt(data.length);
+            header.writeInt((int) crc.getValue());
+            header.writeShort(pending.size());
+            for (Map.Entry<String, int[]> entry : pending.entrySet()) {
+                header.writeUTF(entry.getKey());
+                header.writeInt(entry.getValue()[0]);
+                header.writeInt(entry.getValue()[1]);
+                header.writeBoolean(entry.getValue()[2] != 0);
+            }
+
+            DataOutputStream block = new DataOutputStream(out);
+            block.writeInt(BLOCK_MAGIC);
+            block.writeInt(headerBytes.size());
+            headerBytes.writeTo(block);
+            block.write(compressed, 0, length);
+
+            raw.reset();
+            pending.clear();
+        }
+
+        /**
+         * Cierra el bloque actual aunque no este lleno y lo escribe en disco
+         */
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        /**
+         * Cierra el bloque actual y lo lleva al disco fisico. Con fsync por
+         * registro cada registro queda en su propio bloque.
+         */
+        @Override
+        public void force() throws IOException {
+            flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                out.close();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package data;
+
+import java.util.List;
+
+/**
+ * Almacenamiento de las configuraciones iniciales de los ecosistemas.
+ * EcosystemDAO lo implementa sobre ecosistema.txt y
+ * KeyValueConfigurationRepository sobre el almacen clave-valor;
+ * RepositoryFactory elige segun la configuracion.
+ */
+public interface ConfigurationRepository {
+
+    /**
+     * Guarda la configuracion inicial de un ecosistema
+     * @return true si se guardo exitosamente
+     */
+    boolean saveConfiguration(String scenario, int maxTurns,
+                              int numPreys, int numPredators, String username);
+
+    /**
+     * Ultima configuracion guardada, o null si no hay ninguna
+     */
+    EcosystemDAO.Configuration getLastConfiguration();
+
+    /**
+     * Todas las configuraciones, en el orden en que se guardaron
+     */
+    List<EcosystemDAO.Configuration> getConfigurations();
+
+    /**
+     * Configuraciones de un usuario, en el orden en que se guardaron
+     */
+    List<EcosystemDAO.Configuration> findByUser(String username);
+
+    /**
+     * Configuraciones de un escenario, en el orden en que se guardaron
+     */
+    List<EcosystemDAO.Configuration> findByScenario(String scenario);
+
+    /**
+     * Borra todas las configuraciones
+     * @return true si se limpio exitosamente
+     */
+    boolean clearConfigurations();
+
+    /**
+     * Cantidad de configuraciones por escenario, formateada
+     */
+    String getStatistics();
+}
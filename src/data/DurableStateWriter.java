@@ -0,0 +1,106 @@
+package data;
+
+import java.io.IOException;
+
+/**
+ * Durabilidad del registro de estados: despues de cada registro (o de cada
+ * N registros) vuelca el buffer y hace fsync, asi un corte de energia pierde
+ * a lo sumo los ultimos registros. Un registro a medio escribir lo descarta
+ * la recuperacion al abrir el proximo escritor (StateDAO.recoverStateLog()).
+ *
+ * Con escritura diferida el fsync lo hace el hilo en segundo plano: el
+ * registro es durable cuando el hilo lo escribio, no al encolarlo.
+ */
+public class DurableStateWriter implements StateLogWriter {
+
+    /**
+     * Cuando pedir el fsync
+     */
+    public enum Mode {
+        NONE,         // solo al cerrar; el sistema decide cuando escribir
+        EVERY_N,      // cada N registros
+        EVERY_RECORD  // despues de cada registro
+    }
+
+    private final StateLogWriter target;
+    private final Mode mode;
+    private final int everyRecords;
+    private int sinceForce;
+    private long forces;
+
+    /**
+     * @param target Escritor real
+     * @param mode Cuando pedir el fsync
+     * @param everyRecords Registros entre fsync (solo en EVERY_N)
+     */
+    public DurableStateWriter(StateLogWriter target, Mode mode, int everyRecords) {
+        if (mode == Mode.EVERY_N && everyRecords < 1) {
+            throw new IllegalArgumentException("Records between fsync must be >= 1");
+        }
+        this.target = target;
+        this.mode = mode;
+        this.everyRecords = mode == Mode.EVERY_RECORD ? 1 : everyRecords;
+    }
+
+    @Override
+    public void writeTurn(TurnSnapshot snapshot) throws IOException {
+        target.writeTurn(snapshot);
+        recordWritten();
+    }
+
+    @Override
+    public void writeFinal(FinalState state) throws IOException {
+        target.writeFinal(state);
+        recordWritten();
+    }
+
+    private void recordWritten() throws IOException {
+        if (mode == Mode.NONE) return;
+
+        if (++sinceForce >= everyRecords) {
+            force();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    /**
+     * Fuera de NONE, esperar lo escrito tambien implica llevarlo al disco
+     */
+    @Override
+    public void sync() throws IOException {
+        if (mode == Mode.NONE) {
+            target.sync();
+        } else {
+            force();
+        }
+    }
+
+    @Override
+    public void force() throws IOException {
+        target.force();
+        sinceForce = 0;
+        forces++;
+    }
+
+    /**
+     * Cantidad de fsync realizados
+     */
+    public long getForces() {
+        return forces;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (mode != Mode.NONE && sinceForce > 0) {
+                force();
+            }
+        } finally {
+            target.close();
+        }
+    }
+}
@@ -1,19 +1,37 @@
 package data;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Data Access Object para configuraciones del ecosistema.
  * Maneja lectura y escritura del archivo ecosistema.txt
+ *
+ * Las configuraciones se leen una vez y quedan en memoria, indexadas por
+ * usuario y por escenario. Si el archivo crece solo se leen las lineas
+ * nuevas; si cambia de otra forma (otro tamaño o fecha) se vuelve a leer.
  */
-public class EcosystemDAO {
+public class EcosystemDAO implements ConfigurationRepository {
     
     private static final String CONFIG_FILE = "ecosistema.txt";
     
+    // Configuraciones en orden del archivo e indices secundarios
+    private final List<Configuration> configurations = new ArrayList<>();
+    private final Map<String, List<Configuration>> byUser = new HashMap<>();
+    private final Map<String, List<Configuration>> byScenario = new HashMap<>();
+    // Bytes leidos (hasta la ultima linea completa)
+    private long loadedLength;
+    // Tamaño y fecha del archivo en la ultima consulta
+    private long checkedLength = -1;
+    private long checkedModified;
+    
     /**
      * Guarda la configuracion inicial de un ecosistema
      * @param scenario Tipo de escenario
@@ -23,27 +41,33 @@ public class EcosystemDAO {
      * @param username Usuario que creo la simulacion
      * @return true si se guardo exitosamente
      */
+    @Override
     public boolean saveConfiguration(String scenario, int maxTurns, 
                                      int numPreys, int numPredators, String username) {
+        File file = new File(CONFIG_FILE);
+        long lengthBefore = file.length();
+        
+        Configuration config = Configuration.create(scenario, maxTurns, numPreys,
+                                                    numPredators, username);
+        
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(CONFIG_FILE, true))) {
-            
-            // Formato: timestamp|username|scenario|maxTurns|preys|predators
-            String timestamp = LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            
-            String line = String.format("%s|%s|%s|%d|%d|%d",
-                timestamp, username, scenario, maxTurns, numPreys, numPredators);
-            
-            writer.write(line);
+            writer.write(config.toFileFormat());
             writer.newLine();
-            
-            System.out.println("[DAO] Configuration saved to " + CONFIG_FILE);
-            return true;
-            
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to save configuration: " + e.getMessage());
             return false;
         }
+        
+        // La cache estaba al dia: se agrega sin volver a leer el archivo
+        if (lengthBefore == checkedLength && lengthBefore == loadedLength) {
+            add(config);
+            loadedLength = file.length();
+            checkedLength = loadedLength;
+            checkedModified = file.lastModified();
+        }
+        
+        System.out.println("[DAO] Configuration saved to " + CONFIG_FILE);
+        return true;
     }
     
     /**
@@ -51,89 +75,75 @@ public class EcosystemDAO {
      * @return Map con la configuracion o null si no existe
      */
     public Map<String, String> loadLastConfiguration() {
-        File file = new File(CONFIG_FILE);
-        if (!file.exists()) {
+        if (!new File(CONFIG_FILE).exists()) {
             System.out.println("[INFO] No configuration file found");
             return null;
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(CONFIG_FILE))) {
-            String lastLine = null;
-            String line;
-            
-            // Leer hasta la ultima linea
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    lastLine = line;
-                }
-            }
-            
-            if (lastLine != null) {
-                return parseConfiguration(lastLine);
-            }
-            
-        } catch (IOException e) {
-            System.err.println("[ERROR] Failed to load configuration: " + e.getMessage());
-        }
-        
-        return null;
+        Configuration last = getLastConfiguration();
+        return last != null ? last.toMap() : null;
+    }
+    
+    /**
+     * Ultima configuracion guardada, o null si no hay ninguna
+     */
+    @Override
+    public Configuration getLastConfiguration() {
+        refresh();
+        return configurations.isEmpty() ? null : configurations.get(configurations.size() - 1);
     }
     
     /**
      * Carga todas las configuraciones guardadas
-     * @return Array de Maps con todas las configuraciones
+     * @return Lista de Maps con todas las configuraciones
      */
-    public Map<String, String>[] loadAllConfigurations() {
-        File file = new File(CONFIG_FILE);
-        if (!file.exists()) {
-            return new Map[0];
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(CONFIG_FILE))) {
-            java.util.List<Map<String, String>> configs = new java.util.ArrayList<>();
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    Map<String, String> config = parseConfiguration(line);
-                    if (config != null) {
-                        configs.add(config);
-                    }
-                }
-            }
-            
-            System.out.println("[DAO] Loaded " + configs.size() + " configurations");
-            return configs.toArray(new Map[0]);
-            
-        } catch (IOException e) {
-            System.err.println("[ERROR] Failed to load configurations: " + e.getMessage());
-            return new Map[0];
-        }
+    public List<Map<String, String>> loadAllConfigurations() {
+        return toMaps(getConfigurations());
+    }
+    
+    /**
+     * Todas las configuraciones, en el orden en que se guardaron
+     * @return Lista de solo lectura
+     */
+    @Override
+    public List<Configuration> getConfigurations() {
+        refresh();
+        return Collections.unmodifiableList(configurations);
+    }
+    
+    /**
+     * Configuraciones de un usuario, en el orden en que se guardaron
+     * @return Lista de solo lectura (vacia si no hay)
+     */
+    @Override
+    public List<Configuration> findByUser(String username) {
+        refresh();
+        return Collections.unmodifiableList(byUser.getOrDefault(username, Collections.emptyList()));
+    }
+    
+    /**
+     * Configuraciones de un escenario, en el orden en que se guardaron
+     * @return Lista de solo lectura (vacia si no hay)
+     */
+    @Override
+    public List<Configuration> findByScenario(String scenario) {
+        refresh();
+        return Collections.unmodifiableList(byScenario.getOrDefault(scenario, Collections.emptyList()));
     }
     
     /**
      * Parsea una linea de configuracion
      * @param line Linea del archivo
-     * @return Map con los datos parseados
+     * @return Configuracion o null si la linea no es valida
      */
-    private Map<String, String> parseConfiguration(String line) {
+    private Configuration parseConfiguration(String line) {
         try {
-            String[] parts = line.split("\\|");
-            
-            if (parts.length != 6) {
+            if (line.split("\\|").length != 6) {
                 System.err.println("[WARNING] Invalid configuration format: " + line);
                 return null;
             }
             
-            Map<String, String> config = new HashMap<>();
-            config.put("timestamp", parts[0]);
-            config.put("username", parts[1]);
-            config.put("scenario", parts[2]);
-            config.put("maxTurns", parts[3]);
-            config.put("numPreys", parts[4]);
-            config.put("numPredators", parts[5]);
-            
-            return config;
+            return Configuration.fromFileFormat(line);
             
         } catch (Exception e) {
             System.err.println("[ERROR] Failed to parse configuration: " + e.getMessage());
@@ -144,43 +154,26 @@ public class EcosystemDAO {
     /**
      * Obtiene configuraciones por usuario
      * @param username Nombre de usuario
-     * @return Array de configuraciones del usuario
+     * @return Lista de configuraciones del usuario
      */
-    public Map<String, String>[] getConfigurationsByUser(String username) {
-        Map<String, String>[] allConfigs = loadAllConfigurations();
-        java.util.List<Map<String, String>> userConfigs = new java.util.ArrayList<>();
-        
-        for (Map<String, String> config : allConfigs) {
-            if (config.get("username").equals(username)) {
-                userConfigs.add(config);
-            }
-        }
-        
-        return userConfigs.toArray(new Map[0]);
+    public List<Map<String, String>> getConfigurationsByUser(String username) {
+        return toMaps(findByUser(username));
     }
     
     /**
      * Obtiene configuraciones por escenario
      * @param scenario Tipo de escenario
-     * @return Array de configuraciones del escenario
+     * @return Lista de configuraciones del escenario
      */
-    public Map<String, String>[] getConfigurationsByScenario(String scenario) {
-        Map<String, String>[] allConfigs = loadAllConfigurations();
-        java.util.List<Map<String, String>> scenarioConfigs = new java.util.ArrayList<>();
-        
-        for (Map<String, String> config : allConfigs) {
-            if (config.get("scenario").equals(scenario)) {
-                scenarioConfigs.add(config);
-            }
-        }
-        
-        return scenarioConfigs.toArray(new Map[0]);
+    public List<Map<String, String>> getConfigurationsByScenario(String scenario) {
+        return toMaps(findByScenario(scenario));
     }
     
     /**
      * Limpia el archivo de configuraciones
      * @return true si se limpio exitosamente
      */
+    @Override
     public boolean clearConfigurations() {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(CONFIG_FILE))) {
             writer.write("");
@@ -189,6 +182,8 @@ public class EcosystemDAO {
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to clear configuration file: " + e.getMessage());
             return false;
+        } finally {
+            reset();
         }
     }
     
@@ -196,38 +191,178 @@ public class EcosystemDAO {
      * Obtiene estadisticas de configuraciones guardadas
      * @return String con estadisticas formateadas
      */
+    @Override
     public String getStatistics() {
-        Map<String, String>[] configs = loadAllConfigurations();
+        refresh();
         
-        if (configs.length == 0) {
+        if (configurations.isEmpty()) {
             return "No configurations saved yet";
         }
         
-        // Contar por escenario
-        int balanced = 0, predatorsDom = 0, preysDom = 0;
-        
-        for (Map<String, String> config : configs) {
-            String scenario = config.get("scenario");
-            switch (scenario) {
-                case "BALANCED":
-                    balanced++;
-                    break;
-                case "PREDATORS_DOM":
-                    predatorsDom++;
-                    break;
-                case "PREYS_DOM":
-                    preysDom++;
-                    break;
-            }
-        }
-        
         StringBuilder stats = new StringBuilder();
         stats.append("=== CONFIGURATION STATISTICS ===\n");
-        stats.append("Total simulations: ").append(configs.length).append("\n");
-        stats.append("Balanced: ").append(balanced).append("\n");
-        stats.append("Predators Dominant: ").append(predatorsDom).append("\n");
-        stats.append("Preys Dominant: ").append(preysDom).append("\n");
+        stats.append("Total simulations: ").append(configurations.size()).append("\n");
+        stats.append("Balanced: ").append(countScenario("BALANCED")).append("\n");
+        stats.append("Predators Dominant: ").append(countScenario("PREDATORS_DOM")).append("\n");
+        stats.append("Preys Dominant: ").append(countScenario("PREYS_DOM")).append("\n");
         
         return stats.toString();
     }
-}
\ No newline at end of file
+    
+    private int countScenario(String scenario) {
+        List<Configuration> configs = byScenario.get(scenario);
+        return configs != null ? configs.size() : 0;
+    }
+    
+    // Cache en memoria
+    
+    /**
+     * Pone la cache al dia con el archivo
+     */
+    private void refresh() {
+        File file = new File(CONFIG_FILE);
+        long length = file.exists() ? file.length() : 0;
+        long modified = file.lastModified();
+        
+        // Sin cambios desde la ultima consulta: no hace falta leer nada
+        if (length == checkedLength && modified == checkedModified) return;
+        
+        // Se acorto o se reescribio: se vuelve a leer desde el inicio
+        if (length < loadedLength || length == checkedLength) {
+            reset();
+        }
+        if (length > loadedLength) {
+            try {
+                readFrom(file, loadedLength);
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to load configurations: " + e.getMessage());
+                reset();
+                return;
+            }
+        }
+        checkedLength = length;
+        checkedModified = modified;
+    }
+    
+    /**
+     * Agrega las lineas completas desde una posicion; una linea a medio
+     * escribir al final queda para la proxima vez
+     */
+    private void readFrom(File file, long from) throws IOException {
+        byte[] bytes;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            bytes = new byte[(int) (in.length() - from)];
+            in.seek(from);
+            in.readFully(bytes);
+        }
+        
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        if (end == 0) return;
+        
+        String text = new String(bytes, 0, end, Charset.defaultCharset());
+        int added = 0;
+        for (String line : text.split("\r?\n")) {
+            if (line.trim().isEmpty()) continue;
+            Configuration config = parseConfiguration(line);
+            if (config != null) {
+                add(config);
+                added++;
+            }
+        }
+        loadedLength = from + end;
+        System.out.println("[DAO] Loaded " + added + " configurations");
+    }
+    
+    private void add(Configuration config) {
+        configurations.add(config);
+        byUser.computeIfAbsent(config.username, k -> new ArrayList<>()).add(config);
+        byScenario.computeIfAbsent(config.scenario, k -> new ArrayList<>()).add(config);
+    }
+    
+    private void reset() {
+        configurations.clear();
+        byUser.clear();
+        byScenario.clear();
+        loadedLength = 0;
+        checkedLength = -1;
+    }
+    
+    private static List<Map<String, String>> toMaps(List<Configuration> configs) {
+        List<Map<String, String>> maps = new ArrayList<>(configs.size());
+        for (Configuration config : configs) {
+            maps.add(config.toMap());
+        }
+        return maps;
+    }
+    
+    /**
+     * Configuracion guardada en ecosistema.txt
+     */
+    public static class Configuration {
+        public final String timestamp;
+        public final String username;
+        public final String scenario;
+        public final int maxTurns;
+        public final int numPreys;
+        public final int numPredators;
+        
+        public Configuration(String timestamp, String username, String scenario,
+                             int maxTurns, int numPreys, int numPredators) {
+            this.timestamp = timestamp;
+            this.username = username;
+            this.scenario = scenario;
+            this.maxTurns = maxTurns;
+            this.numPreys = numPreys;
+            this.numPredators = numPredators;
+        }
+        
+        /**
+         * Configuracion con la fecha y hora actuales
+         */
+        public static Configuration create(String scenario, int maxTurns, int numPreys,
+                                           int numPredators, String username) {
+            String timestamp = LocalDateTime.now()
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            return new Configuration(timestamp, username, scenario,
+                                     maxTurns, numPreys, numPredators);
+        }
+        
+        /**
+         * Crea una configuracion desde una linea del archivo
+         * @throws IllegalArgumentException si la linea no tiene 6 campos o no son numeros
+         */
+        public static Configuration fromFileFormat(String line) {
+            String[] parts = line.split("\\|");
+            if (parts.length != 6) {
+                throw new IllegalArgumentException("Invalid configuration format: " + line);
+            }
+            return new Configuration(parts[0], parts[1], parts[2],
+                Integer.parseInt(parts[3].trim()),
+                Integer.parseInt(parts[4].trim()),
+                Integer.parseInt(parts[5].trim()));
+        }
+        
+        /**
+         * Linea del archivo: timestamp|username|scenario|maxTurns|preys|predators
+         */
+        public String toFileFormat() {
+            return String.format("%s|%s|%s|%d|%d|%d",
+                timestamp, username, scenario, maxTurns, numPreys, numPredators);
+        }
+        
+        /**
+         * Formato de las consultas que devuelven Maps
+         */
+        public Map<String, String> toMap() {
+            Map<String, String> config = new HashMap<>();
+            config.put("timestamp", timestamp);
+            config.put("username", username);
+            config.put("scenario", scenario);
+            config.put("maxTurns", String.valueOf(maxTurns));
+            config.put("numPreys", String.valueOf(numPreys));
+            config.put("numPredators", String.valueOf(numPredators));
+            return config;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Almacen clave-valor embebido en un solo archivo.
+ * El archivo solo crece: cada commit agrega un lote de operaciones (poner
+ * o borrar claves) con su largo y un CRC32C, asi un lote se aplica entero
+ * o no se aplica. Las claves quedan ordenadas en memoria junto a la
+ * posicion de su valor, que se lee del archivo al pedirlo; eso permite
+ * recorrer por prefijo o por rango en orden.
+ *
+ * Al abrir, un lote incompleto al final (por un corte) se descarta.
+ * Cuando lo obsoleto supera a lo vigente el archivo se reescribe.
+ *
+ * Formato:
+ *   cabecera: "EKV" + version (1 byte)
+ *   lote:     largo (int) + CRC32C del contenido (int) + contenido
+ *   contenido: cantidad de operaciones (varint) y por cada una
+ *              tipo (1 byte), clave (varint largo + UTF-8) y, si pone,
+ *              valor (varint largo + bytes)
+ */
+public class FileKeyValueStore implements Closeable {
+
+    private static final byte[] MAGIC = {'E', 'K', 'V'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    // Bytes obsoletos minimos para reescribir el archivo
+    private static final long COMPACT_MIN_GARBAGE = 4L << 20;
+    // Tamaño de los lotes al reescribir
+    private static final int COMPACT_BATCH_BYTES = 1 << 20;
+
+    private final String fileName;
+    // Clave -> {posicion del valor, largo del valor}
+    private final TreeMap<String, long[]> index = new TreeMap<>();
+    private FileChannel channel;
+    private long length;     // fin del ultimo lote valido
+    private long liveBytes;  // claves y valores vigentes
+    private boolean syncOnCommit;
+
+    /**
+     * @param fileName Archivo del almacen (se crea al primer uso)
+     */
+    public FileKeyValueStore(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Si es true cada commit hace fsync antes de volver
+     */
+    public synchronized void setSyncOnCommit(boolean syncOnCommit) {
+        this.syncOnCommit = syncOnCommit;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Valor de una clave, o null si no existe
+     */
+    public synchronized byte[] get(String key) throws IOException {
+        open();
+        long[] slot = index.get(key);
+        if (slot == null) return null;
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) slot[1]);
+        long position = slot[0];
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Value past end of " + fileName);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Valor de una clave como texto UTF-8, o null si no existe
+     */
+    public String getString(String key) throws IOException {
+        byte[] value = get(key);
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    public synchronized boolean contains(String key) throws IOException {
+        open();
+        return index.containsKey(key);
+    }
+
+    public void put(String key, byte[] value) throws IOException {
+        batch().put(key, value).commit();
+    }
+
+    public void put(String key, String value) throws IOException {
+        batch().put(key, value).commit();
+    }
+
+    public void delete(String key) throws IOException {
+        batch().delete(key).commit();
+    }
+
+    /**
+     * Lote vacio; sus operaciones se aplican juntas al hacer commit()
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Claves que empiezan con el prefijo, en orden
+     */
+    public synchronized List<String> keys(String prefix) throws IOException {
+        open();
+        return new ArrayList<>(prefixMap(prefix).keySet());
+    }
+
+    /**
+     * Claves entre from (inclusive) y to (exclusive), en orden
+     */
+    public synchronized List<String> keys(String from, String to) throws IOException {
+        open();
+        return new ArrayList<>(index.subMap(from, true, to, false).keySet());
+    }
+
+    /**
+     * Cantidad de claves que empiezan con el prefijo
+     */
+    public synchronized int count(String prefix) throws IOException {
+        open();
+        return prefixMap(prefix).size();
+    }
+
+    /**
+     * Ultima clave (en orden) que empieza con el prefijo, o null
+     */
+    public synchronized String lastKey(String prefix) throws IOException {
+        open();
+        Map.Entry<String, long[]> last = prefixMap(prefix).lastEntry();
+        return last != null ? last.getKey() : null;
+    }
+
+    /**
+     * Borra todas las claves que empiezan con el prefijo, en un solo lote
+     * @return Claves borradas
+     */
+    public int deletePrefix(String prefix) throws IOException {
+        Batch batch = batch();
+        for (String key : keys(prefix)) {
+            batch.delete(key);
+        }
+        batch.commit();
+        return batch.size();
+    }
+
+    private NavigableMap<String, long[]> prefixMap(String prefix) {
+        // '\uffff' no aparece en las claves: cierra el rango del prefijo
+        return index.subMap(prefix, true, prefix + '\uffff', false);
+    }
+
+    /**
+     * Reescribe el archivo solo con las claves vigentes y lo reemplaza de
+     * forma atomica
+     * @return Bytes liberados
+     */
+    public synchronized long compact() throws IOException {
+        open();
+        long before = length;
+        Path target = Path.of(fileName);
+        Path temp = Path.of(fileName + ".tmp");
+
+        TreeMap<String, long[]> compacted = new TreeMap<>();
+        long position;
+        liveBytes = 0; // se vuelve a sumar al escribir los lotes nuevos
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(header()));
+            position = HEADER_SIZE;
+
+            Batch batch = new Batch();
+            int batchBytes = 0;
+            for (String key : index.keySet()) {
+                byte[] value = get(key);
+                batch.put(key, value);
+                batchBytes += key.length() + value.length;
+                if (batchBytes >= COMPACT_BATCH_BYTES) {
+                    position += writeBatch(out, position, batch.operations, compacted);
+                    batch = new Batch();
+                    batchBytes = 0;
+                }
+            }
+            if (batch.size() > 0) {
+                position += writeBatch(out, position, batch.operations, compacted);
+            }
+            out.force(true);
+        } catch (IOException e) {
+            // El archivo original sigue intacto: se vuelve a leer al proximo uso
+            close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        index.clear();
+        index.putAll(compacted);
+        length = position;
+        System.out.println("[KV] Compacted " + fileName + ": " + before + " -> " + length + " bytes");
+        return before - length;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            index.clear();
+        }
+    }
+
+    // Archivo
+
+    private void open() throws IOException {
+        if (channel != null) return;
+
+        Path path = Path.of(fileName);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.clear();
+        liveBytes = 0;
+
+        if (channel.size() == 0) {
+            channel.write(ByteBuffer.wrap(header()), 0);
+            length = HEADER_SIZE;
+            return;
+        }
+        load();
+    }
+
+    private static byte[] header() {
+        byte[] header = Arrays.copyOf(MAGIC, HEADER_SIZE);
+        header[MAGIC.length] = VERSION;
+        return header;
+    }
+
+    /**
+     * Recorre los lotes armando el indice; trunca un lote incompleto o
+     * corrupto al final
+     */
+    private void load() throws IOException {
+        long size = channel.size();
+        long valid = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName), 64 * 1024))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a key-value store: " + fileName);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported key-value store version: " + version);
+            }
+            valid = HEADER_SIZE;
+
+            CRC32C crc = new CRC32C();
+            while (valid < size) {
+                int payloadLength = in.readInt();
+                int storedCrc = in.readInt();
+                if (payloadLength < 0 || valid + 8 + payloadLength > size) break;
+
+                byte[] payload = new byte[payloadLength];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != storedCrc) break;
+
+                apply(ByteBuffer.wrap(payload), valid + 8, index);
+                valid += 8 + payloadLength;
+            }
+        } catch (EOFException e) {
+            // Lote incompleto al final: se descarta abajo
+        }
+
+        if (valid < size) {
+            channel.truncate(valid);
+            System.out.println("[RECOVERY] Truncated " + (size - valid) + " bytes of incomplete batches from " + fileName);
+        }
+        length = valid;
+    }
+
+    /**
+     * Aplica las operaciones de un lote al indice
+     * @param payloadPosition Posicion del contenido del lote en el archivo
+     */
+    private void apply(ByteBuffer payload, long payloadPosition, TreeMap<String, long[]> target) {
+        int operations = (int) VarInt.read(payload);
+        for (int i = 0; i < operations; i++) {
+            byte type = payload.get();
+            byte[] keyBytes = new byte[(int) VarInt.read(payload)];
+            payload.get(keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+            long[] previous;
+            if (type == OP_PUT) {
+                int valueLength = (int) VarInt.read(payload);
+                long position = payloadPosition + payload.position();
+                payload.position(payload.position() + valueLength);
+                previous = target.put(key, new long[]{position, valueLength});
+                liveBytes += keyBytes.length + valueLength;
+            } else {
+                previous = target.remove(key);
+            }
+            if (previous != null) {
+                liveBytes -= keyBytes.length + previous[1];
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote en una posicion y lo aplica al indice
+     * @return Bytes escritos
+     */
+    private long writeBatch(FileChannel out, long position, List<Object[]> operations,
+                            TreeMap<String, long[]> target) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        VarInt.write(payload, operations.size());
+        for (Object[] operation : operations) {
+            byte[] key = ((String) operation[0]).getBytes(StandardCharsets.UTF_8);
+            byte[] value = (byte[]) operation[1];
+            payload.write(value != null ? OP_PUT : OP_DELETE);
+            VarInt.write(payload, key.length);
+            payload.write(key, 0, key.length);
+            if (value != null) {
+                VarInt.write(payload, value.length);
+                payload.write(value, 0, value.length);
+            }
+        }
+        byte[] bytes = payload.toByteArray();
+
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+        record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+        while (record.hasRemaining()) {
+            out.write(record, position + record.position());
+        }
+
+        apply(ByteBuffer.wrap(bytes), position + 8, target);
+        return 8 + bytes.length;
+    }
+
+    private synchronized void commit(List<Object[]> operations) throws IOException {
+        if (operations.isEmpty()) return;
+        open();
+
+        length += writeBatch(channel, length, operations, index);
+        if (syncOnCommit) {
+            channel.force(false);
+        }
+
+        long garbage = length - HEADER_SIZE - liveBytes;
+        if (garbage > COMPACT_MIN_GARBAGE && garbage > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Operaciones que se escriben juntas: al reabrir el almacen se ven
+     * todas o ninguna
+     */
+    public class Batch {
+        // {clave, valor}; valor null = borrar
+        private final List<Object[]> operations = new ArrayList<>();
+
+        public Batch put(String key, byte[] value) {
+            operations.add(new Object[]{key, value});
+            return this;
+        }
+
+        public Batch put(String key, String value) {
+            return put(key, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public Batch delete(String key) {
+            operations.add(new Object[]{key, null});
+            return this;
+        }
+
+        public int size() {
+            return operations.size();
+        }
+
+        public void commit() throws IOException {
+            FileKeyValueStore.this.commit(operations);
+        }
+    }
+}
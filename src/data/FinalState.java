@@ -0,0 +1,42 @@
+package data;
+
+import model.Ecosystem;
+
+/**
+ * Resumen de cierre de una simulacion tal como se guarda en el registro de estados.
+ */
+public class FinalState {
+    
+    public final String simulationId;
+    public final int totalTurns;
+    public final int finalPreys;
+    public final int finalPredators;
+    public final boolean extinction;
+    
+    public FinalState(String simulationId, int totalTurns, int finalPreys,
+                      int finalPredators, boolean extinction) {
+        this.simulationId = simulationId;
+        this.totalTurns = totalTurns;
+        this.finalPreys = finalPreys;
+        this.finalPredators = finalPredators;
+        this.extinction = extinction;
+    }
+    
+    /**
+     * Captura el cierre de la simulacion a partir del ecosistema final
+     */
+    public static FinalState capture(String simulationId, Ecosystem ecosystem, int totalTurns) {
+        return new FinalState(simulationId, totalTurns, ecosystem.countPreys(),
+                              ecosystem.countPredators(), ecosystem.hasExtinction());
+    }
+    
+    /**
+     * Texto del resultado, igual al de la linea RESULT del formato de texto
+     */
+    public String getResult() {
+        if (extinction) {
+            return finalPreys == 0 ? "Preys went extinct" : "Predators went extinct";
+        }
+        return "Both species survived";
+    }
+}
@@ -0,0 +1,147 @@
+package data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuraciones en el almacen clave-valor.
+ * Claves:
+ *   config/row/<numero>                  -> linea (formato de ecosistema.txt)
+ *   config/user/<usuario>|<numero>       -> vacio (indice por usuario)
+ *   config/scenario/<escenario>|<numero> -> vacio (indice por escenario)
+ * El numero crece con cada configuracion, asi el orden de las claves es
+ * el orden en que se guardaron. Una consulta por usuario o escenario
+ * recorre solo las claves de su indice.
+ */
+public class KeyValueConfigurationRepository implements ConfigurationRepository {
+
+    private static final String ROWS = "config/row/";
+    private static final String BY_USER = "config/user/";
+    private static final String BY_SCENARIO = "config/scenario/";
+    private static final byte[] EMPTY = new byte[0];
+
+    private final FileKeyValueStore store;
+
+    public KeyValueConfigurationRepository(FileKeyValueStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean saveConfiguration(String scenario, int maxTurns,
+                                     int numPreys, int numPredators, String username) {
+        EcosystemDAO.Configuration config = EcosystemDAO.Configuration.create(
+            scenario, maxTurns, numPreys, numPredators, username);
+
+        try {
+            synchronized (store) {
+                String last = store.lastKey(ROWS);
+                String row = String.format("%012d",
+                    last == null ? 1 : Long.parseLong(last.substring(ROWS.length())) + 1);
+
+                store.batch()
+                     .put(ROWS + row, config.toFileFormat())
+                     .put(BY_USER + username + "|" + row, EMPTY)
+                     .put(BY_SCENARIO + scenario + "|" + row, EMPTY)
+                     .commit();
+            }
+            System.out.println("[DAO] Configuration saved to " + store.getFileName());
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save configuration: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public EcosystemDAO.Configuration getLastConfiguration() {
+        try {
+            String last = store.lastKey(ROWS);
+            return last != null ? read(last) : null;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load configuration: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public List<EcosystemDAO.Configuration> getConfigurations() {
+        List<EcosystemDAO.Configuration> configs = new ArrayList<>();
+        try {
+            for (String key : store.keys(ROWS)) {
+                EcosystemDAO.Configuration config = read(key);
+                if (config != null) configs.add(config);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load configurations: " + e.getMessage());
+        }
+        return configs;
+    }
+
+    @Override
+    public List<EcosystemDAO.Configuration> findByUser(String username) {
+        return findIndexed(BY_USER + username + "|");
+    }
+
+    @Override
+    public List<EcosystemDAO.Configuration> findByScenario(String scenario) {
+        return findIndexed(BY_SCENARIO + scenario + "|");
+    }
+
+    private List<EcosystemDAO.Configuration> findIndexed(String prefix) {
+        List<EcosystemDAO.Configuration> configs = new ArrayList<>();
+        try {
+            for (String key : store.keys(prefix)) {
+                EcosystemDAO.Configuration config = read(ROWS + key.substring(prefix.length()));
+                if (config != null) configs.add(config);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load configurations: " + e.getMessage());
+        }
+        return configs;
+    }
+
+    private EcosystemDAO.Configuration read(String rowKey) throws IOException {
+        String line = store.getString(rowKey);
+        if (line == null) return null;
+        try {
+            return EcosystemDAO.Configuration.fromFileFormat(line);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[WARNING] Invalid configuration format: " + line);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean clearConfigurations() {
+        try {
+            store.deletePrefix("config/");
+            System.out.println("[INFO] Configurations cleared");
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to clear configurations: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String getStatistics() {
+        try {
+            int total = store.count(ROWS);
+            if (total == 0) {
+                return "No configurations saved yet";
+            }
+
+            StringBuilder stats = new StringBuilder();
+            stats.append("=== CONFIGURATION STATISTICS ===\n");
+            stats.append("Total simulations: ").append(total).append("\n");
+            stats.append("Balanced: ").append(store.count(BY_SCENARIO + "BALANCED|")).append("\n");
+            stats.append("Predators Dominant: ").append(store.count(BY_SCENARIO + "PREDATORS_DOM|")).append("\n");
+            stats.append("Preys Dominant: ").append(store.count(BY_SCENARIO + "PREYS_DOM|")).append("\n");
+            return stats.toString();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load configurations: " + e.getMessage());
+            return "No configurations saved yet";
+        }
+    }
+}
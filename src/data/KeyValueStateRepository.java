@@ -0,0 +1,341 @@
+package data;
+
+import model.Ecosystem;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Estados por turno en el almacen clave-valor.
+ * Claves:
+ *   state/sim/<numero>          -> ID de la simulacion (orden de inicio)
+ *   state/turn/<ID>|<turno>     -> "presas|depredadores|caimanes|vacias",
+ *                                  salto de linea y el registro de texto
+ *                                  del turno (con matriz)
+ *   state/final/<ID>            -> registro de texto del cierre
+ *   state/summary/<ID>          -> SimulationSummary.format()
+ * Los turnos con ceros a la izquierda quedan en orden, asi un rango de
+ * turnos es un rango de claves. Mientras el escritor esta abierto los
+ * turnos se juntan y se escriben en un lote cada FLUSH_TURNS turnos,
+ * junto con el resumen actualizado.
+ */
+public class KeyValueStateRepository implements StateRepository {
+
+    private static final String SIMULATIONS = "state/sim/";
+    private static final String TURNS = "state/turn/";
+    private static final String FINALS = "state/final/";
+    private static final String SUMMARIES = "state/summary/";
+    private static final int FLUSH_TURNS = 64;
+
+    private final FileKeyValueStore store;
+    private String currentSimulationId;
+    private SimulationSummary currentSummary;
+    private boolean registered;
+    // Lote pendiente del escritor abierto (null si no hay uno abierto)
+    private FileKeyValueStore.Batch pending;
+    private int pendingTurns;
+
+    public KeyValueStateRepository(FileKeyValueStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void startNewSimulation(String scenario, String username, String suffix) {
+        closeWriter();
+        String timestamp = LocalDateTime.now()
+            .format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        this.currentSimulationId = scenario + "_" + username + "_" + timestamp +
+            (suffix != null ? "_" + suffix : "");
+        this.currentSummary = new SimulationSummary(currentSimulationId);
+        this.currentSummary.createdAt = System.currentTimeMillis();
+        this.registered = false;
+
+        System.out.println("[DAO] Started simulation: " + currentSimulationId);
+    }
+
+    @Override
+    public boolean openWriter() {
+        closeWriter();
+        this.pending = store.batch();
+        this.pendingTurns = 0;
+        return true;
+    }
+
+    @Override
+    public void closeWriter() {
+        if (pending == null) return;
+
+        try {
+            flushPending();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to close state writer: " + e.getMessage());
+        }
+        pending = null;
+    }
+
+    @Override
+    public boolean saveTurnState(Ecosystem ecosystem) {
+        if (currentSimulationId == null) {
+            System.err.println("[ERROR] No active simulation. Call startNewSimulation() first");
+            return false;
+        }
+
+        try {
+            TurnSnapshot snapshot = TurnSnapshot.capture(currentSimulationId, ecosystem);
+            FileKeyValueStore.Batch batch = pending != null ? pending : store.batch();
+
+            register(batch);
+            batch.put(turnKey(currentSimulationId, snapshot.turn), encodeTurn(snapshot));
+            currentSummary.addTurn(snapshot);
+
+            if (pending == null) {
+                commit(batch);
+            } else if (++pendingTurns >= FLUSH_TURNS) {
+                flushPending();
+            }
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save turn state: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void saveFinalState(Ecosystem ecosystem, int totalTurns) {
+        try {
+            FinalState state = FinalState.capture(currentSimulationId, ecosystem, totalTurns);
+            StringWriter text = new StringWriter();
+            try (BufferedWriter writer = new BufferedWriter(text)) {
+                TextStateLog.writeFinal(writer, state);
+            }
+
+            FileKeyValueStore.Batch batch = pending != null ? pending : store.batch();
+            register(batch);
+            batch.put(FINALS + currentSimulationId, text.toString());
+            currentSummary.setFinal(state);
+
+            // Fin de la simulacion: siempre se escribe
+            if (pending == null) {
+                commit(batch);
+            } else {
+                flushPending();
+            }
+            System.out.println("[DAO] Final state saved for simulation: " + currentSimulationId);
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save final state: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public SimulationSummary getSimulationSummary(String simulationId) {
+        try {
+            flushPending();
+            String line = store.getString(SUMMARIES + simulationId);
+            return line != null ? SimulationSummary.parse(line) : null;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load simulation summary: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public TurnSnapshot loadTurnSnapshot(String simulationId, int turn) {
+        try {
+            flushPending();
+            byte[] value = store.get(turnKey(simulationId, turn));
+            if (value == null) return null;
+
+            String text = new String(value, StandardCharsets.UTF_8);
+            TurnSnapshot[] found = new TurnSnapshot[1];
+            TextStateLog.readRecords(new BufferedReader(new StringReader(
+                text.substring(text.indexOf('\n') + 1))), new StateRecordHandler() {
+                    @Override
+                    public void onTurn(TurnSnapshot snapshot) {
+                        found[0] = snapshot;
+                    }
+
+                    @Override
+                    public void onFinal(FinalState state) {
+                    }
+                });
+            return found[0];
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load turn " + turn + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public StateCursor openCursor(StateQuery query) {
+        try {
+            flushPending();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to write pending states: " + e.getMessage());
+        }
+
+        List<String> ids = query.simulationId != null
+            ? Collections.singletonList(query.simulationId) : getAllSimulationIds();
+        return new StateCursor(query, ids.iterator(), this::openSource);
+    }
+
+    /**
+     * Turnos de la simulacion dentro del rango de la consulta, leidos
+     * clave por clave
+     */
+    private StateCursor.Source openSource(String simulationId, StateQuery query) throws IOException {
+        Iterator<String> keys = store.keys(turnKey(simulationId, query.fromTurn),
+                                           turnKey(simulationId, query.toTurn + 1L)).iterator();
+        return new StateCursor.Source() {
+            @Override
+            public StateDAO.TurnState next() throws IOException {
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    byte[] value = store.get(key);
+                    if (value == null) continue; // borrada mientras se leia
+
+                    StateDAO.TurnState state = decodeCounts(value);
+                    state.turn = Integer.parseInt(key.substring(key.lastIndexOf('|') + 1));
+                    return state;
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public int countTurns(String simulationId) {
+        try {
+            flushPending();
+            return store.count(TURNS + simulationId + "|");
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to count turns: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public List<String> getAllSimulationIds() {
+        List<String> ids = new ArrayList<>();
+        try {
+            flushPending();
+            for (String key : store.keys(SIMULATIONS)) {
+                String id = store.getString(key);
+                if (id != null) ids.add(id);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read simulation IDs: " + e.getMessage());
+        }
+        return ids;
+    }
+
+    @Override
+    public String getGeneralStatistics() {
+        List<String> simulations = getAllSimulationIds();
+
+        if (simulations.isEmpty()) {
+            return "No simulations recorded yet";
+        }
+
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== STATE STORE STATISTICS ===\n");
+        stats.append("Total simulations: ").append(simulations.size()).append("\n");
+        stats.append("\nSimulation IDs:\n");
+
+        for (String id : simulations) {
+            stats.append("  - ").append(id)
+                 .append(" (").append(countTurns(id)).append(" turns)\n");
+        }
+
+        return stats.toString();
+    }
+
+    @Override
+    public boolean clearStates() {
+        closeWriter();
+        try {
+            store.deletePrefix("state/");
+            registered = false;
+            System.out.println("[INFO] State store cleared");
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to clear states: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Escritura
+
+    /**
+     * Agrega la simulacion actual a la lista la primera vez que se escribe
+     */
+    private void register(FileKeyValueStore.Batch batch) throws IOException {
+        if (registered) return;
+
+        synchronized (store) {
+            String last = store.lastKey(SIMULATIONS);
+            long number = last == null ? 1 : Long.parseLong(last.substring(SIMULATIONS.length())) + 1;
+            // Se escribe enseguida para reservar el numero
+            store.put(SIMULATIONS + String.format("%012d", number), currentSimulationId);
+        }
+        registered = true;
+    }
+
+    private void flushPending() throws IOException {
+        if (pending == null || pending.size() == 0) return;
+
+        commit(pending);
+        pending = store.batch();
+        pendingTurns = 0;
+    }
+
+    /**
+     * Escribe el lote con el resumen actualizado de la simulacion actual
+     */
+    private void commit(FileKeyValueStore.Batch batch) throws IOException {
+        batch.put(SUMMARIES + currentSimulationId, currentSummary.format());
+        batch.commit();
+    }
+
+    private static String turnKey(String simulationId, long turn) {
+        // Con ceros a la izquierda para que el orden de las claves sea el de los turnos
+        return TURNS + simulationId + "|" + String.format("%010d", turn);
+    }
+
+    private static byte[] encodeTurn(TurnSnapshot snapshot) throws IOException {
+        StringWriter text = new StringWriter();
+        text.write(snapshot.preys + "|" + snapshot.predators + "|" +
+                   snapshot.caimans + "|" + snapshot.empty + "\n");
+        try (BufferedWriter writer = new BufferedWriter(text)) {
+            TextStateLog.writeTurn(writer, snapshot);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Conteos de la primera linea del valor, sin leer la matriz
+     */
+    private static StateDAO.TurnState decodeCounts(byte[] value) {
+        int end = 0;
+        while (end < value.length && value[end] != '\n') end++;
+        String[] counts = new String(value, 0, end, StandardCharsets.US_ASCII).split("\\|");
+
+        StateDAO.TurnState state = new StateDAO.TurnState();
+        state.preys = Integer.parseInt(counts[0]);
+        state.predators = Integer.parseInt(counts[1]);
+        state.caimans = Integer.parseInt(counts[2]);
+        state.empty = Integer.parseInt(counts[3]);
+        return state;
+    }
+}
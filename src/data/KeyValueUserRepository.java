@@ -0,0 +1,178 @@
+package data;
+
+import model.User;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Usuarios en el almacen clave-valor.
+ * Claves:
+ *   user/id/<cédula>   -> línea del usuario (formato de usuarios.txt)
+ *   user/email/<correo en minúsculas> -> cédula
+ * Un alta, actualización o baja escribe ambas claves en un mismo lote.
+ */
+public class KeyValueUserRepository implements UserRepository {
+
+    private static final String BY_ID = "user/id/";
+    private static final String BY_EMAIL = "user/email/";
+
+    private final FileKeyValueStore store;
+
+    public KeyValueUserRepository(FileKeyValueStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean saveUser(User user) {
+        try {
+            write(user, find(user.getIdNumber()));
+            System.out.println("[OK] User saved: " + user.getName());
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save user: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<User> loadUsers() {
+        List<User> users = new ArrayList<>();
+        try {
+            for (String key : store.keys(BY_ID)) {
+                String line = store.getString(key);
+                if (line == null) continue;
+                try {
+                    users.add(User.fromFileFormat(line));
+                } catch (Exception e) {
+                    System.err.println("Error al parsear línea: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al cargar usuarios: " + e.getMessage());
+        }
+        return users;
+    }
+
+    @Override
+    public User findByIdNumber(int idNumber) {
+        try {
+            return find(idNumber);
+        } catch (IOException e) {
+            System.err.println("Error al buscar usuario: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        try {
+            String idNumber = store.getString(emailKey(email));
+            return idNumber != null ? find(Integer.parseInt(idNumber)) : null;
+        } catch (IOException e) {
+            System.err.println("Error al buscar usuario: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean existsIdNumber(int idNumber) {
+        try {
+            return store.contains(idKey(idNumber));
+        } catch (IOException e) {
+            System.err.println("Error al buscar usuario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean existsEmail(String email) {
+        try {
+            return store.contains(emailKey(email));
+        } catch (IOException e) {
+            System.err.println("Error al buscar usuario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public User validateCredentials(int idNumber, String passwordHash) {
+        User user = findByIdNumber(idNumber);
+
+        if (user != null && user.getPasswordHash().equals(passwordHash)) {
+            System.out.println(":) Login exitoso: " + user.getName());
+            return user;
+        }
+
+        System.out.println(":( Credenciales inválidas");
+        return null;
+    }
+
+    @Override
+    public boolean updateUser(User updatedUser) {
+        try {
+            User previous = find(updatedUser.getIdNumber());
+            if (previous == null) {
+                System.err.println("Usuario no encontrado para actualizar");
+                return false;
+            }
+            String owner = store.getString(emailKey(updatedUser.getEmail()));
+            if (owner != null && Integer.parseInt(owner) != updatedUser.getIdNumber()) {
+                System.err.println("El correo ya pertenece a otro usuario");
+                return false;
+            }
+            write(updatedUser, previous);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al actualizar usuario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteUser(int idNumber) {
+        try {
+            User previous = find(idNumber);
+            if (previous == null) {
+                System.err.println("Usuario no encontrado para eliminar");
+                return false;
+            }
+            store.batch()
+                 .delete(idKey(idNumber))
+                 .delete(emailKey(previous.getEmail()))
+                 .commit();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al eliminar usuario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private User find(int idNumber) throws IOException {
+        String line = store.getString(idKey(idNumber));
+        return line != null ? User.fromFileFormat(line) : null;
+    }
+
+    /**
+     * Escribe el usuario y su correo; borra el correo anterior si cambió
+     */
+    private void write(User user, User previous) throws IOException {
+        FileKeyValueStore.Batch batch = store.batch();
+        if (previous != null && !emailKey(previous.getEmail()).equals(emailKey(user.getEmail()))) {
+            batch.delete(emailKey(previous.getEmail()));
+        }
+        batch.put(idKey(user.getIdNumber()), user.toFileFormat())
+             .put(emailKey(user.getEmail()), String.valueOf(user.getIdNumber()))
+             .commit();
+    }
+
+    private static String idKey(int idNumber) {
+        // Con ceros a la izquierda para que el orden de las claves sea el numérico
+        return BY_ID + String.format("%010d", idNumber);
+    }
+
+    private static String emailKey(String email) {
+        return BY_EMAIL + (email == null ? "" : email.toLowerCase(Locale.ROOT));
+    }
+}
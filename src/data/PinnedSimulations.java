@@ -0,0 +1,105 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Simulaciones fijadas: la retencion nunca descarta ni resume sus turnos.
+ * Un ID por linea; se vuelve a leer si el archivo cambia.
+ */
+public class PinnedSimulations {
+
+    private final String fileName;
+    private final Set<String> pinned = new LinkedHashSet<>();
+    // Tamaño y fecha del archivo en la ultima lectura
+    private long checkedLength = -1;
+    private long checkedModified;
+
+    public PinnedSimulations(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public synchronized boolean isPinned(String simulationId) {
+        refresh();
+        return pinned.contains(simulationId);
+    }
+
+    public synchronized List<String> list() {
+        refresh();
+        return Collections.unmodifiableList(new ArrayList<>(pinned));
+    }
+
+    /**
+     * @return false si ya estaba fijada o no se pudo guardar
+     */
+    public synchronized boolean pin(String simulationId) {
+        refresh();
+        if (pinned.contains(simulationId)) return false;
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(fileName, true), StandardCharsets.UTF_8))) {
+            writer.write(simulationId);
+            writer.newLine();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to pin simulation: " + e.getMessage());
+            return false;
+        }
+        pinned.add(simulationId);
+        remember();
+        return true;
+    }
+
+    /**
+     * @return false si no estaba fijada o no se pudo guardar
+     */
+    public synchronized boolean unpin(String simulationId) {
+        refresh();
+        if (!pinned.remove(simulationId)) return false;
+
+        Path target = Paths.get(fileName);
+        Path temp = Paths.get(fileName + ".tmp");
+        try {
+            Files.write(temp, pinned, StandardCharsets.UTF_8);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to unpin simulation: " + e.getMessage());
+            pinned.add(simulationId);
+            return false;
+        }
+        remember();
+        return true;
+    }
+
+    private void refresh() {
+        File file = new File(fileName);
+        long length = file.exists() ? file.length() : 0;
+        if (length == checkedLength && file.lastModified() == checkedModified) return;
+
+        pinned.clear();
+        if (file.exists()) {
+            try {
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) pinned.add(line.trim());
+                }
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to read pinned simulations: " + e.getMessage());
+            }
+        }
+        remember();
+    }
+
+    private void remember() {
+        File file = new File(fileName);
+        checkedLength = file.exists() ? file.length() : 0;
+        checkedModified = file.lastModified();
+    }
+}
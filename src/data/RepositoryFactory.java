@@ -0,0 +1,100 @@
+package data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Elige donde se guardan usuarios, configuraciones y estados.
+ *   FILES:     archivos planos (usuarios.txt, ecosistema.txt, estado_turnos*)
+ *   KEY_VALUE: un solo almacen clave-valor embebido (ecosistema.db)
+ *
+ * La configuracion sale de la propiedad del sistema "ecosystem.storage" o,
+ * si no esta, de la clave "backend" de almacenamiento.properties; por
+ * defecto FILES. En almacenamiento.properties tambien se puede cambiar el
+ * archivo del almacen con "keyValueFile".
+ */
+public class RepositoryFactory {
+
+    /**
+     * Implementacion de los repositorios
+     */
+    public enum Backend {
+        FILES,
+        KEY_VALUE
+    }
+
+    private static final String CONFIG_FILE = "almacenamiento.properties";
+    private static final String KEY_VALUE_FILE = "ecosistema.db";
+
+    private static RepositoryFactory defaultFactory;
+
+    private final Backend backend;
+    // Compartido por todos los repositorios: un solo escritor por archivo
+    private final FileKeyValueStore store;
+
+    /**
+     * @param backend Implementacion a usar
+     * @param keyValueFile Archivo del almacen (solo en KEY_VALUE)
+     */
+    public RepositoryFactory(Backend backend, String keyValueFile) {
+        this.backend = backend;
+        this.store = backend == Backend.KEY_VALUE ? new FileKeyValueStore(keyValueFile) : null;
+    }
+
+    /**
+     * Fabrica segun la configuracion; se lee una sola vez
+     */
+    public static synchronized RepositoryFactory getDefault() {
+        if (defaultFactory == null) {
+            Properties config = loadConfiguration();
+            String name = System.getProperty("ecosystem.storage", config.getProperty("backend", "FILES"));
+
+            Backend backend;
+            try {
+                backend = Backend.valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("[WARNING] Unknown storage backend '" + name + "', using FILES");
+                backend = Backend.FILES;
+            }
+            defaultFactory = new RepositoryFactory(backend,
+                config.getProperty("keyValueFile", KEY_VALUE_FILE));
+            System.out.println("[STORAGE] Using " + backend + " storage");
+        }
+        return defaultFactory;
+    }
+
+    private static Properties loadConfiguration() {
+        Properties config = new Properties();
+        File file = new File(CONFIG_FILE);
+        if (!file.exists()) return config;
+
+        try (InputStream in = new FileInputStream(file)) {
+            config.load(in);
+        } catch (IOException e) {
+            System.err.println("[WARNING] Failed to read " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        return config;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public UserRepository createUserRepository() {
+        return backend == Backend.KEY_VALUE ? new KeyValueUserRepository(store) : new UserDAO();
+    }
+
+    public ConfigurationRepository createConfigurationRepository() {
+        return backend == Backend.KEY_VALUE ? new KeyValueConfigurationRepository(store) : new EcosystemDAO();
+    }
+
+    /**
+     * Cada llamada devuelve un repositorio con su propia simulacion activa
+     */
+    public StateRepository createStateRepository() {
+        return backend == Backend.KEY_VALUE ? new KeyValueStateRepository(store) : new StateDAO();
+    }
+}
@@ -0,0 +1,60 @@
+package data;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica la politica de retencion cada cierto tiempo en un hilo en segundo
+ * plano. Cada pasada usa su propio StateDAO; si en ese momento hay una
+ * simulacion escribiendo en el registro, la pasada se saltea.
+ */
+public class RetentionScheduler {
+
+    private final ScheduledExecutorService executor;
+
+    private RetentionScheduler(StateDAO.StateFormat format,
+                               SegmentedStateStore.RetentionPolicy policy, long periodMillis) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "state-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> runOnce(format, policy),
+                                        periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param format Formato del registro a compactar (TEXT o SEGMENTED)
+     * @param policy Politica a aplicar
+     * @param periodMillis Tiempo entre pasadas
+     */
+    public static RetentionScheduler start(StateDAO.StateFormat format,
+                                           SegmentedStateStore.RetentionPolicy policy, long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("Retention period must be > 0");
+        }
+        return new RetentionScheduler(format, policy, periodMillis);
+    }
+
+    /**
+     * Una pasada ahora, en el hilo que llama
+     * @return Cantidad de simulaciones descartadas o resumidas
+     */
+    public static int runOnce(StateDAO.StateFormat format, SegmentedStateStore.RetentionPolicy policy) {
+        StateDAO dao = new StateDAO();
+        dao.setFormat(format);
+        dao.setRetentionPolicy(policy);
+        try {
+            return dao.applyRetention();
+        } catch (RuntimeException e) {
+            // Que una pasada fallida no cancele las siguientes
+            System.err.println("[ERROR] Retention pass failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public void stop() {
+        executor.shutdown();
+    }
+}
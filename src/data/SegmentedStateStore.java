@@ -0,0 +1,532 @@
+package data;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de estados segmentado: un directorio con archivos de texto por
+ * simulacion (estado_turnos/&lt;id&gt;.&lt;n&gt;.txt) y un manifiesto con el
+ * resumen de cada una. Leer una simulacion solo abre sus segmentos.
+ *
+ * Un segmento se cierra y se abre el siguiente al superar el tamaño maximo.
+ * Al cerrar el escritor se aplica la politica de retencion, que borra los
+ * turnos de las simulaciones viejas y opcionalmente conserva su resumen.
+ */
+public class SegmentedStateStore {
+
+    private static final String MANIFEST_FILE = "manifest.txt";
+    private static final String MANIFEST_HEADER = "#ESTMAN|1";
+    private static final String SEGMENT_SUFFIX = ".txt";
+
+    private final Path directory;
+    // Resumenes en orden de creacion
+    private final Map<String, SimulationSummary> manifest = new LinkedHashMap<>();
+    // Posicion de cada turno en los segmentos, armada al pedir un turno (no se guarda)
+    private final Map<String, TurnOffsetTable> turnOffsets = new HashMap<>();
+    private boolean loaded;
+
+    private long maxSegmentBytes = 8L * 1024 * 1024;
+    private RetentionPolicy retentionPolicy = RetentionPolicy.keepAll();
+    private PinnedSimulations pinned;
+    private String activeSimulationId;
+
+    /**
+     * @param directory Directorio de los segmentos
+     */
+    public SegmentedStateStore(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Tamaño a partir del cual se abre un segmento nuevo
+     */
+    public void setMaxSegmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public void setRetentionPolicy(RetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    public RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * Simulaciones que la retencion no toca (ni cuentan para sus limites)
+     */
+    public void setPinnedSimulations(PinnedSimulations pinned) {
+        this.pinned = pinned;
+    }
+
+    /**
+     * Abre un escritor que agrega cada registro al segmento de su simulacion
+     * @param bufferSize Tamaño del buffer en bytes
+     */
+    public StateLogWriter openWriter(int bufferSize) throws IOException {
+        ensureLoaded();
+        Files.createDirectories(directory);
+        return new Writer(bufferSize);
+    }
+
+    /**
+     * Lee todos los registros de una simulacion (solo sus segmentos)
+     */
+    public void readSimulation(String simulationId, StateRecordHandler handler) throws IOException {
+        ensureLoaded();
+        SimulationSummary summary = manifest.get(simulationId);
+        if (summary == null) return;
+
+        for (int i = 0; i < summary.segments; i++) {
+            Path segment = segmentPath(simulationId, i);
+            if (!Files.exists(segment)) continue;
+
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                TextStateLog.readRecords(reader, handler);
+            }
+        }
+    }
+
+    /**
+     * Lee un turno completo (con matriz) de una simulacion. La primera vez
+     * recorre sus segmentos para ubicar cada turno; despues solo lee el
+     * registro buscado y lo agregado al ultimo segmento.
+     * @return Captura del turno, o null si no esta guardado
+     */
+    public TurnSnapshot readTurn(String simulationId, int turn) throws IOException {
+        ensureLoaded();
+        SimulationSummary summary = manifest.get(simulationId);
+        if (summary == null || summary.segments == 0) return null;
+
+        TurnOffsetTable table = turnOffsets.computeIfAbsent(simulationId, id -> new TurnOffsetTable());
+        for (int i = table.coveredFile; i < summary.segments; i++) {
+            Path segment = segmentPath(simulationId, i);
+            if (!Files.exists(segment)) continue;
+            table.scan(segment, i, i == table.coveredFile ? table.coveredPosition : 0, Long.MAX_VALUE);
+        }
+
+        int index = table.indexOf(turn);
+        if (index < 0) return null;
+        return TextStateLog.readTurnAt(segmentPath(simulationId, table.fileAt(index)),
+                                       table.startAt(index), table.endAt(index));
+    }
+
+    /**
+     * Segmentos existentes de una simulacion, en orden (vacio si no tiene)
+     */
+    public List<Path> getSegmentFiles(String simulationId) throws IOException {
+        ensureLoaded();
+        List<Path> files = new ArrayList<>();
+        SimulationSummary summary = manifest.get(simulationId);
+        if (summary == null) return files;
+
+        for (int i = 0; i < summary.segments; i++) {
+            Path segment = segmentPath(simulationId, i);
+            if (Files.exists(segment)) files.add(segment);
+        }
+        return files;
+    }
+
+    /**
+     * Resumen de una simulacion, o null si no existe
+     */
+    public SimulationSummary getSummary(String simulationId) throws IOException {
+        ensureLoaded();
+        return manifest.get(simulationId);
+    }
+
+    /**
+     * IDs de todas las simulaciones (incluidas las que solo conservan el resumen)
+     */
+    public List<String> listSimulations() throws IOException {
+        ensureLoaded();
+        return new ArrayList<>(manifest.keySet());
+    }
+
+    /**
+     * Resumenes de todas las simulaciones, en orden de creacion
+     */
+    public List<SimulationSummary> listSummaries() throws IOException {
+        ensureLoaded();
+        return Collections.unmodifiableList(new ArrayList<>(manifest.values()));
+    }
+
+    /**
+     * Aplica la politica de retencion. La simulacion que se esta
+     * escribiendo y las fijadas nunca se descartan.
+     * @return Cantidad de simulaciones descartadas o resumidas
+     */
+    public int applyRetention() throws IOException {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        int kept = 0;
+        long keptBytes = 0;
+        List<SimulationSummary> evicted = new ArrayList<>();
+
+        // De la mas nueva a la mas vieja
+        List<SimulationSummary> runs = new ArrayList<>(manifest.values());
+        Collections.reverse(runs);
+
+        for (SimulationSummary summary : runs) {
+            if (summary.summarized) continue;
+            if (pinned != null && pinned.isPinned(summary.simulationId)) continue;
+
+            boolean active = summary.simulationId.equals(activeSimulationId);
+            boolean tooMany = retentionPolicy.maxRuns > 0 && kept >= retentionPolicy.maxRuns;
+            boolean tooOld = retentionPolicy.maxAgeMillis > 0 &&
+                             now - summary.createdAt > retentionPolicy.maxAgeMillis;
+            boolean tooBig = retentionPolicy.maxBytes > 0 &&
+                             keptBytes + summary.bytes > retentionPolicy.maxBytes;
+
+            if (!active && (tooMany || tooOld || tooBig)) {
+                evicted.add(summary);
+            } else {
+                kept++;
+                keptBytes += summary.bytes;
+            }
+        }
+
+        for (SimulationSummary summary : evicted) {
+            deleteSegments(summary);
+            if (retentionPolicy.keepSummaries) {
+                summary.summarized = true;
+                summary.segments = 0;
+                summary.bytes = 0;
+            } else {
+                manifest.remove(summary.simulationId);
+            }
+        }
+
+        if (!evicted.isEmpty()) {
+            saveManifest();
+            System.out.println("[STORE] Retention " + (retentionPolicy.keepSummaries ? "summarized " : "dropped ") +
+                             evicted.size() + " simulation(s)");
+        }
+        return evicted.size();
+    }
+
+    /**
+     * Borra todos los segmentos y el manifiesto
+     */
+    public boolean clear() {
+        manifest.clear();
+        turnOffsets.clear();
+        loaded = true;
+        if (!Files.exists(directory)) return true;
+
+        File[] files = directory.toFile().listFiles();
+        boolean cleared = true;
+        if (files != null) {
+            for (File file : files) {
+                cleared &= file.delete();
+            }
+        }
+        return cleared;
+    }
+
+    // Archivos
+
+    /**
+     * Nombre de archivo seguro a partir del ID de la simulacion
+     */
+    private Path segmentPath(String simulationId, int segment) {
+        String base = simulationId.replaceAll("[^A-Za-z0-9._@-]", "_");
+        return directory.resolve(base + "." + segment + SEGMENT_SUFFIX);
+    }
+
+    private void deleteSegments(SimulationSummary summary) throws IOException {
+        turnOffsets.remove(summary.simulationId);
+        for (int i = 0; i < summary.segments; i++) {
+            Files.deleteIfExists(segmentPath(summary.simulationId, i));
+        }
+    }
+
+    private long segmentBytes(SimulationSummary summary) {
+        long bytes = 0;
+        for (int i = 0; i < summary.segments; i++) {
+            File segment = segmentPath(summary.simulationId, i).toFile();
+            bytes += segment.length();
+        }
+        return bytes;
+    }
+
+    // Manifiesto
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) return;
+        loaded = true;
+
+        Path manifestPath = directory.resolve(MANIFEST_FILE);
+        if (Files.exists(manifestPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                if (MANIFEST_HEADER.equals(header)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) continue;
+                        SimulationSummary summary = SimulationSummary.parse(line);
+                        manifest.put(summary.simulationId, summary);
+                    }
+                    return;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[WARNING] Ignoring unreadable manifest: " + e.getMessage());
+                manifest.clear();
+            }
+        }
+
+        if (Files.isDirectory(directory)) {
+            rebuildManifest();
+        }
+    }
+
+    /**
+     * Reconstruye el manifiesto leyendo todos los segmentos
+     */
+    private void rebuildManifest() throws IOException {
+        manifest.clear();
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null || files.length == 0) return;
+
+        // Por fecha y luego por nombre, asi los segmentos quedan en orden
+        Arrays.sort(files, (a, b) -> a.lastModified() != b.lastModified()
+            ? Long.compare(a.lastModified(), b.lastModified()) : a.getName().compareTo(b.getName()));
+
+        for (File file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                TextStateLog.readRecords(reader, new StateRecordHandler() {
+                    @Override
+                    public void onTurn(TurnSnapshot snapshot) {
+                        summaryFor(snapshot.simulationId, file.lastModified()).addTurn(snapshot);
+                    }
+
+                    @Override
+                    public void onFinal(FinalState state) {
+                        summaryFor(state.simulationId, file.lastModified()).setFinal(state);
+                    }
+                });
+            }
+        }
+
+        for (SimulationSummary summary : manifest.values()) {
+            while (Files.exists(segmentPath(summary.simulationId, summary.segments))) {
+                summary.segments++;
+            }
+            summary.bytes = segmentBytes(summary);
+        }
+        saveManifest();
+        System.out.println("[STORE] Manifest rebuilt: " + manifest.size() + " simulations");
+    }
+
+    private SimulationSummary summaryFor(String simulationId, long createdAt) {
+        SimulationSummary summary = manifest.get(simulationId);
+        if (summary == null) {
+            summary = new SimulationSummary(simulationId);
+            summary.createdAt = createdAt;
+            manifest.put(simulationId, summary);
+        }
+        return summary;
+    }
+
+    private void saveManifest() throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.newLine();
+            for (SimulationSummary summary : manifest.values()) {
+                writer.write(summary.format());
+                writer.newLine();
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Politica de retencion. Cualquier limite en 0 no se aplica.
+     */
+    public static class RetentionPolicy {
+        public final int maxRuns;          // simulaciones con turnos a conservar
+        public final long maxAgeMillis;    // antigüedad maxima
+        public final long maxBytes;        // tamaño total maximo de los turnos conservados
+        public final boolean keepSummaries; // conservar el resumen de las descartadas
+
+        public RetentionPolicy(int maxRuns, long maxAgeMillis, long maxBytes, boolean keepSummaries) {
+            this.maxRuns = maxRuns;
+            this.maxAgeMillis = maxAgeMillis;
+            this.maxBytes = maxBytes;
+            this.keepSummaries = keepSummaries;
+        }
+
+        /**
+         * Conserva todo
+         */
+        public static RetentionPolicy keepAll() {
+            return new RetentionPolicy(0, 0, 0, true);
+        }
+
+        /**
+         * Conserva los turnos de las ultimas N simulaciones y el resumen del resto
+         */
+        public static RetentionPolicy keepLast(int runs) {
+            return new RetentionPolicy(runs, 0, 0, true);
+        }
+
+        /**
+         * Conserva los turnos de las simulaciones mas nuevas que la ventana
+         * y el resumen del resto
+         */
+        public static RetentionPolicy olderThan(long maxAgeMillis) {
+            return new RetentionPolicy(0, maxAgeMillis, 0, true);
+        }
+
+        /**
+         * Conserva los turnos mientras el total no supere el tamaño dado
+         */
+        public static RetentionPolicy maxBytes(long bytes) {
+            return new RetentionPolicy(0, 0, bytes, true);
+        }
+    }
+
+    /**
+     * Escritor que cuenta los caracteres escritos para saber cuando rotar
+     * sin tener que volcar el buffer
+     */
+    private static class CountingWriter extends BufferedWriter {
+        long count;
+
+        CountingWriter(java.io.Writer out, int bufferSize) {
+            super(out, bufferSize);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            super.write(chars, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            super.write(text, offset, length);
+            count += length;
+        }
+    }
+
+    /**
+     * Escritor que envia cada registro al segmento de su simulacion
+     */
+    private class Writer implements StateLogWriter {
+        private final int bufferSize;
+        private CountingWriter out;
+        private FileChannel channel;
+        private SimulationSummary current;
+        private long segmentStart; // tamaño del segmento al abrirlo
+
+        Writer(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) throws IOException {
+            select(snapshot.simulationId);
+            TextStateLog.writeTurn(out, snapshot);
+            current.addTurn(snapshot);
+            rollIfFull();
+        }
+
+        @Override
+        public void writeFinal(FinalState state) throws IOException {
+            select(state.simulationId);
+            TextStateLog.writeFinal(out, state);
+            current.setFinal(state);
+            out.flush();
+            current.bytes = segmentBytes(current);
+            saveManifest();
+        }
+
+        /**
+         * Abre (o reabre) el ultimo segmento de la simulacion
+         */
+        private void select(String simulationId) throws IOException {
+            if (current != null && current.simulationId.equals(simulationId)) return;
+            closeSegment();
+
+            SimulationSummary summary = summaryFor(simulationId, System.currentTimeMillis());
+            if (summary.summarized) {
+                // Se vuelve a escribir en una simulacion resumida: empieza de nuevo
+                summary.summarized = false;
+                summary.segments = 0;
+            }
+            if (summary.segments == 0) {
+                summary.segments = 1;
+            }
+            current = summary;
+            activeSimulationId = simulationId;
+            openSegment();
+        }
+
+        private void openSegment() throws IOException {
+            File file = segmentPath(current.simulationId, current.segments - 1).toFile();
+            segmentStart = file.length();
+            FileOutputStream stream = new FileOutputStream(file, true);
+            channel = stream.getChannel();
+            out = new CountingWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), bufferSize);
+        }
+
+        private void rollIfFull() throws IOException {
+            if (segmentStart + out.count < maxSegmentBytes) return;
+
+            out.close();
+            current.segments++;
+            openSegment();
+        }
+
+        private void closeSegment() throws IOException {
+            if (out == null) return;
+            out.close();
+            out = null;
+            current.bytes = segmentBytes(current);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) out.flush();
+        }
+
+        @Override
+        public void force() throws IOException {
+            if (out == null) return;
+            out.flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeSegment();
+            current = null;
+            activeSimulationId = null;
+            saveManifest();
+            applyRetention();
+        }
+    }
+}
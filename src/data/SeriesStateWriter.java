@@ -0,0 +1,123 @@
+package data;
+
+import model.Ecosystem;
+import java.io.IOException;
+
+/**
+ * Agrega cada turno a las series por columnas (TimeSeriesStore) ademas de
+ * escribirlo en el registro de estados. Va debajo de AsyncStateWriter, asi
+ * las series tambien se escriben en el hilo en segundo plano y no en el de
+ * quien guarda el turno.
+ *
+ * La fila de la serie se captura junto con el turno (capture()), porque los
+ * eventos del turno no estan en la captura del registro. Los turnos sin
+ * fila (series desactivadas) solo van al registro. Abre la serie de cada
+ * simulacion con su primer turno y cierra la anterior.
+ */
+class SeriesStateWriter implements StateLogWriter {
+
+    // Buffer de cada serie abierta
+    private static final int SERIES_BUFFER = 16 * 1024;
+
+    /**
+     * Turno con la fila de la serie capturada en el mismo momento
+     */
+    static class SeriesTurn extends TurnSnapshot {
+        final int[] row;
+
+        private SeriesTurn(TurnSnapshot snapshot, int[] row) {
+            super(snapshot.simulationId, snapshot.scenario, snapshot.turn, snapshot.timestamp,
+                  snapshot.preys, snapshot.predators, snapshot.caimans, snapshot.empty,
+                  snapshot.extinction, snapshot.size, snapshot.cells);
+            this.row = row;
+        }
+    }
+
+    private final StateLogWriter target;
+    private final TimeSeriesStore store;
+    private String seriesId;
+    private TimeSeriesStore.Writer series;
+
+    /**
+     * @param target Escritor del registro de estados
+     * @param store Series por columnas
+     */
+    SeriesStateWriter(StateLogWriter target, TimeSeriesStore store) {
+        this.target = target;
+        this.store = store;
+    }
+
+    /**
+     * Captura el turno del registro y la fila de la serie
+     */
+    static TurnSnapshot capture(String simulationId, Ecosystem ecosystem) {
+        return new SeriesTurn(TurnSnapshot.capture(simulationId, ecosystem),
+                              TimeSeriesStore.capture(ecosystem));
+    }
+
+    @Override
+    public void writeTurn(TurnSnapshot snapshot) throws IOException {
+        target.writeTurn(snapshot);
+        if (snapshot instanceof SeriesTurn) {
+            seriesFor(snapshot.simulationId).append(((SeriesTurn) snapshot).row);
+        }
+    }
+
+    @Override
+    public void writeFinal(FinalState state) throws IOException {
+        target.writeFinal(state);
+    }
+
+    private TimeSeriesStore.Writer seriesFor(String simulationId) throws IOException {
+        if (series == null || !simulationId.equals(seriesId)) {
+            closeSeries();
+            series = store.openWriter(simulationId, SERIES_BUFFER);
+            seriesId = simulationId;
+        }
+        return series;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (series != null) {
+            series.flush();
+        }
+        target.flush();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        if (series != null) {
+            series.flush();
+        }
+        target.sync();
+    }
+
+    @Override
+    public void force() throws IOException {
+        if (series != null) {
+            series.flush();
+        }
+        target.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeSeries();
+        } finally {
+            target.close();
+        }
+    }
+
+    private void closeSeries() throws IOException {
+        if (series == null) return;
+
+        try {
+            series.close();
+        } finally {
+            series = null;
+            seriesId = null;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Un solo escritor por archivo de estados para todos los StateDAO del
+ * proceso (por ejemplo, varios analisis en paralelo).
+ *
+ * Cada StateDAO recibe un cliente que junta sus registros y los entrega
+ * como un grupo a una cola sin bloqueos al volcar, al cerrar o cuando lo
+ * juntado llega al tamaño de buffer de su politica. Un
+ * unico hilo por archivo toma los grupos y los escribe enteros en el
+ * escritor real, asi los registros nunca se mezclan a mitad de camino y
+ * todos los de un grupo quedan en un bloque contiguo. Los pedidos de
+ * volcado o fsync que llegan juntos se resuelven con un solo flush o fsync.
+ *
+ * Una simulacion queda contigua por grupo, no entera: entre dos grupos
+ * suyos pueden quedar bloques de otras. Los lectores ya la ubican por sus
+ * rangos en el indice (texto), por sus segmentos o filtrando por ID
+ * (binario y comprimido). Con FlushPolicy.onEnd() los grupos son de un
+ * buffer lleno, asi la memoria de un cliente no crece con la simulacion.
+ *
+ * El escritor real se abre con el primer cliente y se cierra con el
+ * ultimo.
+ */
+public class SharedStateWriter {
+
+    interface Opener {
+        StateLogWriter open() throws IOException;
+    }
+
+    interface Exclusive<T> {
+        T run() throws IOException;
+    }
+
+    // Registros en la cola a partir de los cuales los clientes esperan
+    private static final int MAX_QUEUED_RECORDS = 8192;
+    // Grupos por vuelta del hilo antes de volcar y avisar a quienes esperan
+    private static final int GROUPS_PER_ROUND = 64;
+    // Bytes juntados por cliente antes de entregarlos si no se indica otro
+    private static final int DEFAULT_HAND_OFF_BYTES = 64 * 1024;
+    // Estimacion de lo que ocupa un registro ademas de sus celdas
+    private static final int RECORD_OVERHEAD = 64;
+
+    // Escritores abiertos por archivo; se accede con el lock de la clase
+    private static final Map<String, SharedStateWriter> OPEN = new HashMap<>();
+
+    private final String key;
+    private final StateLogWriter target;
+    private final ConcurrentLinkedQueue<Group> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedRecords = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean closing;
+    private volatile IOException failure;
+    private int clients;
+
+    private SharedStateWriter(String key, StateLogWriter target) {
+        this.key = key;
+        this.target = target;
+        this.worker = new Thread(this::drain, "shared-state-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Cliente del escritor del archivo; si no hay uno abierto lo abre
+     * @param key Archivo (o directorio) de estados
+     * @param bufferSize Bytes que junta el cliente antes de entregarlos
+     *        (0 = el valor por defecto)
+     * @param opener Abre el escritor real; solo se llama si no estaba abierto
+     */
+    static synchronized Client acquire(String key, int bufferSize, Opener opener) throws IOException {
+        SharedStateWriter shared = OPEN.get(key);
+        if (shared == null) {
+            shared = new SharedStateWriter(key, opener.open());
+            OPEN.put(key, shared);
+        }
+        shared.clients++;
+        return shared.new Client(bufferSize > 0 ? bufferSize : DEFAULT_HAND_OFF_BYTES);
+    }
+
+    /**
+     * Si hay un escritor abierto sobre el archivo
+     */
+    static synchronized boolean isOpen(String key) {
+        return OPEN.containsKey(key);
+    }
+
+    /**
+     * Ejecuta la accion sin ningun escritor abierto sobre el archivo;
+     * mientras dura nadie puede abrir uno (por ejemplo, para reescribirlo)
+     * @throws IOException si hay un escritor abierto
+     */
+    static synchronized <T> T exclusive(String key, Exclusive<T> action) throws IOException {
+        if (OPEN.containsKey(key)) {
+            throw new IOException("A state writer is open on " + key);
+        }
+        return action.run();
+    }
+
+    private static synchronized void release(SharedStateWriter shared) throws IOException {
+        if (--shared.clients > 0) return;
+
+        OPEN.remove(shared.key);
+        // Con el lock tomado: un nuevo cliente espera a que este cierre
+        shared.shutdown();
+    }
+
+    private void shutdown() throws IOException {
+        closing = true;
+        LockSupport.unpark(worker);
+
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Shared state writer failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Hilo del escritor
+
+    private void drain() {
+        List<Group> round = new ArrayList<>();
+        while (true) {
+            Group group;
+            while (round.size() < GROUPS_PER_ROUND && (group = queue.poll()) != null) {
+                round.add(group);
+                write(group);
+                queuedRecords.addAndGet(-group.records.size());
+            }
+
+            if (!round.isEmpty()) {
+                finishRound(round);
+                round.clear();
+                continue;
+            }
+            if (closing && queue.isEmpty()) {
+                try {
+                    target.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
+                return;
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    private void write(Group group) {
+        if (failure != null) return;
+        try {
+            for (Object record : group.records) {
+                if (record instanceof TurnSnapshot) {
+                    target.writeTurn((TurnSnapshot) record);
+                } else {
+                    target.writeFinal((FinalState) record);
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Un solo volcado (o fsync) para todos los grupos de la vuelta
+     */
+    private void finishRound(List<Group> round) {
+        boolean flush = false;
+        boolean force = false;
+        for (Group group : round) {
+            flush |= group.flush;
+            force |= group.force;
+        }
+
+        if (failure == null && (flush || force)) {
+            try {
+                if (force) {
+                    target.force();
+                } else {
+                    target.flush();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        for (Group group : round) {
+            if (group.done != null) group.done.countDown();
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            System.err.println("[ERROR] Shared state writer failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registros de un cliente que se escriben juntos
+     */
+    private static class Group {
+        final List<Object> records;
+        final boolean flush;
+        final boolean force;
+        final CountDownLatch done; // null si nadie espera
+
+        Group(List<Object> records, boolean flush, boolean force, boolean wait) {
+            this.records = records;
+            this.flush = flush;
+            this.force = force;
+            this.done = wait ? new CountDownLatch(1) : null;
+        }
+    }
+
+    /**
+     * Escritor de un StateDAO; lo usa un solo hilo
+     */
+    class Client implements StateLogWriter {
+        private final int handOffBytes;
+        private List<Object> pending = new ArrayList<>();
+        private long pendingBytes;
+        private boolean closed;
+
+        private Client(int handOffBytes) {
+            this.handOffBytes = handOffBytes;
+        }
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) throws IOException {
+            add(snapshot);
+        }
+
+        @Override
+        public void writeFinal(FinalState state) throws IOException {
+            add(state);
+        }
+
+        private void add(Object record) throws IOException {
+            checkOpen();
+            pending.add(record);
+            pendingBytes += record instanceof TurnSnapshot
+                ? RECORD_OVERHEAD + ((TurnSnapshot) record).cells.length : RECORD_OVERHEAD;
+            // Buffer lleno: se entrega sin volcar ni esperar
+            if (pendingBytes >= handOffBytes) {
+                submit(false, false, false);
+            }
+        }
+
+        /**
+         * Registros juntados que todavia no se entregaron
+         */
+        int getPending() {
+            return pending.size();
+        }
+
+        /**
+         * Entrega lo juntado y pide un volcado sin esperarlo
+         */
+        @Override
+        public void flush() throws IOException {
+            checkOpen();
+            submit(true, false, false);
+        }
+
+        /**
+         * Espera a que lo entregado hasta ahora este escrito y volcado
+         */
+        @Override
+        public void sync() throws IOException {
+            checkOpen();
+            submit(true, false, true);
+        }
+
+        /**
+         * Espera a que lo entregado hasta ahora este en disco
+         */
+        @Override
+        public void force() throws IOException {
+            checkOpen();
+            submit(false, true, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            try {
+                if (failure == null) {
+                    submit(true, false, true);
+                }
+            } finally {
+                closed = true;
+                release(SharedStateWriter.this);
+            }
+        }
+
+        private void submit(boolean flush, boolean force, boolean wait) throws IOException {
+            // Contrapresion: si el hilo esta atrasado se espera a que baje la cola
+            while (queuedRecords.get() > MAX_QUEUED_RECORDS && failure == null && worker.isAlive()) {
+                LockSupport.parkNanos(100_000);
+            }
+
+            Group group = new Group(pending, flush, force, wait);
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+            queuedRecords.addAndGet(group.records.size());
+            queue.offer(group);
+            LockSupport.unpark(worker);
+
+            if (wait) {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        group.done.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            rethrowFailure();
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("State writer is closed");
+            }
+            rethrowFailure();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Resumen de una simulacion guardada: conteos, extinciones y cierre.
+ * Se mantiene aunque los turnos de la simulacion se hayan descartado
+ * por la politica de retencion.
+ */
+public class SimulationSummary {
+
+    private static final DateTimeFormatter ID_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    public final String simulationId;
+    public long createdAt;                  // milisegundos desde epoch
+    public int turnCount;
+    public int firstTurn = -1;
+    public int lastTurn = -1;
+    public int preyExtinctionTurn = -1;     // primer turno con 0 presas
+    public int predatorExtinctionTurn = -1; // primer turno con 0 depredadores
+    public boolean completed;
+    public int totalTurns;
+    public int finalPreys;
+    public int finalPredators;
+    public boolean extinction;
+    public int segments;                    // 0 si los turnos se descartaron
+    public long bytes;
+    public boolean summarized;              // true si solo queda el resumen
+    public int minPreys = -1;               // -1 si no hay turnos
+    public int maxPreys = -1;
+    public int minPredators = -1;
+    public int maxPredators = -1;
+
+    public SimulationSummary(String simulationId) {
+        this.simulationId = simulationId;
+    }
+
+    /**
+     * Registra un turno guardado
+     */
+    public void addTurn(TurnSnapshot snapshot) {
+        if (firstTurn < 0) firstTurn = snapshot.turn;
+        lastTurn = snapshot.turn;
+        turnCount++;
+        if (snapshot.preys == 0 && preyExtinctionTurn < 0) preyExtinctionTurn = snapshot.turn;
+        if (snapshot.predators == 0 && predatorExtinctionTurn < 0) predatorExtinctionTurn = snapshot.turn;
+        addPopulation(snapshot.preys, snapshot.predators);
+    }
+
+    /**
+     * Actualiza los minimos y maximos de poblacion
+     */
+    void addPopulation(int preys, int predators) {
+        if (minPreys < 0 || preys < minPreys) minPreys = preys;
+        if (preys > maxPreys) maxPreys = preys;
+        if (minPredators < 0 || predators < minPredators) minPredators = predators;
+        if (predators > maxPredators) maxPredators = predators;
+    }
+
+    /**
+     * Registra el cierre de la simulacion
+     */
+    public void setFinal(FinalState state) {
+        completed = true;
+        totalTurns = state.totalTurns;
+        finalPreys = state.finalPreys;
+        finalPredators = state.finalPredators;
+        extinction = state.extinction;
+    }
+
+    /**
+     * Turno de extincion de una especie ("PREYS" o "PREDATORS"), o -1
+     */
+    public int getExtinctionTurn(String species) {
+        if (species.equals("PREYS")) return preyExtinctionTurn;
+        if (species.equals("PREDATORS")) return predatorExtinctionTurn;
+        return -1;
+    }
+
+    /**
+     * Linea de texto separada por '|'; el ID va al final
+     */
+    public String format() {
+        return createdAt + "|" + turnCount + "|" + firstTurn + "|" + lastTurn + "|" +
+               preyExtinctionTurn + "|" + predatorExtinctionTurn + "|" + completed + "|" +
+               totalTurns + "|" + finalPreys + "|" + finalPredators + "|" + extinction + "|" +
+               segments + "|" + bytes + "|" + summarized + "|" +
+               minPreys + "|" + maxPreys + "|" + minPredators + "|" + maxPredators + "|" + simulationId;
+    }
+
+    /**
+     * Lee una linea de format(); acepta tambien las lineas anteriores a los
+     * minimos y maximos (el ID en la posicion 14)
+     */
+    public static SimulationSummary parse(String line) {
+        String[] parts = line.split("\\|", 19);
+        boolean populations = parts.length == 19 && isInteger(parts[14]) && isInteger(parts[15]) &&
+                              isInteger(parts[16]) && isInteger(parts[17]);
+        String id = populations ? parts[18] : line.split("\\|", 15)[14];
+
+        SimulationSummary summary = new SimulationSummary(id);
+        summary.createdAt = Long.parseLong(parts[0]);
+        summary.turnCount = Integer.parseInt(parts[1]);
+        summary.firstTurn = Integer.parseInt(parts[2]);
+        summary.lastTurn = Integer.parseInt(parts[3]);
+        summary.preyExtinctionTurn = Integer.parseInt(parts[4]);
+        summary.predatorExtinctionTurn = Integer.parseInt(parts[5]);
+        summary.completed = Boolean.parseBoolean(parts[6]);
+        summary.totalTurns = Integer.parseInt(parts[7]);
+        summary.finalPreys = Integer.parseInt(parts[8]);
+        summary.finalPredators = Integer.parseInt(parts[9]);
+        summary.extinction = Boolean.parseBoolean(parts[10]);
+        summary.segments = Integer.parseInt(parts[11]);
+        summary.bytes = Long.parseLong(parts[12]);
+        summary.summarized = Boolean.parseBoolean(parts[13]);
+        if (populations) {
+            summary.minPreys = Integer.parseInt(parts[14]);
+            summary.maxPreys = Integer.parseInt(parts[15]);
+            summary.minPredators = Integer.parseInt(parts[16]);
+            summary.maxPredators = Integer.parseInt(parts[17]);
+        }
+        return summary;
+    }
+
+    private static boolean isInteger(String text) {
+        try {
+            Integer.parseInt(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Fecha de inicio tomada del ID ("escenario_usuario_yyyyMMdd_HHmmss"),
+     * o 0 si el ID no la tiene
+     */
+    public static long createdAtFromId(String simulationId) {
+        if (simulationId.length() < 15) return 0;
+        try {
+            return LocalDateTime.parse(simulationId.substring(simulationId.length() - 15), ID_TIMESTAMP)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d turns, P=%d, D=%d%s", simulationId, turnCount,
+            finalPreys, finalPredators, summarized ? " (summary only)" : "");
+    }
+}
@@ -0,0 +1,283 @@
+package data;
+
+import java.io.*;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lectura perezosa de estados por turno segun una StateQuery.
+ * Abre una simulacion por vez y lee un turno por vez, asi la memoria no
+ * crece con el largo de la simulacion y se deja de leer al cortar.
+ *
+ * Se obtiene con StateDAO.openCursor() o StateDAO.streamStates() y debe
+ * cerrarse. Un error de lectura termina el cursor y queda en getError().
+ */
+public class StateCursor implements Iterator<StateDAO.TurnState>, Closeable {
+
+    /**
+     * Turnos de una simulacion, en orden
+     */
+    interface Source extends Closeable {
+        /**
+         * @return Proximo turno, o null al terminar la simulacion
+         */
+        StateDAO.TurnState next() throws IOException;
+    }
+
+    interface SourceFactory {
+        Source open(String simulationId, StateQuery query) throws IOException;
+    }
+
+    interface ScannerOpener {
+        TextStateScanner open() throws IOException;
+    }
+
+    private final StateQuery query;
+    private final Iterator<String> simulations;
+    private final SourceFactory factory;
+
+    private Source source;
+    private String simulationId;
+    private int rowInRange;
+    private StateDAO.TurnState pending;
+    private boolean finished;
+    private IOException error;
+
+    StateCursor(StateQuery query, Iterator<String> simulations, SourceFactory factory) {
+        this.query = query;
+        this.simulations = simulations;
+        this.factory = factory;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (pending == null && !finished) {
+                if (source == null && !openNextSimulation()) {
+                    finished = true;
+                    break;
+                }
+
+                StateDAO.TurnState state = source.next();
+                if (state == null || state.turn > query.toTurn) {
+                    closeSource();
+                    continue;
+                }
+                if (state.turn < query.fromTurn || rowInRange++ % query.stride != 0) {
+                    continue;
+                }
+
+                state.simulationId = simulationId;
+                pending = state;
+                if (query.stopWhen != null && query.stopWhen.test(state)) {
+                    finished = true;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to read simulation states: " + e.getMessage());
+            error = e;
+            finished = true;
+            pending = null;
+            closeQuietly();
+        }
+        return pending != null;
+    }
+
+    @Override
+    public StateDAO.TurnState next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        StateDAO.TurnState state = pending;
+        pending = null;
+        return state;
+    }
+
+    /**
+     * Error que termino la lectura, o null
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Los estados restantes como Stream; cerrarlo cierra el cursor
+     */
+    public Stream<StateDAO.TurnState> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                   Spliterator.ORDERED | Spliterator.NONNULL), false)
+               .onClose(this::closeQuietly);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        pending = null;
+        if (source != null) {
+            Source open = source;
+            source = null;
+            open.close();
+        }
+    }
+
+    private boolean openNextSimulation() throws IOException {
+        while (simulations.hasNext()) {
+            String id = simulations.next();
+            if (!query.simulationFilter.test(id)) continue;
+
+            Source opened = factory.open(id, query);
+            if (opened == null) continue;
+            source = opened;
+            simulationId = id;
+            rowInRange = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private void closeSource() throws IOException {
+        Source open = source;
+        source = null;
+        open.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to close state cursor: " + e.getMessage());
+        }
+    }
+
+    // Origenes de los turnos
+
+    /**
+     * Columnas de la serie mapeadas en memoria; arranca en el primer turno
+     * del rango con una busqueda binaria sobre la columna de turnos
+     */
+    static class SeriesSource implements Source {
+        private final IntBuffer[] columns;
+        private final int rows;
+        private int row;
+
+        SeriesSource(TimeSeriesStore store, String simulationId, int fromTurn) throws IOException {
+            TimeSeriesStore.Metric[] metrics = TimeSeriesStore.Metric.values();
+            this.columns = new IntBuffer[metrics.length];
+            int count = Integer.MAX_VALUE;
+            for (TimeSeriesStore.Metric metric : metrics) {
+                columns[metric.ordinal()] = store.mapColumn(simulationId, metric);
+                count = Math.min(count, columns[metric.ordinal()].limit());
+            }
+            this.rows = count;
+            this.row = firstRow(columns[TimeSeriesStore.Metric.TURN.ordinal()], rows, fromTurn);
+        }
+
+        private static int firstRow(IntBuffer turns, int rows, int fromTurn) {
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (turns.get(mid) < fromTurn) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        @Override
+        public StateDAO.TurnState next() {
+            if (row >= rows) return null;
+
+            StateDAO.TurnState state = new StateDAO.TurnState();
+            state.turn = value(TimeSeriesStore.Metric.TURN);
+            state.preys = value(TimeSeriesStore.Metric.PREYS);
+            state.predators = value(TimeSeriesStore.Metric.PREDATORS);
+            state.caimans = value(TimeSeriesStore.Metric.CAIMANS);
+            state.empty = value(TimeSeriesStore.Metric.EMPTY);
+            state.births = value(TimeSeriesStore.Metric.BIRTHS);
+            state.deaths = value(TimeSeriesStore.Metric.DEATHS);
+            state.hunts = value(TimeSeriesStore.Metric.HUNTS);
+            state.mutations = value(TimeSeriesStore.Metric.MUTATIONS);
+            row++;
+            return state;
+        }
+
+        private int value(TimeSeriesStore.Metric metric) {
+            return columns[metric.ordinal()].get(row);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Registros de texto (rangos del archivo de estados o segmentos),
+     * abiertos de a uno; la matriz solo se recorre para contar caimanes
+     */
+    static class TextSource implements Source {
+        private final Iterator<ScannerOpener> parts;
+        private TextStateScanner scanner;
+
+        TextSource(List<ScannerOpener> parts) {
+            this.parts = parts.iterator();
+        }
+
+        @Override
+        public StateDAO.TurnState next() throws IOException {
+            while (true) {
+                if (scanner == null) {
+                    if (!parts.hasNext()) return null;
+                    scanner = parts.next().open();
+                }
+
+                int type = scanner.next();
+                if (type == TextStateScanner.END) {
+                    scanner.close();
+                    scanner = null;
+                } else if (type == TextStateScanner.TURN) {
+                    StateDAO.TurnState state = new StateDAO.TurnState();
+                    state.turn = scanner.turn;
+                    state.preys = scanner.preys;
+                    state.predators = scanner.predators;
+                    state.caimans = scanner.caimans;
+                    state.empty = scanner.empty;
+                    return state;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (scanner != null) {
+                scanner.close();
+                scanner = null;
+            }
+        }
+    }
+
+    /**
+     * Turnos ya leidos de otro registro
+     */
+    static class ListSource implements Source {
+        private final Iterator<StateDAO.TurnState> states;
+
+        ListSource(List<StateDAO.TurnState> states) {
+            this.states = states.iterator();
+        }
+
+        @Override
+        public StateDAO.TurnState next() {
+            return states.hasNext() ? states.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
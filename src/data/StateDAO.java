@@ -1,104 +1,553 @@
 package data;
 
 import model.Ecosystem;
-import model.Animal;
-import model.Prey;
-import model.Predator;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object para estados de la simulacion.
- * Maneja lectura y escritura del archivo estado_turnos.txt
+ * Maneja lectura y escritura del archivo estado_turnos.txt, de
+ * estado_turnos.bin si se elige el formato binario compacto, de
+ * estado_turnos.dz (texto comprimido por bloques) o del directorio
+ * estado_turnos/ con un segmento por simulacion.
+ * Ademas guarda los conteos por turno en columnas (series/), que es la
+ * forma rapida de leerlos para reportes y analisis.
  */
-public class StateDAO {
+public class StateDAO implements StateRepository {
     
-    private static final String STATE_FILE = "estado_turnos.txt";
+    static final String STATE_FILE = "estado_turnos.txt";
+    static final String BINARY_STATE_FILE = "estado_turnos.bin";
+    static final String INDEX_FILE = "estado_turnos.idx";
+    private static final String SEGMENT_DIRECTORY = "estado_turnos";
+    static final String COMPRESSED_STATE_FILE = "estado_turnos.dz";
+    private static final String SERIES_DIRECTORY = "series";
+    private static final String SUMMARY_FILE = "estado_turnos.sum";
+    private static final String PINS_FILE = "estado_turnos.pins";
+    // Registros ya recuperados por este proceso
+    private static final Set<String> RECOVERED_LOGS = ConcurrentHashMap.newKeySet();
     private String currentSimulationId;
     
+    private StateFormat format;
+    private final BinaryStateLog binaryLog;
+    private final StateIndex stateIndex;
+    private final SegmentedStateStore segmentStore;
+    private final CompressedStateLog compressedLog;
+    private final TimeSeriesStore seriesStore;
+    // Resumenes de las simulaciones compactadas del registro de texto
+    private final SummaryArchive summaryArchive;
+    private final PinnedSimulations pinnedSimulations;
+    private boolean seriesEnabled;
+    
+    // Escritor persistente de la simulacion activa (null si no hay uno abierto)
+    private StateLogWriter writer;
+    private FlushPolicy flushPolicy;
+    // Escritura diferida: capacidad de la cola (0 = escribir en el mismo hilo)
+    private int asyncCapacity;
+    private AsyncStateWriter.Backpressure backpressure;
+    // Cuando hacer fsync del registro de estados
+    private DurableStateWriter.Mode durability;
+    private int durabilityRecords;
+    private int turnsSinceFlush;
+    private long lastFlushMillis;
+    
     /**
      * Constructor
      */
     public StateDAO() {
         this.currentSimulationId = null;
+        this.flushPolicy = FlushPolicy.defaultPolicy();
+        this.asyncCapacity = 0;
+        this.backpressure = AsyncStateWriter.Backpressure.BLOCK;
+        this.durability = DurableStateWriter.Mode.NONE;
+        this.format = StateFormat.TEXT;
+        this.binaryLog = new BinaryStateLog(BINARY_STATE_FILE);
+        this.stateIndex = new StateIndex(STATE_FILE, INDEX_FILE);
+        this.segmentStore = new SegmentedStateStore(SEGMENT_DIRECTORY);
+        this.compressedLog = new CompressedStateLog(COMPRESSED_STATE_FILE);
+        this.seriesStore = new TimeSeriesStore(SERIES_DIRECTORY);
+        this.summaryArchive = new SummaryArchive(SUMMARY_FILE);
+        this.pinnedSimulations = new PinnedSimulations(PINS_FILE);
+        this.segmentStore.setPinnedSimulations(pinnedSimulations);
+        this.seriesEnabled = true;
     }
     
     /**
      * Inicia una nueva simulacion y genera un ID unico
      * @param scenario Escenario de la simulacion
      * @param username Usuario que ejecuta la simulacion
+     * @param suffix Sufijo del ID, o null para ninguno
      */
-    public void startNewSimulation(String scenario, String username) {
+    @Override
+    public void startNewSimulation(String scenario, String username, String suffix) {
         String timestamp = LocalDateTime.now()
             .format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        this.currentSimulationId = scenario + "_" + username + "_" + timestamp;
+        this.currentSimulationId = scenario + "_" + username + "_" + timestamp +
+            (suffix != null ? "_" + suffix : "");
         
         System.out.println("[DAO] Started simulation: " + currentSimulationId);
     }
     
+    /**
+     * ID de la simulacion en curso, o null si no se inicio ninguna
+     */
+    public String getCurrentSimulationId() {
+        return currentSimulationId;
+    }
+    
+    /**
+     * Elige el formato del registro de estados. Cierra el escritor abierto;
+     * el proximo openWriter() escribe en el archivo del nuevo formato.
+     * @param format TEXT (estado_turnos.txt), BINARY (estado_turnos.bin),
+     *               COMPRESSED (estado_turnos.dz) o SEGMENTED (estado_turnos/)
+     */
+    public void setFormat(StateFormat format) {
+        closeWriter();
+        this.format = format;
+    }
+    
+    public StateFormat getFormat() {
+        return format;
+    }
+    
+    /**
+     * Formato binario: guarda la matriz completa cada K turnos y, entre
+     * medio, solo las celdas que cambiaron. Se aplica al proximo openWriter().
+     * @param turns Turnos entre keyframes (1 = matriz completa siempre)
+     */
+    public void setKeyframeInterval(int turns) {
+        binaryLog.setKeyframeInterval(turns);
+    }
+    
+    /**
+     * Politica de retencion. En SEGMENTED se aplica al cerrar el escritor;
+     * en TEXT con applyRetention() (a pedido o con RetentionScheduler).
+     * @param policy Cuantas simulaciones conservar y si guardar el resumen del resto
+     */
+    public void setRetentionPolicy(SegmentedStateStore.RetentionPolicy policy) {
+        segmentStore.setRetentionPolicy(policy);
+    }
+    
+    /**
+     * Formato segmentado: tamaño a partir del cual se abre un segmento nuevo
+     */
+    public void setMaxSegmentBytes(long bytes) {
+        segmentStore.setMaxSegmentBytes(bytes);
+    }
+    
+    /**
+     * Aplica la politica de retencion ahora. En TEXT compacta el registro:
+     * reescribe estado_turnos.txt solo con las simulaciones que se
+     * conservan y deja un resumen de cada una de las demas en
+     * estado_turnos.sum. Las simulaciones fijadas no se tocan.
+     * @return Cantidad de simulaciones descartadas o resumidas
+     */
+    public int applyRetention() {
+        closeWriter();
+        
+        try {
+            if (format == StateFormat.SEGMENTED) {
+                return segmentStore.applyRetention();
+            }
+            if (format != StateFormat.TEXT) {
+                System.err.println("[WARNING] Retention is only available in TEXT and SEGMENTED formats");
+                return 0;
+            }
+            if (SharedStateWriter.isOpen(stateLogKey())) {
+                System.out.println("[STORE] Retention skipped: a simulation is writing");
+                return 0;
+            }
+            return SharedStateWriter.exclusive(stateLogKey(), this::compactTextLog);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to apply retention policy: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Fija una simulacion: la retencion conserva todos sus turnos
+     * @return false si ya estaba fijada o no se pudo guardar
+     */
+    public boolean pinSimulation(String simulationId) {
+        return pinnedSimulations.pin(simulationId);
+    }
+    
+    public boolean unpinSimulation(String simulationId) {
+        return pinnedSimulations.unpin(simulationId);
+    }
+    
+    public List<String> getPinnedSimulations() {
+        return pinnedSimulations.list();
+    }
+    
+    /**
+     * Compactacion del registro de texto (sin escritores abiertos)
+     */
+    private int compactTextLog() throws IOException {
+        SegmentedStateStore.RetentionPolicy policy = segmentStore.getRetentionPolicy();
+        stateIndex.refresh();
+        
+        long now = System.currentTimeMillis();
+        int kept = 0;
+        long keptBytes = 0;
+        List<StateIndex.Entry> evicted = new ArrayList<>();
+        List<long[]> keptRanges = new ArrayList<>();
+        
+        // De la mas nueva a la mas vieja
+        List<String> ids = new ArrayList<>(stateIndex.getSimulationIds());
+        Collections.reverse(ids);
+        
+        for (String id : ids) {
+            StateIndex.Entry entry = stateIndex.get(id);
+            if (pinnedSimulations.isPinned(id)) {
+                keptRanges.addAll(entry.ranges);
+                continue;
+            }
+            
+            long createdAt = SimulationSummary.createdAtFromId(id);
+            boolean tooMany = policy.maxRuns > 0 && kept >= policy.maxRuns;
+            boolean tooOld = policy.maxAgeMillis > 0 && createdAt > 0 &&
+                             now - createdAt > policy.maxAgeMillis;
+            boolean tooBig = policy.maxBytes > 0 && keptBytes + entry.bytes() > policy.maxBytes;
+            
+            if (tooMany || tooOld || tooBig) {
+                evicted.add(entry);
+            } else {
+                kept++;
+                keptBytes += entry.bytes();
+                keptRanges.addAll(entry.ranges);
+            }
+        }
+        if (evicted.isEmpty()) return 0;
+        
+        // Primero los resumenes en disco, despues se descartan los turnos
+        if (policy.keepSummaries) {
+            List<SimulationSummary> summaries = new ArrayList<>();
+            for (StateIndex.Entry entry : evicted) {
+                SimulationSummary summary = entry.toSummary();
+                summary.summarized = true;
+                summary.bytes = 0;
+                summaries.add(summary);
+            }
+            summaryArchive.append(summaries);
+        }
+        rewriteStateFile(keptRanges);
+        stateIndex.rebuild();
+        
+        for (StateIndex.Entry entry : evicted) {
+            seriesStore.delete(entry.simulationId);
+        }
+        System.out.println("[STORE] Retention " + (policy.keepSummaries ? "summarized " : "dropped ") +
+                         evicted.size() + " simulation(s)");
+        return evicted.size();
+    }
+    
+    /**
+     * Reemplaza el archivo de estados de texto por los rangos dados, en el
+     * orden del archivo
+     */
+    private void rewriteStateFile(List<long[]> ranges) throws IOException {
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        Path target = Paths.get(STATE_FILE);
+        Path temp = Paths.get(STATE_FILE + ".tmp");
+        
+        try (FileChannel in = FileChannel.open(target, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long[] range : ranges) {
+                long position = range[0];
+                while (position < range[1]) {
+                    position += in.transferTo(position, range[1] - position, out);
+                }
+            }
+            out.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * Activa o desactiva las series por columnas (activas por defecto).
+     * Sin ellas los conteos se leen del registro de estados.
+     */
+    public void setSeriesEnabled(boolean enabled) {
+        this.seriesEnabled = enabled;
+    }
+    
+    /**
+     * Configura el tamaño del buffer y cada cuanto se vuelca a disco.
+     * Se aplica al proximo openWriter().
+     * @param flushPolicy Politica de volcado
+     */
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+    
+    /**
+     * Activa la escritura diferida: saveTurnState solo encola el turno y un
+     * hilo en segundo plano lo escribe. Se aplica al proximo openWriter().
+     * @param queueCapacity Turnos que pueden esperar en la cola (0 = desactivar)
+     * @param backpressure Que hacer cuando la cola esta llena
+     */
+    public void setAsyncWrites(int queueCapacity, AsyncStateWriter.Backpressure backpressure) {
+        this.asyncCapacity = queueCapacity;
+        this.backpressure = backpressure;
+    }
+    
+    /**
+     * Configura cada cuanto se hace fsync del registro de estados, para que
+     * un corte de energia no pierda mas que los ultimos registros. Con
+     * escritura diferida el fsync lo hace el hilo en segundo plano.
+     * Se aplica al proximo openWriter().
+     * @param mode Cuando hacer fsync
+     * @param everyRecords Registros entre fsync (solo en EVERY_N)
+     */
+    public void setDurability(DurableStateWriter.Mode mode, int everyRecords) {
+        if (mode == DurableStateWriter.Mode.EVERY_N && everyRecords < 1) {
+            throw new IllegalArgumentException("Records between fsync must be >= 1");
+        }
+        this.durability = mode;
+        this.durabilityRecords = everyRecords;
+    }
+    
+    /**
+     * Recuperacion tras un corte: trunca el registro de estados del formato
+     * actual al final del ultimo registro completo. openWriter() la ejecuta
+     * antes de agregar registros. En SEGMENTED no hace falta: cada
+     * simulacion escribe en un segmento nuevo y la lectura ya ignora un
+     * registro incompleto al final de un segmento.
+     * @return Bytes descartados, o -1 si hubo un error
+     */
+    public long recoverStateLog() {
+        if (SharedStateWriter.isOpen(stateLogKey())) {
+            System.err.println("[ERROR] Cannot recover the state log while a writer is open");
+            return -1;
+        }
+        
+        try {
+            return recover();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to recover state file: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    private long recover() throws IOException {
+        switch (format) {
+            case BINARY:
+                return binaryLog.recover();
+            case COMPRESSED:
+                return compressedLog.recover();
+            case SEGMENTED:
+                return 0;
+            default:
+                return stateIndex.recover();
+        }
+    }
+    
+    /**
+     * Abre el escritor persistente de la simulacion actual.
+     * Mientras este abierto, los turnos se agrupan en el buffer y se vuelcan
+     * segun la politica configurada en lugar de abrir y cerrar el archivo cada vez.
+     * @return true si se abrio exitosamente
+     */
+    @Override
+    public boolean openWriter() {
+        closeWriter();
+        
+        try {
+            StateLogWriter logWriter = openLogWriter(flushPolicy.bufferSize);
+            if (durability != DurableStateWriter.Mode.NONE) {
+                logWriter = new DurableStateWriter(logWriter, durability, durabilityRecords);
+            }
+            // Las series van en la misma cadena, asi tambien se escriben en segundo plano
+            logWriter = new SeriesStateWriter(logWriter, seriesStore);
+            this.writer = asyncCapacity > 0
+                ? new AsyncStateWriter(logWriter, asyncCapacity, backpressure) : logWriter;
+            this.turnsSinceFlush = 0;
+            this.lastFlushMillis = System.currentTimeMillis();
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to open state file: " + e.getMessage());
+            this.writer = null;
+            return false;
+        }
+    }
+    
+    /**
+     * Escritor del formato actual. Todos los StateDAO del proceso comparten
+     * un solo escritor por archivo (ver SharedStateWriter), asi varias
+     * simulaciones en paralelo no mezclan sus registros. La primera vez que
+     * el proceso abre el archivo lo recupera tras un corte; despues todo lo
+     * escrito paso por el escritor compartido y termina en registros completos.
+     */
+    private StateLogWriter openLogWriter(int bufferSize) throws IOException {
+        String key = stateLogKey();
+        return SharedStateWriter.acquire(key, bufferSize, () -> {
+            if (RECOVERED_LOGS.add(key)) {
+                recover();
+            }
+            return openFormatWriter(bufferSize);
+        });
+    }
+    
+    private StateLogWriter openFormatWriter(int bufferSize) throws IOException {
+        if (format == StateFormat.BINARY) {
+            return binaryLog.openWriter(bufferSize);
+        }
+        if (format == StateFormat.SEGMENTED) {
+            return segmentStore.openWriter(bufferSize);
+        }
+        if (format == StateFormat.COMPRESSED) {
+            // El tamaño del buffer es el tamaño de bloque; cada volcado cierra un bloque
+            return compressedLog.openWriter(bufferSize);
+        }
+        return TextStateLog.openWriter(STATE_FILE, bufferSize);
+    }
+    
+    /**
+     * Archivo (o directorio) de estados del formato actual
+     */
+    private String stateLogKey() {
+        String name;
+        switch (format) {
+            case BINARY:
+                name = BINARY_STATE_FILE;
+                break;
+            case SEGMENTED:
+                name = SEGMENT_DIRECTORY;
+                break;
+            case COMPRESSED:
+                name = COMPRESSED_STATE_FILE;
+                break;
+            default:
+                name = STATE_FILE;
+        }
+        return Paths.get(name).toAbsolutePath().normalize().toString();
+    }
+    
+    /**
+     * Vuelca lo pendiente y cierra el escritor persistente.
+     */
+    @Override
+    public void closeWriter() {
+        if (writer == null) return;
+        
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to close state file: " + e.getMessage());
+        } finally {
+            writer = null;
+        }
+        
+        // Indexar lo agregado mientras esta en cache del sistema
+        if (format == StateFormat.TEXT) {
+            refreshIndex();
+        }
+    }
+    
+    /**
+     * Pone al dia el indice del archivo de texto
+     * @return false si no se pudo leer el archivo de estados
+     */
+    private boolean refreshIndex() {
+        try {
+            stateIndex.refresh();
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to update state index: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Reconstruye el indice del archivo de texto desde cero
+     * @return true si se reconstruyo exitosamente
+     */
+    public boolean rebuildIndex() {
+        flushPending();
+        
+        try {
+            stateIndex.rebuild();
+            System.out.println("[DAO] State index rebuilt: " + 
+                             stateIndex.getSimulationIds().size() + " simulations");
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to rebuild state index: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Vuelca lo pendiente para que las lecturas vean los ultimos turnos
+     */
+    private void flushPending() {
+        try {
+            if (writer != null) {
+                writer.sync();
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to flush state file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Indica si hay un escritor persistente abierto
+     */
+    public boolean isWriterOpen() {
+        return writer != null;
+    }
+    
     /**
      * Guarda el estado de un turno
      * @param ecosystem Ecosistema actual
      * @return true si se guardo exitosamente
      */
+    @Override
     public boolean saveTurnState(Ecosystem ecosystem) {
         if (currentSimulationId == null) {
             System.err.println("[ERROR] No active simulation. Call startNewSimulation() first");
             return false;
         }
         
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(STATE_FILE, true))) {
-            
-            // Linea de separacion de turno
-            writer.write("=== SIMULATION: " + currentSimulationId + " ===");
-            writer.newLine();
+        try {
+            TurnSnapshot snapshot = seriesEnabled
+                ? SeriesStateWriter.capture(currentSimulationId, ecosystem)
+                : TurnSnapshot.capture(currentSimulationId, ecosystem);
             
-            // Informacion del turno
-            writer.write("TURN: " + ecosystem.getCurrentTurn());
-            writer.newLine();
-            writer.write("SCENARIO: " + ecosystem.getScenario());
-            writer.newLine();
-            writer.write("TIMESTAMP: " + LocalDateTime.now()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            writer.newLine();
-            
-            // Estadisticas
-            writer.write("PREYS: " + ecosystem.countPreys());
-            writer.newLine();
-            writer.write("PREDATORS: " + ecosystem.countPredators());
-            writer.newLine();
-            writer.write("EMPTY: " + ecosystem.countEmptyCells());
-            writer.newLine();
-            writer.write("EXTINCTION: " + ecosystem.hasExtinction());
-            writer.newLine();
-            
-            // Matriz completa
-            writer.write("MATRIX:");
-            writer.newLine();
-            Animal[][] matrix = ecosystem.getMatrix();
-            for (int i = 0; i < 10; i++) {
-                for (int j = 0; j < 10; j++) {
-                    Animal animal = matrix[i][j];
-                    if (animal == null) {
-                        writer.write("E"); // Empty
-                    } else if (animal instanceof Prey) {
-                        writer.write("P");
-                    } else if (animal instanceof Predator) {
-                        writer.write("D");
+            if (writer != null) {
+                // La fila de la serie viaja con el turno y la escribe el escritor
+                writer.writeTurn(snapshot);
+                turnsSinceFlush++;
+                flushIfDue();
+            } else {
+                try (StateLogWriter out = openLogWriter(8192)) {
+                    out.writeTurn(snapshot);
+                }
+                if (seriesEnabled) {
+                    try (TimeSeriesStore.Writer out = seriesStore.openWriter(currentSimulationId, 512)) {
+                        out.append(TimeSeriesStore.capture(ecosystem));
                     }
-                    
-                    if (j < 9) writer.write(",");
                 }
-                writer.newLine();
             }
-            
-            writer.write("--- END TURN ---");
-            writer.newLine();
-            writer.newLine();
-            
             return true;
             
         } catch (IOException e) {
@@ -108,23 +557,18 @@ public class StateDAO {
     }
     
     /**
-     * Encuentra el turno exacto donde ocurrió la extinción de una especie.
-     * @param simulationId ID de la simulación
-     * @param species Especie a buscar ("PREYS" o "PREDATORS")
-     * @return Número de turno donde se extinguió, o -1 si no se extinguió
+     * Vuelca el buffer si la politica lo indica (cada N turnos o cada T ms)
      */
-    public int findExtinctionTurn(String simulationId, String species) {
-        List<TurnState> states = loadSimulationStates(simulationId);
-
-        for (TurnState state : states) {
-            if (species.equals("PREYS") && state.preys == 0) {
-                return state.turn;
-            } else if (species.equals("PREDATORS") && state.predators == 0) {
-                return state.turn;
-            }
+    private void flushIfDue() throws IOException {
+        long now = System.currentTimeMillis();
+        boolean turnsDue = flushPolicy.everyTurns > 0 && turnsSinceFlush >= flushPolicy.everyTurns;
+        boolean timeDue = flushPolicy.everyMillis > 0 && now - lastFlushMillis >= flushPolicy.everyMillis;
+        
+        if (turnsDue || timeDue) {
+            writer.flush();
+            turnsSinceFlush = 0;
+            lastFlushMillis = now;
         }
-
-        return -1; // No se extinguió
     }
     
     /**
@@ -132,40 +576,22 @@ public class StateDAO {
      * @param ecosystem Ecosistema final
      * @param totalTurns Total de turnos ejecutados
      */
+    @Override
     public void saveFinalState(Ecosystem ecosystem, int totalTurns) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(STATE_FILE, true))) {
-            
-            writer.write("╔═══════════════════════════════════════════╗");
-            writer.newLine();
-            writer.write("║         SIMULATION COMPLETED              ║");
-            writer.newLine();
-            writer.write("╚═══════════════════════════════════════════╝");
-            writer.newLine();
-            writer.write("SIMULATION ID: " + currentSimulationId);
-            writer.newLine();
-            writer.write("TOTAL TURNS: " + totalTurns);
-            writer.newLine();
-            writer.write("FINAL PREYS: " + ecosystem.countPreys());
-            writer.newLine();
-            writer.write("FINAL PREDATORS: " + ecosystem.countPredators());
-            writer.newLine();
-            writer.write("EXTINCTION OCCURRED: " + ecosystem.hasExtinction());
-            writer.newLine();
+        try {
+            FinalState state = FinalState.capture(currentSimulationId, ecosystem, totalTurns);
             
-            if (ecosystem.hasExtinction()) {
-                if (ecosystem.countPreys() == 0) {
-                    writer.write("RESULT: Preys went extinct");
-                } else {
-                    writer.write("RESULT: Predators went extinct");
-                }
+            if (writer != null) {
+                writer.writeFinal(state);
+                // Fin de la simulacion: siempre se vuelca
+                writer.sync();
+                turnsSinceFlush = 0;
+                lastFlushMillis = System.currentTimeMillis();
             } else {
-                writer.write("RESULT: Both species survived");
+                try (StateLogWriter out = openLogWriter(8192)) {
+                    out.writeFinal(state);
+                }
             }
-            writer.newLine();
-            
-            writer.write("════════════════════════════════════════════");
-            writer.newLine();
-            writer.newLine();
             
             System.out.println("[DAO] Final state saved for simulation: " + currentSimulationId);
             
@@ -175,43 +601,198 @@ public class StateDAO {
     }
     
     /**
-     * Lee todos los estados de una simulacion especifica
+     * Resumen de una simulacion (turnos, extinciones y cierre) sin leer sus estados.
+     * Disponible en los formatos de texto (desde el indice) y segmentado.
      * @param simulationId ID de la simulacion
-     * @return Lista de estados por turno
+     * @return Resumen, o null si no existe o el formato no lo mantiene
      */
-    public List<TurnState> loadSimulationStates(String simulationId) {
-        List<TurnState> states = new ArrayList<>();
+    @Override
+    public SimulationSummary getSimulationSummary(String simulationId) {
+        flushPending();
+        
+        try {
+            if (format == StateFormat.SEGMENTED) {
+                return segmentStore.getSummary(simulationId);
+            }
+            if (format == StateFormat.TEXT && refreshIndex()) {
+                StateIndex.Entry entry = stateIndex.get(simulationId);
+                return entry != null ? entry.toSummary() : summaryArchive.get(simulationId);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load simulation summary: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Obtiene un turno completo (con matriz) de una simulacion.
+     * En formato binario parte del keyframe anterior mas cercano; en texto y
+     * segmentado salta al registro con la tabla de posiciones de la simulacion.
+     * @param simulationId ID de la simulacion
+     * @param turn Turno buscado
+     * @return Captura del turno o null si no existe
+     */
+    @Override
+    public TurnSnapshot loadTurnSnapshot(String simulationId, int turn) {
+        flushPending();
+        
+        if (format == StateFormat.TEXT && !refreshIndex()) {
+            return null;
+        }
+        return readTurnSnapshot(simulationId, turn);
+    }
+    
+    /**
+     * Reproduce las matrices de los turnos de la consulta, en orden.
+     * Cada cuadro se lee por su posicion, sin recorrer el registro desde
+     * el principio; usar con try-with-resources.
+     * @param query Simulaciones, rango de turnos y paso entre cuadros
+     */
+    @Override
+    public Stream<TurnSnapshot> replay(StateQuery query) {
+        return streamStates(query)
+            .map(state -> readTurnSnapshot(state.simulationId, state.turn))
+            .filter(snapshot -> snapshot != null);
+    }
+    
+    /**
+     * Lee un turno del formato actual, sin volcar lo pendiente
+     */
+    private TurnSnapshot readTurnSnapshot(String simulationId, int turn) {
+        try {
+            switch (format) {
+                case BINARY:
+                    return binaryLog.readTurn(simulationId, turn);
+                case COMPRESSED:
+                    return compressedLog.readTurn(simulationId, turn);
+                case SEGMENTED:
+                    return segmentStore.readTurn(simulationId, turn);
+                default:
+                    return stateIndex.readTurn(simulationId, turn);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load turn " + turn + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Abre un cursor que lee los estados de la consulta de a uno.
+     * Usa las series por columnas si existen; si no, el registro del formato
+     * actual (en binario y comprimido se lee una simulacion completa por vez).
+     * @param query Simulaciones, rango de turnos, paso y condicion de corte
+     * @return Cursor a cerrar al terminar
+     */
+    @Override
+    public StateCursor openCursor(StateQuery query) {
+        flushPending();
+        
+        List<String> ids = query.simulationId != null
+            ? Collections.singletonList(query.simulationId) : getAllSimulationIds();
+        return new StateCursor(query, ids.iterator(), this::openSource);
+    }
+    
+    /**
+     * Cantidad de turnos guardados de una simulacion, sin leerlos si hay
+     * serie o resumen
+     */
+    @Override
+    public int countTurns(String simulationId) {
+        flushPending();
         
-        File file = new File(STATE_FILE);
-        if (!file.exists()) {
-            return states;
+        int rows = seriesEnabled ? seriesStore.rowCount(simulationId) : 0;
+        if (rows > 0) {
+            return rows;
+        }
+        SimulationSummary summary = getSimulationSummary(simulationId);
+        if (summary != null) {
+            return summary.turnCount;
+        }
+        try (Stream<TurnState> states = streamStates(StateQuery.simulation(simulationId))) {
+            return (int) states.count();
+        }
+    }
+    
+    /**
+     * Origen de los turnos de una simulacion para el cursor
+     */
+    private StateCursor.Source openSource(String simulationId, StateQuery query) throws IOException {
+        if (seriesEnabled && seriesStore.rowCount(simulationId) > 0) {
+            return new StateCursor.SeriesSource(seriesStore, simulationId, query.fromTurn);
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(STATE_FILE))) {
-            String line;
-            TurnState currentState = null;
-            boolean inSimulation = false;
+        if (format == StateFormat.TEXT) {
+            if (!refreshIndex()) return null;
+            StateIndex.Entry entry = stateIndex.get(simulationId);
+            if (entry == null) return null;
             
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("SIMULATION: " + simulationId)) {
-                    inSimulation = true;
-                    currentState = new TurnState();
-                } else if (inSimulation && line.startsWith("TURN:")) {
-                    currentState.turn = Integer.parseInt(line.split(":")[1].trim());
-                } else if (inSimulation && line.startsWith("PREYS:")) {
-                    currentState.preys = Integer.parseInt(line.split(":")[1].trim());
-                } else if (inSimulation && line.startsWith("PREDATORS:")) {
-                    currentState.predators = Integer.parseInt(line.split(":")[1].trim());
-                } else if (inSimulation && line.startsWith("EMPTY:")) {
-                    currentState.empty = Integer.parseInt(line.split(":")[1].trim());
-                } else if (inSimulation && line.contains("END TURN")) {
-                    states.add(currentState);
-                    currentState = null;
-                } else if (line.contains("SIMULATION COMPLETED")) {
-                    inSimulation = false;
-                }
+            // Solo se leen los rangos de bytes de esta simulacion
+            Path stateFile = Paths.get(STATE_FILE);
+            List<StateCursor.ScannerOpener> ranges = new ArrayList<>();
+            for (long[] range : entry.ranges) {
+                ranges.add(() -> new TextStateScanner(stateFile, range[0], range[1], true));
             }
+            return new StateCursor.TextSource(ranges);
+        }
+        
+        if (format == StateFormat.SEGMENTED) {
+            List<StateCursor.ScannerOpener> segments = new ArrayList<>();
+            for (Path segment : segmentStore.getSegmentFiles(simulationId)) {
+                segments.add(() -> new TextStateScanner(segment, true));
+            }
+            return new StateCursor.TextSource(segments);
+        }
+        
+        return new StateCursor.ListSource(loadRecordStates(simulationId));
+    }
+    
+    /**
+     * Serie completa de una metrica de la simulacion, sin parsear el registro
+     * @param simulationId ID de la simulacion
+     * @param metric Metrica (PREYS, CAIMANS, BIRTHS, ...)
+     * @return Un valor por turno guardado, o un arreglo vacio si no hay serie
+     */
+    public int[] loadSeries(String simulationId, TimeSeriesStore.Metric metric) {
+        flushPending();
+        
+        try {
+            return seriesStore.readColumn(simulationId, metric);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load series " + metric + ": " + e.getMessage());
+            return new int[0];
+        }
+    }
+    
+    /**
+     * Lee los conteos por turno del registro binario o del comprimido,
+     * sin decodificar las matrices
+     */
+    private List<TurnState> loadRecordStates(String simulationId) {
+        List<TurnState> states = new ArrayList<>();
+        
+        try {
+            StateRecordHandler handler = new StateRecordHandler() {
+                @Override
+                public void onTurn(TurnSnapshot snapshot) {
+                    TurnState state = new TurnState();
+                    state.turn = snapshot.turn;
+                    state.preys = snapshot.preys;
+                    state.predators = snapshot.predators;
+                    state.caimans = snapshot.caimans;
+                    state.empty = snapshot.empty;
+                    states.add(state);
+                }
+                
+                @Override
+                public void onFinal(FinalState finalState) {
+                }
+            };
             
+            if (format == StateFormat.BINARY) {
+                binaryLog.read(simulationId::equals, false, handler);
+            } else {
+                compressedLog.readSimulation(simulationId, false, handler);
+            }
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to load simulation states: " + e.getMessage());
         }
@@ -223,39 +804,80 @@ public class StateDAO {
      * Obtiene la lista de IDs de todas las simulaciones guardadas
      * @return Lista de IDs de simulaciones
      */
+    @Override
     public List<String> getAllSimulationIds() {
         List<String> ids = new ArrayList<>();
+        flushPending();
         
-        File file = new File(STATE_FILE);
-        if (!file.exists()) {
-            return ids;
+        if (format != StateFormat.TEXT) {
+            try {
+                switch (format) {
+                    case BINARY:
+                        return binaryLog.listSimulations();
+                    case COMPRESSED:
+                        return compressedLog.listSimulations();
+                    default:
+                        return segmentStore.listSimulations();
+                }
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to load simulation IDs: " + e.getMessage());
+                return ids;
+            }
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(STATE_FILE))) {
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("SIMULATION:")) {
-                    String id = line.substring(line.indexOf(":") + 1)
-                        .replace("===", "").trim();
-                    if (!ids.contains(id)) {
-                        ids.add(id);
-                    }
+        if (refreshIndex()) {
+            // Primero las compactadas (son las mas viejas)
+            try {
+                for (SimulationSummary summary : summaryArchive.list()) {
+                    if (stateIndex.get(summary.simulationId) == null) ids.add(summary.simulationId);
                 }
+            } catch (IOException e) {
+                System.err.println("[ERROR] Failed to load simulation summaries: " + e.getMessage());
             }
-            
-        } catch (IOException e) {
-            System.err.println("[ERROR] Failed to load simulation IDs: " + e.getMessage());
+            ids.addAll(stateIndex.getSimulationIds());
         }
         
         return ids;
     }
     
+    /**
+     * Resumenes de todas las simulaciones en una sola pasada, o null si el
+     * formato no los mantiene
+     */
+    private List<SimulationSummary> listSummaries() throws IOException {
+        if (format == StateFormat.SEGMENTED) {
+            return segmentStore.listSummaries();
+        }
+        if (format != StateFormat.TEXT || !refreshIndex()) {
+            return null;
+        }
+        
+        List<SimulationSummary> summaries = new ArrayList<>();
+        for (SimulationSummary summary : summaryArchive.list()) {
+            if (stateIndex.get(summary.simulationId) == null) summaries.add(summary);
+        }
+        for (String id : stateIndex.getSimulationIds()) {
+            summaries.add(stateIndex.get(id).toSummary());
+        }
+        return summaries;
+    }
+    
     /**
      * Obtiene estadisticas generales del archivo de estados
      * @return String con estadisticas
      */
+    @Override
     public String getGeneralStatistics() {
+        flushPending();
+        try {
+            List<SimulationSummary> summaries = listSummaries();
+            if (summaries != null) {
+                return formatStatistics(summaries);
+            }
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load simulation summaries: " + e.getMessage());
+        }
+        
         List<String> simulations = getAllSimulationIds();
         
         if (simulations.isEmpty()) {
@@ -268,9 +890,44 @@ public class StateDAO {
         stats.append("\nSimulation IDs:\n");
         
         for (String id : simulations) {
-            List<TurnState> states = loadSimulationStates(id);
+            // Si hay resumen la cantidad de turnos sale de ahi, sin leer los estados
+            SimulationSummary summary = getSimulationSummary(id);
+            int turns = summary != null ? summary.turnCount : loadSimulationStates(id).size();
             stats.append("  - ").append(id)
-                 .append(" (").append(states.size()).append(" turns)\n");
+                 .append(" (").append(turns).append(" turns")
+                 .append(summary != null && summary.summarized ? ", summary only" : "")
+                 .append(")\n");
+        }
+        
+        return stats.toString();
+    }
+    
+    /**
+     * Estadisticas a partir de los resumenes, sin leer los estados
+     */
+    private static String formatStatistics(List<SimulationSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return "No simulations recorded yet";
+        }
+        
+        int summarized = 0;
+        for (SimulationSummary summary : summaries) {
+            if (summary.summarized) summarized++;
+        }
+        
+        StringBuilder stats = new StringBuilder();
+        stats.append("=== STATE FILE STATISTICS ===\n");
+        stats.append("Total simulations: ").append(summaries.size()).append("\n");
+        if (summarized > 0) {
+            stats.append("Summary only: ").append(summarized).append("\n");
+        }
+        stats.append("\nSimulation IDs:\n");
+        
+        for (SimulationSummary summary : summaries) {
+            stats.append("  - ").append(summary.simulationId)
+                 .append(" (").append(summary.turnCount).append(" turns")
+                 .append(summary.summarized ? ", summary only" : "")
+                 .append(")\n");
         }
         
         return stats.toString();
@@ -280,7 +937,53 @@ public class StateDAO {
      * Limpia el archivo de estados
      * @return true si se limpio exitosamente
      */
+    @Override
     public boolean clearStates() {
+        closeWriter();
+        if (SharedStateWriter.isOpen(stateLogKey())) {
+            System.err.println("[ERROR] Cannot clear states while another simulation is writing");
+            return false;
+        }
+        
+        if (!seriesStore.clear()) {
+            System.err.println("[ERROR] Failed to clear series: " + SERIES_DIRECTORY);
+        }
+        
+        if (format == StateFormat.BINARY) {
+            boolean cleared = binaryLog.clear();
+            if (cleared) {
+                System.out.println("[INFO] State file cleared");
+            } else {
+                System.err.println("[ERROR] Failed to clear state file: " + BINARY_STATE_FILE);
+            }
+            return cleared;
+        }
+        
+        if (format == StateFormat.COMPRESSED) {
+            boolean cleared = compressedLog.clear();
+            if (cleared) {
+                System.out.println("[INFO] State file cleared");
+            } else {
+                System.err.println("[ERROR] Failed to clear state file: " + COMPRESSED_STATE_FILE);
+            }
+            return cleared;
+        }
+        
+        if (format == StateFormat.SEGMENTED) {
+            boolean cleared = segmentStore.clear();
+            if (cleared) {
+                System.out.println("[INFO] State segments cleared");
+            } else {
+                System.err.println("[ERROR] Failed to clear state segments: " + SEGMENT_DIRECTORY);
+            }
+            return cleared;
+        }
+        
+        stateIndex.clear();
+        if (!summaryArchive.clear()) {
+            System.err.println("[ERROR] Failed to clear state summaries: " + SUMMARY_FILE);
+        }
+        
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(STATE_FILE))) {
             writer.write("");
             System.out.println("[INFO] State file cleared");
@@ -291,14 +994,110 @@ public class StateDAO {
         }
     }
     
+    /**
+     * Agrega al registro binario todo el contenido de estado_turnos.txt
+     * @return true si se convirtio exitosamente
+     */
+    public boolean convertTextToBinary() {
+        closeWriter();
+        
+        try {
+            int records = StateLogConverter.textToBinary(STATE_FILE, binaryLog);
+            System.out.println("[DAO] Converted " + records + " records to " + BINARY_STATE_FILE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to convert state file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Exporta el registro binario a texto legible
+     * @param textFile Archivo de texto de destino
+     * @return true si se convirtio exitosamente
+     */
+    public boolean convertBinaryToText(String textFile) {
+        closeWriter();
+        
+        try {
+            int records = StateLogConverter.binaryToText(binaryLog, textFile);
+            System.out.println("[DAO] Exported " + records + " records to " + textFile);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to export state file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Formato del registro de estados
+     */
+    public enum StateFormat {
+        TEXT,       // estado_turnos.txt, legible
+        BINARY,     // estado_turnos.bin, compacto
+        COMPRESSED, // estado_turnos.dz, texto comprimido por bloques
+        SEGMENTED   // estado_turnos/, un archivo de texto por simulacion
+    }
+    
+    /**
+     * Politica de escritura agrupada: tamaño del buffer y cuando volcarlo.
+     * El final de la simulacion siempre provoca un volcado.
+     */
+    public static class FlushPolicy {
+        public final int bufferSize;
+        public final int everyTurns;   // 0 = no volcar por cantidad de turnos
+        public final long everyMillis; // 0 = no volcar por tiempo
+        
+        public FlushPolicy(int bufferSize, int everyTurns, long everyMillis) {
+            this.bufferSize = bufferSize;
+            this.everyTurns = everyTurns;
+            this.everyMillis = everyMillis;
+        }
+        
+        /**
+         * Politica por defecto: cada 10 turnos o cada segundo
+         */
+        public static FlushPolicy defaultPolicy() {
+            return new FlushPolicy(64 * 1024, 10, 1000);
+        }
+        
+        /**
+         * Vuelca cada N turnos
+         */
+        public static FlushPolicy everyTurns(int turns) {
+            return new FlushPolicy(64 * 1024, turns, 0);
+        }
+        
+        /**
+         * Vuelca cuando pasan al menos T milisegundos desde el ultimo volcado
+         */
+        public static FlushPolicy everyMillis(long millis) {
+            return new FlushPolicy(64 * 1024, 0, millis);
+        }
+        
+        /**
+         * Solo vuelca al llenarse el buffer o al terminar la simulacion
+         */
+        public static FlushPolicy onEnd() {
+            return new FlushPolicy(256 * 1024, 0, 0);
+        }
+    }
+    
     /**
      * Clase interna para representar el estado de un turno
      */
     public static class TurnState {
+        public String simulationId;
         public int turn;
         public int preys;
         public int predators;
+        public int caimans;
         public int empty;
+        // Eventos del turno; solo disponibles si se leyo de las series
+        public int births;
+        public int deaths;
+        public int hunts;
+        public int mutations;
         
         @Override
         public String toString() {
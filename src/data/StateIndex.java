@@ -0,0 +1,490 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Indice del archivo de estados de texto (estado_turnos.idx).
+ * Por cada simulacion guarda los rangos de bytes donde estan sus registros,
+ * la cantidad de turnos, los turnos de extincion y el resumen final.
+ *
+ * El indice recuerda hasta que byte del archivo de estados cubre; al
+ * consultarlo solo se lee lo agregado desde entonces. Si el archivo se
+ * acorto o fue reemplazado, se reconstruye completo.
+ *
+ * Formato del archivo de indice (una linea por simulacion, separador '|'):
+ *   #ESTIDX|version|bytes cubiertos|CRC de la cola cubierta
+ *   primer turno|ultimo turno|turnos|extincion presas|extincion depredadores|
+ *   final|total turnos|presas finales|depredadores finales|extincion|
+ *   minimo y maximo de presas|minimo y maximo de depredadores|rangos|ID
+ */
+public class StateIndex {
+
+    private static final String HEADER = "#ESTIDX";
+    private static final int VERSION = 2;
+    // Bytes del final de la zona cubierta usados para detectar un archivo reemplazado
+    private static final int TAIL_CHECK_BYTES = 256;
+    // Numera los temporales: varios StateDAO pueden guardar el indice a la vez.
+    // El nombre lleva ademas el PID, porque el contador es de cada proceso
+    private static final AtomicLong TEMP_FILES = new AtomicLong();
+    private static final long PID = ProcessHandle.current().pid();
+
+    private final String stateFile;
+    private final String indexFile;
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+    private final List<String> order = new ArrayList<>();
+    // Posicion de cada turno, armada al pedir un turno de la simulacion (no se guarda)
+    private final Map<String, TurnOffsetTable> turnOffsets = new HashMap<>();
+    private long indexedLength;
+    private long tailChecksum;
+    private boolean loaded;
+    // Tamaño y fecha del archivo de estados en la ultima consulta
+    private long checkedLength = -1;
+    private long checkedModified;
+
+    /**
+     * @param stateFile Archivo de estados de texto
+     * @param indexFile Archivo donde se guarda el indice
+     */
+    public StateIndex(String stateFile, String indexFile) {
+        this.stateFile = stateFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Pone el indice al dia con el archivo de estados y lo guarda si cambio
+     */
+    public void refresh() throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+
+        File file = new File(stateFile);
+        long length = file.exists() ? file.length() : 0;
+        long modified = file.lastModified();
+
+        // Sin cambios desde la ultima consulta: no hace falta leer nada
+        if (length == checkedLength && modified == checkedModified) return;
+
+        if (length < indexedLength || !tailMatches()) {
+            System.out.println("[INDEX] State file changed, rebuilding index");
+            reset();
+        }
+        if (length > indexedLength) {
+            scan(indexedLength);
+            save();
+        }
+        checkedLength = length;
+        checkedModified = modified;
+    }
+
+    /**
+     * Recuperacion tras un corte: pone el indice al dia y trunca el archivo
+     * de estados al final del ultimo registro completo, para que lo que se
+     * agregue despues no quede pegado a un registro a medio escribir.
+     * Solo debe llamarse sin un escritor abierto sobre el archivo.
+     * @return Bytes descartados (0 si el archivo estaba sano)
+     */
+    public long recover() throws IOException {
+        refresh();
+
+        File file = new File(stateFile);
+        long discarded = file.exists() ? file.length() - indexedLength : 0;
+        if (discarded <= 0) return 0;
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(indexedLength);
+        }
+        System.out.println("[RECOVERY] Truncated " + discarded + " bytes of incomplete records from " + stateFile);
+        checkedLength = indexedLength;
+        checkedModified = file.lastModified();
+        return discarded;
+    }
+
+    /**
+     * Descarta el indice y lo reconstruye desde el archivo de estados
+     */
+    public void rebuild() throws IOException {
+        reset();
+        loaded = true;
+        scan(0);
+        save();
+    }
+
+    /**
+     * Borra el indice (por ejemplo al limpiar el archivo de estados)
+     */
+    public void clear() {
+        reset();
+        loaded = true;
+        new File(indexFile).delete();
+    }
+
+    /**
+     * Entrada de una simulacion (O(log n)), o null si no esta indexada
+     */
+    public Entry get(String simulationId) {
+        return entries.get(simulationId);
+    }
+
+    /**
+     * IDs de las simulaciones en orden de aparicion
+     */
+    public List<String> getSimulationIds() {
+        return Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Abre un flujo que lee solo los bytes de un rango del archivo de estados
+     */
+    public InputStream openRange(long[] range) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(stateFile, "r");
+        file.seek(range[0]);
+        return new BufferedInputStream(new RangeInputStream(file, range[1] - range[0]), 64 * 1024);
+    }
+
+    /**
+     * Lee un turno completo (con matriz) de una simulacion. La primera vez
+     * recorre los rangos de la simulacion para ubicar cada turno; despues
+     * solo lee el registro buscado y lo agregado al archivo.
+     * @return Captura del turno, o null si no esta indexado
+     */
+    public TurnSnapshot readTurn(String simulationId, int turn) throws IOException {
+        TurnOffsetTable table = getTurnOffsets(simulationId);
+        int index = table == null ? -1 : table.indexOf(turn);
+        if (index < 0) return null;
+        return TextStateLog.readTurnAt(Paths.get(stateFile), table.startAt(index), table.endAt(index));
+    }
+
+    private TurnOffsetTable getTurnOffsets(String simulationId) throws IOException {
+        Entry entry = entries.get(simulationId);
+        if (entry == null) return null;
+
+        TurnOffsetTable table = turnOffsets.computeIfAbsent(simulationId, id -> new TurnOffsetTable());
+        Path path = Paths.get(stateFile);
+        for (long[] range : entry.ranges) {
+            if (range[1] <= table.coveredPosition) continue;
+            table.scan(path, 0, Math.max(range[0], table.coveredPosition), range[1]);
+        }
+        return table;
+    }
+
+    private void reset() {
+        checkedLength = -1;
+        entries.clear();
+        turnOffsets.clear();
+        order.clear();
+        indexedLength = 0;
+        tailChecksum = 0;
+    }
+
+    private Entry entryFor(String simulationId) {
+        Entry entry = entries.get(simulationId);
+        if (entry == null) {
+            entry = new Entry(simulationId);
+            entries.put(simulationId, entry);
+            order.add(simulationId);
+        }
+        return entry;
+    }
+
+    // Lectura del archivo de estados
+
+    /**
+     * Recorre el archivo desde una posicion, indexando solo registros completos.
+     * Un registro a medio escribir al final queda para la proxima vez.
+     */
+    private void scan(long from) throws IOException {
+        File file = new File(stateFile);
+        if (!file.exists()) return;
+
+        // Las filas de la matriz no se recorren
+        try (TextStateScanner scanner = new TextStateScanner(file.toPath(), from, Long.MAX_VALUE, false)) {
+            int type;
+            while ((type = scanner.next()) != TextStateScanner.END) {
+                Entry entry = entryFor(scanner.simulationId());
+                if (type == TextStateScanner.TURN) {
+                    entry.addTurn(scanner.turn, scanner.preys, scanner.predators);
+                } else {
+                    entry.setFinal(scanner.totalTurns, scanner.finalPreys,
+                                   scanner.finalPredators, scanner.extinction);
+                }
+                // Incluye las lineas en blanco que siguen al registro
+                entry.addRange(scanner.recordStart, scanner.recordEnd);
+            }
+            indexedLength = scanner.getPosition();
+        }
+
+        tailChecksum = tailChecksum(indexedLength);
+    }
+
+    /**
+     * Verifica que el final de la zona cubierta no haya cambiado
+     */
+    private boolean tailMatches() throws IOException {
+        if (indexedLength == 0) return true;
+        File file = new File(stateFile);
+        return file.exists() && file.length() >= indexedLength
+            && tailChecksum(indexedLength) == tailChecksum;
+    }
+
+    private long tailChecksum(long length) throws IOException {
+        int count = (int) Math.min(TAIL_CHECK_BYTES, length);
+        if (count == 0) return 0;
+
+        byte[] bytes = new byte[count];
+        try (RandomAccessFile file = new RandomAccessFile(stateFile, "r")) {
+            file.seek(length - count);
+            file.readFully(bytes);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    // Persistencia del indice
+
+    private void load() {
+        reset();
+        File file = new File(indexFile);
+        if (!file.exists()) return;
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] header = reader.readLine().split("\\|");
+            if (!header[0].equals(HEADER) || Integer.parseInt(header[1]) != VERSION) {
+                return;
+            }
+            long length = Long.parseLong(header[2]);
+            long checksum = Long.parseLong(header[3]);
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Entry entry = Entry.parse(line);
+                entries.put(entry.simulationId, entry);
+                order.add(entry.simulationId);
+            }
+            indexedLength = length;
+            tailChecksum = checksum;
+
+        } catch (IOException | RuntimeException e) {
+            // Indice ilegible: se reconstruye desde el archivo de estados
+            System.err.println("[WARNING] Ignoring unreadable state index: " + e.getMessage());
+            reset();
+        }
+    }
+
+    private void save() {
+        Path target = Paths.get(indexFile);
+        Path temp = Paths.get(indexFile + "." + PID + "." + TEMP_FILES.incrementAndGet() + ".tmp");
+
+        try {
+            // CREATE_NEW: nunca se escribe sobre el temporal de otro
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8,
+                                                                 StandardOpenOption.CREATE_NEW)) {
+                writer.write(HEADER + "|" + VERSION + "|" + indexedLength + "|" + tailChecksum);
+                writer.newLine();
+                for (String id : order) {
+                    writer.write(entries.get(id).format());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save state index: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Queda un temporal huerfano; no afecta al indice
+            }
+        }
+    }
+
+    /**
+     * Datos indexados de una simulacion
+     */
+    public static class Entry {
+        public final String simulationId;
+        public int firstTurn = -1;
+        public int lastTurn = -1;
+        public int turnCount;
+        public int preyExtinctionTurn = -1;     // primer turno con 0 presas
+        public int predatorExtinctionTurn = -1; // primer turno con 0 depredadores
+        public boolean completed;
+        public int totalTurns;
+        public int finalPreys;
+        public int finalPredators;
+        public boolean extinction;
+        public int minPreys = -1;
+        public int maxPreys = -1;
+        public int minPredators = -1;
+        public int maxPredators = -1;
+        // Rangos [inicio, fin) de bytes, en orden
+        public final List<long[]> ranges = new ArrayList<>();
+
+        Entry(String simulationId) {
+            this.simulationId = simulationId;
+        }
+
+        void addTurn(int turn, int preys, int predators) {
+            if (firstTurn < 0) firstTurn = turn;
+            lastTurn = turn;
+            turnCount++;
+            if (preys == 0 && preyExtinctionTurn < 0) preyExtinctionTurn = turn;
+            if (predators == 0 && predatorExtinctionTurn < 0) predatorExtinctionTurn = turn;
+            if (minPreys < 0 || preys < minPreys) minPreys = preys;
+            if (preys > maxPreys) maxPreys = preys;
+            if (minPredators < 0 || predators < minPredators) minPredators = predators;
+            if (predators > maxPredators) maxPredators = predators;
+        }
+
+        void setFinal(int totalTurns, int finalPreys, int finalPredators, boolean extinction) {
+            this.completed = true;
+            this.totalTurns = totalTurns;
+            this.finalPreys = finalPreys;
+            this.finalPredators = finalPredators;
+            this.extinction = extinction;
+        }
+
+        /**
+         * Agrega un rango, uniendolo con el anterior si son contiguos
+         */
+        void addRange(long start, long end) {
+            if (endsAt(start)) {
+                ranges.get(ranges.size() - 1)[1] = end;
+            } else {
+                ranges.add(new long[]{start, end});
+            }
+        }
+
+        /**
+         * Resumen equivalente al del formato segmentado
+         */
+        public SimulationSummary toSummary() {
+            SimulationSummary summary = new SimulationSummary(simulationId);
+            summary.createdAt = SimulationSummary.createdAtFromId(simulationId);
+            summary.turnCount = turnCount;
+            summary.firstTurn = firstTurn;
+            summary.lastTurn = lastTurn;
+            summary.preyExtinctionTurn = preyExtinctionTurn;
+            summary.predatorExtinctionTurn = predatorExtinctionTurn;
+            summary.completed = completed;
+            summary.totalTurns = totalTurns;
+            summary.finalPreys = finalPreys;
+            summary.finalPredators = finalPredators;
+            summary.extinction = extinction;
+            summary.minPreys = minPreys;
+            summary.maxPreys = maxPreys;
+            summary.minPredators = minPredators;
+            summary.maxPredators = maxPredators;
+            summary.bytes = bytes();
+            return summary;
+        }
+
+        /**
+         * Bytes de sus registros en el archivo de estados
+         */
+        public long bytes() {
+            long bytes = 0;
+            for (long[] range : ranges) {
+                bytes += range[1] - range[0];
+            }
+            return bytes;
+        }
+
+        boolean endsAt(long position) {
+            return !ranges.isEmpty() && ranges.get(ranges.size() - 1)[1] == position;
+        }
+
+        String format() {
+            StringBuilder ranges = new StringBuilder();
+            for (long[] range : this.ranges) {
+                if (ranges.length() > 0) ranges.append(';');
+                ranges.append(range[0]).append('-').append(range[1]);
+            }
+            return firstTurn + "|" + lastTurn + "|" + turnCount + "|" + preyExtinctionTurn + "|" +
+                   predatorExtinctionTurn + "|" + completed + "|" + totalTurns + "|" + finalPreys + "|" +
+                   finalPredators + "|" + extinction + "|" + minPreys + "|" + maxPreys + "|" +
+                   minPredators + "|" + maxPredators + "|" + ranges + "|" + simulationId;
+        }
+
+        static Entry parse(String line) {
+            // El ID va al final para que pueda contener cualquier caracter
+            String[] parts = line.split("\\|", 16);
+            Entry entry = new Entry(parts[15]);
+            entry.firstTurn = Integer.parseInt(parts[0]);
+            entry.lastTurn = Integer.parseInt(parts[1]);
+            entry.turnCount = Integer.parseInt(parts[2]);
+            entry.preyExtinctionTurn = Integer.parseInt(parts[3]);
+            entry.predatorExtinctionTurn = Integer.parseInt(parts[4]);
+            entry.completed = Boolean.parseBoolean(parts[5]);
+            entry.totalTurns = Integer.parseInt(parts[6]);
+            entry.finalPreys = Integer.parseInt(parts[7]);
+            entry.finalPredators = Integer.parseInt(parts[8]);
+            entry.extinction = Boolean.parseBoolean(parts[9]);
+            entry.minPreys = Integer.parseInt(parts[10]);
+            entry.maxPreys = Integer.parseInt(parts[11]);
+            entry.minPredators = Integer.parseInt(parts[12]);
+            entry.maxPredators = Integer.parseInt(parts[13]);
+
+            if (!parts[14].isEmpty()) {
+                for (String range : parts[14].split(";")) {
+                    int dash = range.indexOf('-');
+                    entry.ranges.add(new long[]{
+                        Long.parseLong(range.substring(0, dash)),
+                        Long.parseLong(range.substring(dash + 1))
+                    });
+                }
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Flujo limitado a una cantidad de bytes de un RandomAccessFile
+     */
+    private static class RangeInputStream extends InputStream {
+        private final RandomAccessFile file;
+        private long remaining;
+
+        RangeInputStream(RandomAccessFile file, long length) {
+            this.file = file;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            remaining--;
+            return file.read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = file.read(bytes, offset, (int) Math.min(length, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversion entre el formato de texto y el binario del registro de estados.
+ * Conserva todos los registros completos; los incompletos se descartan.
+ */
+public class StateLogConverter {
+
+    /**
+     * Convierte un archivo de texto al formato binario (se agrega al final del binario)
+     * @param textFile Archivo de texto de origen
+     * @param binaryLog Registro binario de destino
+     * @return Cantidad de registros convertidos
+     */
+    public static int textToBinary(String textFile, BinaryStateLog binaryLog) throws IOException {
+        int[] count = new int[1];
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(textFile), StandardCharsets.UTF_8), 64 * 1024);
+             StateLogWriter out = binaryLog.openWriter(64 * 1024)) {
+
+            TextStateLog.readRecords(reader, new CopyHandler(out, count));
+        }
+        return count[0];
+    }
+
+    /**
+     * Convierte el formato binario a texto (se agrega al final del archivo de texto)
+     * @param binaryLog Registro binario de origen
+     * @param textFile Archivo de texto de destino
+     * @return Cantidad de registros convertidos
+     */
+    public static int binaryToText(BinaryStateLog binaryLog, String textFile) throws IOException {
+        int[] count = new int[1];
+
+        try (StateLogWriter out = TextStateLog.openWriter(textFile, 64 * 1024)) {
+            binaryLog.read(id -> true, true, new CopyHandler(out, count));
+        }
+        return count[0];
+    }
+
+    /**
+     * Reenvia cada registro leido a un escritor
+     */
+    private static class CopyHandler implements StateRecordHandler {
+        private final StateLogWriter out;
+        private final int[] count;
+
+        CopyHandler(StateLogWriter out, int[] count) {
+            this.out = out;
+            this.count = count;
+        }
+
+        @Override
+        public void onTurn(TurnSnapshot snapshot) throws IOException {
+            out.writeTurn(snapshot);
+            count[0]++;
+        }
+
+        @Override
+        public void onFinal(FinalState state) throws IOException {
+            out.writeFinal(state);
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destino de escritura del registro de estados.
+ * Cada formato (texto, binario, ...) tiene su propia implementacion.
+ */
+public interface StateLogWriter extends Closeable {
+    
+    /**
+     * Agrega el registro de un turno
+     */
+    void writeTurn(TurnSnapshot snapshot) throws IOException;
+    
+    /**
+     * Agrega el registro de cierre de una simulacion
+     */
+    void writeFinal(FinalState state) throws IOException;
+    
+    /**
+     * Vuelca a disco lo que este en buffer
+     */
+    void flush() throws IOException;
+    
+    /**
+     * Vuelca y espera a que todo lo escrito hasta ahora este en disco.
+     * Igual a flush() salvo en escritores diferidos.
+     */
+    default void sync() throws IOException {
+        flush();
+    }
+    
+    /**
+     * Como sync(), y ademas pide al sistema operativo que lleve los datos
+     * al disco fisico (fsync), asi sobreviven a un corte de energia.
+     * Igual a sync() en escritores que no tienen un archivo propio.
+     */
+    default void force() throws IOException {
+        sync();
+    }
+}
@@ -0,0 +1,79 @@
+package data;
+
+import java.util.function.Predicate;
+
+/**
+ * Que estados leer con StateDAO.openCursor(): simulaciones, rango de
+ * turnos, paso de muestreo y condicion de corte. El lector aplica estos
+ * filtros mientras lee, asi deja de leer en cuanto tiene la respuesta.
+ *
+ * Es inmutable: cada metodo devuelve una consulta nueva.
+ */
+public class StateQuery {
+
+    public final String simulationId;               // null = segun el filtro
+    public final Predicate<String> simulationFilter;
+    public final int fromTurn;
+    public final int toTurn;
+    public final int stride;                         // 1 = todos los turnos
+    public final Predicate<StateDAO.TurnState> stopWhen; // null = leer hasta el final
+
+    private StateQuery(String simulationId, Predicate<String> simulationFilter,
+                       int fromTurn, int toTurn, int stride,
+                       Predicate<StateDAO.TurnState> stopWhen) {
+        this.simulationId = simulationId;
+        this.simulationFilter = simulationFilter;
+        this.fromTurn = fromTurn;
+        this.toTurn = toTurn;
+        this.stride = stride;
+        this.stopWhen = stopWhen;
+    }
+
+    /**
+     * Todos los turnos de una simulacion
+     */
+    public static StateQuery simulation(String simulationId) {
+        return new StateQuery(simulationId, id -> id.equals(simulationId),
+                              0, Integer.MAX_VALUE, 1, null);
+    }
+
+    /**
+     * Todos los turnos de las simulaciones cuyo ID cumpla el filtro
+     */
+    public static StateQuery matching(Predicate<String> simulationFilter) {
+        return new StateQuery(null, simulationFilter, 0, Integer.MAX_VALUE, 1, null);
+    }
+
+    /**
+     * Todos los turnos de todas las simulaciones
+     */
+    public static StateQuery all() {
+        return matching(id -> true);
+    }
+
+    /**
+     * Solo los turnos entre from y to (inclusive)
+     */
+    public StateQuery turns(int from, int to) {
+        return new StateQuery(simulationId, simulationFilter, from, to, stride, stopWhen);
+    }
+
+    /**
+     * Uno de cada N turnos dentro del rango, empezando por el primero,
+     * contados por separado en cada simulacion
+     */
+    public StateQuery stride(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("Stride must be >= 1");
+        }
+        return new StateQuery(simulationId, simulationFilter, fromTurn, toTurn, every, stopWhen);
+    }
+
+    /**
+     * Deja de leer despues del primer estado que cumpla la condicion
+     * (ese estado se entrega)
+     */
+    public StateQuery stopWhen(Predicate<StateDAO.TurnState> condition) {
+        return new StateQuery(simulationId, simulationFilter, fromTurn, toTurn, stride, condition);
+    }
+}
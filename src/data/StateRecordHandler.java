@@ -0,0 +1,19 @@
+package data;
+
+import java.io.IOException;
+
+/**
+ * Receptor de registros leidos del registro de estados, sea cual sea el formato.
+ */
+public interface StateRecordHandler {
+    
+    /**
+     * Registro de un turno
+     */
+    void onTurn(TurnSnapshot snapshot) throws IOException;
+    
+    /**
+     * Registro de cierre de una simulacion
+     */
+    void onFinal(FinalState state) throws IOException;
+}
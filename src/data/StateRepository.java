@@ -0,0 +1,148 @@
+package data;
+
+import model.Ecosystem;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento de los estados por turno de las simulaciones.
+ * StateDAO lo implementa sobre archivos planos y KeyValueStateRepository
+ * sobre el almacen clave-valor; RepositoryFactory elige segun la
+ * configuracion. Los errores se informan por System.err y se devuelve
+ * false, null o -1, como en los DAO.
+ */
+public interface StateRepository {
+
+    /**
+     * Inicia una nueva simulacion y genera un ID unico
+     * @param scenario Escenario de la simulacion
+     * @param username Usuario que ejecuta la simulacion
+     */
+    default void startNewSimulation(String scenario, String username) {
+        startNewSimulation(scenario, username, null);
+    }
+
+    /**
+     * Igual que startNewSimulation(scenario, username), con un sufijo al final
+     * del ID para distinguir simulaciones iniciadas en el mismo segundo
+     * (por ejemplo, las replicas de un analisis)
+     * @param suffix Sufijo del ID, o null para ninguno
+     */
+    void startNewSimulation(String scenario, String username, String suffix);
+
+    /**
+     * Abre el escritor de la simulacion actual
+     * @return true si se abrio exitosamente
+     */
+    boolean openWriter();
+
+    /**
+     * Escribe lo pendiente y cierra el escritor
+     */
+    void closeWriter();
+
+    /**
+     * Guarda el estado de un turno
+     * @return true si se guardo exitosamente
+     */
+    boolean saveTurnState(Ecosystem ecosystem);
+
+    /**
+     * Guarda el estado final de la simulacion
+     */
+    void saveFinalState(Ecosystem ecosystem, int totalTurns);
+
+    /**
+     * Resumen de una simulacion sin leer sus estados
+     * @return Resumen, o null si no existe o no se mantiene
+     */
+    SimulationSummary getSimulationSummary(String simulationId);
+
+    /**
+     * Turno completo (con matriz) de una simulacion
+     * @return Captura del turno o null si no existe
+     */
+    TurnSnapshot loadTurnSnapshot(String simulationId, int turn);
+
+    /**
+     * Cursor que lee los estados de la consulta de a uno
+     * @return Cursor a cerrar al terminar
+     */
+    StateCursor openCursor(StateQuery query);
+
+    /**
+     * Cantidad de turnos guardados de una simulacion
+     */
+    int countTurns(String simulationId);
+
+    /**
+     * IDs de las simulaciones, en el orden en que se guardaron
+     */
+    List<String> getAllSimulationIds();
+
+    /**
+     * Estadisticas generales del almacenamiento
+     */
+    String getGeneralStatistics();
+
+    /**
+     * Borra todos los estados
+     * @return true si se limpio exitosamente
+     */
+    boolean clearStates();
+
+    /**
+     * Igual que openCursor() pero como Stream; usar con try-with-resources
+     */
+    default Stream<StateDAO.TurnState> streamStates(StateQuery query) {
+        return openCursor(query).stream();
+    }
+
+    /**
+     * Carga todos los estados de una simulacion
+     * @return Lista de estados por turno
+     */
+    default List<StateDAO.TurnState> loadSimulationStates(String simulationId) {
+        try (Stream<StateDAO.TurnState> states = streamStates(StateQuery.simulation(simulationId))) {
+            return states.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Reproduce las matrices de los turnos de la consulta, en orden;
+     * usar con try-with-resources
+     */
+    default Stream<TurnSnapshot> replay(StateQuery query) {
+        return streamStates(query)
+            .map(state -> loadTurnSnapshot(state.simulationId, state.turn))
+            .filter(snapshot -> snapshot != null);
+    }
+
+    /**
+     * Encuentra el turno donde ocurrio la extincion de una especie.
+     * Usa el resumen si existe; si no, deja de leer en el primer turno
+     * sin la especie.
+     * @param species "PREYS" o "PREDATORS"
+     * @return Turno de extincion o -1 si no hubo
+     */
+    default int findExtinctionTurn(String simulationId, String species) {
+        SimulationSummary summary = getSimulationSummary(simulationId);
+        if (summary != null) {
+            return summary.getExtinctionTurn(species);
+        }
+
+        Predicate<StateDAO.TurnState> extinct =
+            species.equals("PREYS") ? state -> state.preys == 0 :
+            species.equals("PREDATORS") ? state -> state.predators == 0 : state -> false;
+
+        try (Stream<StateDAO.TurnState> states = streamStates(StateQuery.simulation(simulationId).stopWhen(extinct))) {
+            return states.filter(extinct)
+                         .mapToInt(state -> state.turn)
+                         .findFirst()
+                         .orElse(-1); // No se extinguió
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumenes de las simulaciones compactadas del registro de texto
+ * (estado_turnos.sum): de cada una solo queda un SimulationSummary.
+ *
+ * El archivo solo crece; se carga una vez y despues solo se leen las
+ * lineas agregadas. Si se acorto o se reescribio, se vuelve a leer.
+ *
+ * Formato: una cabecera "#ESTSUM|version" y una linea format() por
+ * simulacion, en el orden en que se compactaron.
+ */
+public class SummaryArchive {
+
+    private static final String HEADER = "#ESTSUM|1";
+
+    private final String fileName;
+    // Resumenes por ID, en orden de compactacion
+    private final Map<String, SimulationSummary> summaries = new LinkedHashMap<>();
+    private long loadedLength;
+    // Tamaño y fecha del archivo en la ultima consulta
+    private long checkedLength = -1;
+    private long checkedModified;
+
+    public SummaryArchive(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Resumen de una simulacion compactada, o null si no esta
+     */
+    public synchronized SimulationSummary get(String simulationId) throws IOException {
+        refresh();
+        return summaries.get(simulationId);
+    }
+
+    public synchronized boolean contains(String simulationId) throws IOException {
+        refresh();
+        return summaries.containsKey(simulationId);
+    }
+
+    /**
+     * Resumenes en orden de compactacion
+     */
+    public synchronized Collection<SimulationSummary> list() throws IOException {
+        refresh();
+        return Collections.unmodifiableCollection(new ArrayList<>(summaries.values()));
+    }
+
+    public synchronized int size() throws IOException {
+        refresh();
+        return summaries.size();
+    }
+
+    /**
+     * Agrega los resumenes y los fuerza a disco antes de volver, asi se
+     * pueden descartar los turnos de esas simulaciones
+     */
+    public synchronized void append(List<SimulationSummary> added) throws IOException {
+        if (added.isEmpty()) return;
+        refresh();
+
+        File file = new File(fileName);
+        boolean header = !file.exists() || file.length() == 0;
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (header) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            for (SimulationSummary summary : added) {
+                writer.write(summary.format());
+                writer.newLine();
+            }
+            writer.flush();
+            out.getChannel().force(true);
+        }
+
+        // Se lee lo agregado (y lo que otro haya agregado antes)
+        refresh();
+    }
+
+    /**
+     * Borra el archivo de resumenes
+     */
+    public synchronized boolean clear() {
+        reset();
+        File file = new File(fileName);
+        return !file.exists() || file.delete();
+    }
+
+    private void refresh() throws IOException {
+        File file = new File(fileName);
+        long length = file.exists() ? file.length() : 0;
+        long modified = file.lastModified();
+
+        if (length == checkedLength && modified == checkedModified) return;
+
+        // Se acorto o se reescribio: se vuelve a leer desde el inicio
+        if (length < loadedLength || length == checkedLength) {
+            reset();
+        }
+        if (length > loadedLength) {
+            readFrom(file, loadedLength);
+        }
+        checkedLength = length;
+        checkedModified = modified;
+    }
+
+    /**
+     * Agrega las lineas completas desde una posicion; una linea a medio
+     * escribir al final queda para la proxima vez
+     */
+    private void readFrom(File file, long from) throws IOException {
+        byte[] bytes;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            bytes = new byte[(int) (in.length() - from)];
+            in.seek(from);
+            in.readFully(bytes);
+        }
+
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        if (end == 0) return;
+
+        String text = new String(bytes, 0, end, StandardCharsets.UTF_8);
+        for (String line : text.split("\r?\n")) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                SimulationSummary summary = SimulationSummary.parse(line);
+                summaries.put(summary.simulationId, summary);
+            } catch (RuntimeException e) {
+                System.err.println("[WARNING] Skipping malformed summary: " + line);
+            }
+        }
+        loadedLength = from + end;
+    }
+
+    private void reset() {
+        summaries.clear();
+        loadedLength = 0;
+        checkedLength = -1;
+    }
+}
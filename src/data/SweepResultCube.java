@@ -0,0 +1,177 @@
+package data;
+
+import model.SimulationParameters;
+import model.SimulationParameters.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resultado de un barrido de parametros: por cada punto (valores de los
+ * parametros variados) las metricas agregadas de sus replicas.
+ *
+ * Los parametros que no se variaron quedan en los de base. Los valores de
+ * los puntos van en una matriz de doubles y las metricas en una de floats,
+ * una fila por punto, en el orden en que se definieron.
+ */
+public class SweepResultCube {
+
+    /**
+     * Metricas de cada punto, promediadas sobre las replicas
+     */
+    public enum Metric {
+        EXTINCTION_RATE,
+        PREY_EXTINCTION_RATE,
+        PREDATOR_EXTINCTION_RATE,
+        AVG_EXTINCTION_TURN,    // maxTurns si no hubo extincion
+        AVG_FINAL_PREYS,
+        AVG_FINAL_PREDATORS,
+        AVG_FINAL_CAIMANS,
+        POPULATION_STABILITY,   // desviacion estandar media de las poblaciones finales
+        AVG_OCCUPATION_RATE
+    }
+
+    public final String scenario;
+    public final int maxTurns;
+    public final int replicates;
+    public final long baseSeed;
+    public final boolean thirdSpecies;
+    public final boolean mutations;
+    public final SimulationParameters baseParameters;
+
+    private final Parameter[] parameters;
+    private final double[][] points;    // [punto][parametro variado]
+    private final float[][] metrics;    // [punto][Metric]
+
+    public SweepResultCube(String scenario, int maxTurns, int replicates, long baseSeed,
+                           boolean thirdSpecies, boolean mutations, SimulationParameters baseParameters,
+                           Parameter[] parameters, double[][] points, float[][] metrics) {
+        if (points.length != metrics.length) {
+            throw new IllegalArgumentException("Points and metrics differ in length");
+        }
+        this.scenario = scenario;
+        this.maxTurns = maxTurns;
+        this.replicates = replicates;
+        this.baseSeed = baseSeed;
+        this.thirdSpecies = thirdSpecies;
+        this.mutations = mutations;
+        this.baseParameters = baseParameters;
+        this.parameters = parameters.clone();
+        this.points = points;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Cantidad de puntos
+     */
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * Parametros variados, en el orden de las columnas
+     */
+    public Parameter[] getParameters() {
+        return parameters.clone();
+    }
+
+    public double getValue(int point, Parameter parameter) {
+        int column = column(parameter);
+        return column >= 0 ? points[point][column] : baseParameters.get(parameter);
+    }
+
+    public float get(int point, Metric metric) {
+        return metrics[point][metric.ordinal()];
+    }
+
+    /**
+     * Parametros completos con los que se simulo un punto
+     */
+    public SimulationParameters getSimulationParameters(int point) {
+        return baseParameters.with(parameters, points[point]);
+    }
+
+    /**
+     * Punto con exactamente esos valores (uno por parametro variado, en orden)
+     * @return Indice del punto, o -1 si no esta
+     */
+    public int find(double... values) {
+        for (int point = 0; point < points.length; point++) {
+            if (Arrays.equals(points[point], values)) return point;
+        }
+        return -1;
+    }
+
+    /**
+     * Puntos en los que un parametro vale lo indicado (un corte del cubo)
+     */
+    public List<Integer> where(Parameter parameter, double value) {
+        List<Integer> result = new ArrayList<>();
+        for (int point = 0; point < points.length; point++) {
+            if (getValue(point, parameter) == value) result.add(point);
+        }
+        return result;
+    }
+
+    /**
+     * Punto con el mayor (o menor) valor de una metrica, o -1 si esta vacio
+     */
+    public int best(Metric metric, boolean highest) {
+        int best = -1;
+        for (int point = 0; point < points.length; point++) {
+            if (best < 0) {
+                best = point;
+                continue;
+            }
+            float value = get(point, metric);
+            float current = get(best, metric);
+            if (highest ? value > current : value < current) best = point;
+        }
+        return best;
+    }
+
+    /**
+     * Una linea por punto: valores de los parametros y metricas, separados por '|'
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Parameter parameter : parameters) {
+            text.append(parameter).append('|');
+        }
+        for (Metric metric : Metric.values()) {
+            text.append(metric).append(metric.ordinal() < Metric.values().length - 1 ? "|" : "\n");
+        }
+        for (int point = 0; point < points.length; point++) {
+            for (double value : points[point]) {
+                text.append(value).append('|');
+            }
+            for (int m = 0; m < metrics[point].length; m++) {
+                text.append(String.format(Locale.ROOT, "%.4f", metrics[point][m]));
+                text.append(m < metrics[point].length - 1 ? "|" : "\n");
+            }
+        }
+        return text.toString();
+    }
+
+    double[] pointValues(int point) {
+        return points[point];
+    }
+
+    float[] pointMetrics(int point) {
+        return metrics[point];
+    }
+
+    private int column(Parameter parameter) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] == parameter) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Sweep %s: %d points x %d replicates, %d turns", scenario,
+            points.length, replicates, maxTurns);
+    }
+}
@@ -0,0 +1,221 @@
+package data;
+
+import model.SimulationParameters;
+import model.SimulationParameters.Parameter;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Data Access Object para los cubos de resultados de un barrido de
+ * parametros.
+ *
+ * Formato (big-endian):
+ * - Cabecera: magic, version, escenario, maxTurns, replicas, semilla, banderas
+ * - Parametros de base: cantidad y, por cada uno, nombre y valor
+ * - Nombres de los parametros variados y de las metricas
+ * - Puntos: cantidad y, por cada uno, los valores (double) y las metricas (float)
+ * - CRC32 de todo lo anterior
+ *
+ * Parametros y metricas se guardan por nombre, asi agregar otros no
+ * invalida los cubos ya guardados.
+ */
+public class SweepResultDAO {
+
+    private static final int MAGIC = 0x45535750; // "ESWP"
+    private static final short VERSION = 1;
+
+    private static final int FLAG_THIRD_SPECIES = 1;
+    private static final int FLAG_MUTATIONS = 2;
+
+    /**
+     * Guarda el cubo en un archivo temporal y luego reemplaza el destino
+     * @return true si se guardo exitosamente
+     */
+    public boolean save(SweepResultCube cube, String fileName) {
+        Path target = Paths.get(fileName);
+        Path temp = Paths.get(fileName + ".tmp");
+
+        try {
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), crc))) {
+
+                writeCube(out, cube);
+                out.flush();
+                out.writeLong(crc.getValue());
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("[DAO] Sweep results saved (" + cube.size() + " points) to " + fileName);
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to save sweep results: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Cubo leido o null si no se pudo cargar
+     */
+    public SweepResultCube load(String fileName) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+            CRC32 crc = new CRC32();
+            DataInputStream data = new DataInputStream(new CheckedInputStream(in, crc));
+            SweepResultCube cube = readCube(data);
+
+            long expected = crc.getValue();
+            long stored = new DataInputStream(in).readLong();
+            if (stored != expected) {
+                throw new IOException("Sweep results checksum mismatch");
+            }
+            return cube;
+
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to load sweep results: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCube(DataOutputStream out, SweepResultCube cube) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF(cube.scenario);
+        out.writeInt(cube.maxTurns);
+        out.writeInt(cube.replicates);
+        out.writeLong(cube.baseSeed);
+        int flags = 0;
+        if (cube.thirdSpecies) flags |= FLAG_THIRD_SPECIES;
+        if (cube.mutations) flags |= FLAG_MUTATIONS;
+        out.writeInt(flags);
+
+        Parameter[] all = Parameter.values();
+        out.writeInt(all.length);
+        for (Parameter parameter : all) {
+            out.writeUTF(parameter.name());
+            out.writeDouble(cube.baseParameters.get(parameter));
+        }
+
+        Parameter[] varied = cube.getParameters();
+        out.writeInt(varied.length);
+        for (Parameter parameter : varied) {
+            out.writeUTF(parameter.name());
+        }
+        SweepResultCube.Metric[] metrics = SweepResultCube.Metric.values();
+        out.writeInt(metrics.length);
+        for (SweepResultCube.Metric metric : metrics) {
+            out.writeUTF(metric.name());
+        }
+
+        out.writeInt(cube.size());
+        for (int point = 0; point < cube.size(); point++) {
+            for (double value : cube.pointValues(point)) {
+                out.writeDouble(value);
+            }
+            for (float value : cube.pointMetrics(point)) {
+                out.writeFloat(value);
+            }
+        }
+    }
+
+    private SweepResultCube readCube(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a sweep results file");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported sweep results version " + version);
+        }
+        String scenario = in.readUTF();
+        int maxTurns = in.readInt();
+        int replicates = in.readInt();
+        long seed = in.readLong();
+        int flags = in.readInt();
+
+        int baseCount = in.readInt();
+        List<Parameter> baseParameters = new ArrayList<>();
+        List<Double> baseValues = new ArrayList<>();
+        for (int i = 0; i < baseCount; i++) {
+            String name = in.readUTF();
+            double value = in.readDouble();
+            Parameter parameter = parameterByName(name);
+            // Un parametro que ya no existe no cambia nada
+            if (parameter != null) {
+                baseParameters.add(parameter);
+                baseValues.add(value);
+            }
+        }
+        SimulationParameters base = withValues(SimulationParameters.forScenario(scenario),
+                                               baseParameters, baseValues);
+
+        Parameter[] varied = new Parameter[in.readInt()];
+        for (int i = 0; i < varied.length; i++) {
+            String name = in.readUTF();
+            varied[i] = parameterByName(name);
+            if (varied[i] == null) {
+                throw new IOException("Unknown sweep parameter " + name);
+            }
+        }
+
+        // Columna del archivo de cada metrica actual; las que no se guardaron quedan en NaN
+        int storedMetrics = in.readInt();
+        SweepResultCube.Metric[] metrics = SweepResultCube.Metric.values();
+        int[] columns = new int[metrics.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < storedMetrics; i++) {
+            String name = in.readUTF();
+            for (SweepResultCube.Metric metric : metrics) {
+                if (metric.name().equals(name)) columns[metric.ordinal()] = i;
+            }
+        }
+
+        int size = in.readInt();
+        double[][] points = new double[size][varied.length];
+        float[][] values = new float[size][metrics.length];
+        float[] stored = new float[storedMetrics];
+        for (int point = 0; point < size; point++) {
+            for (int i = 0; i < varied.length; i++) {
+                points[point][i] = in.readDouble();
+            }
+            for (int i = 0; i < storedMetrics; i++) {
+                stored[i] = in.readFloat();
+            }
+            for (int m = 0; m < metrics.length; m++) {
+                values[point][m] = columns[m] >= 0 ? stored[columns[m]] : Float.NaN;
+            }
+        }
+
+        return new SweepResultCube(scenario, maxTurns, replicates, seed,
+            (flags & FLAG_THIRD_SPECIES) != 0, (flags & FLAG_MUTATIONS) != 0,
+            base, varied, points, values);
+    }
+
+    private static Parameter parameterByName(String name) {
+        for (Parameter parameter : Parameter.values()) {
+            if (parameter.name().equals(name)) return parameter;
+        }
+        return null;
+    }
+
+    private static SimulationParameters withValues(SimulationParameters base, List<Parameter> parameters,
+                                                   List<Double> values) throws IOException {
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        try {
+            return base.with(parameters.toArray(new Parameter[0]), array);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid base parameters: " + e.getMessage());
+        }
+    }
+}
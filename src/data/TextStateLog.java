@@ -0,0 +1,350 @@
+package data;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato de texto del registro de estados (estado_turnos.txt).
+ * Contiene el escritor y un lector de registros completos (con matriz),
+ * usado por los conversores y por las consultas que necesitan la matriz.
+ */
+public class TextStateLog {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Limite para volver al inicio de una linea (filas de matrices grandes)
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+
+    /**
+     * Abre un escritor que agrega al final del archivo
+     * @param fileName Archivo de texto
+     * @param bufferSize Tamaño del buffer en bytes
+     */
+    public static StateLogWriter openWriter(String fileName, int bufferSize) throws IOException {
+        FileOutputStream file = new FileOutputStream(fileName, true);
+        return new Writer(new BufferedWriter(
+            new OutputStreamWriter(file, StandardCharsets.UTF_8), bufferSize), file.getChannel());
+    }
+
+    /**
+     * Escribe el registro de texto de un turno
+     */
+    public static void writeTurn(BufferedWriter writer, TurnSnapshot snapshot) throws IOException {
+        // Linea de separacion de turno
+        writer.write("=== SIMULATION: " + snapshot.simulationId + " ===");
+        writer.newLine();
+
+        // Informacion del turno
+        writer.write("TURN: " + snapshot.turn);
+        writer.newLine();
+        writer.write("SCENARIO: " + snapshot.scenario);
+        writer.newLine();
+        writer.write("TIMESTAMP: " + formatTimestamp(snapshot.timestamp));
+        writer.newLine();
+
+        // Estadisticas
+        writer.write("PREYS: " + snapshot.preys);
+        writer.newLine();
+        writer.write("PREDATORS: " + snapshot.predators);
+        writer.newLine();
+        writer.write("EMPTY: " + snapshot.empty);
+        writer.newLine();
+        writer.write("EXTINCTION: " + snapshot.extinction);
+        writer.newLine();
+
+        // Matriz completa
+        writer.write("MATRIX:");
+        writer.newLine();
+        char[] row = new char[snapshot.size * 2 - 1];
+        for (int i = 0; i < snapshot.size; i++) {
+            for (int j = 0; j < snapshot.size; j++) {
+                row[j * 2] = TurnSnapshot.symbolOf(snapshot.getCell(i, j));
+                if (j < snapshot.size - 1) row[j * 2 + 1] = ',';
+            }
+            writer.write(row);
+            writer.newLine();
+        }
+
+        writer.write("--- END TURN ---");
+        writer.newLine();
+        writer.newLine();
+    }
+
+    /**
+     * Escribe el bloque de cierre de la simulacion
+     */
+    public static void writeFinal(BufferedWriter writer, FinalState state) throws IOException {
+        writer.write("╔═══════════════════════════════════════════╗");
+        writer.newLine();
+        writer.write("║         SIMULATION COMPLETED              ║");
+        writer.newLine();
+        writer.write("╚═══════════════════════════════════════════╝");
+        writer.newLine();
+        writer.write("SIMULATION ID: " + state.simulationId);
+        writer.newLine();
+        writer.write("TOTAL TURNS: " + state.totalTurns);
+        writer.newLine();
+        writer.write("FINAL PREYS: " + state.finalPreys);
+        writer.newLine();
+        writer.write("FINAL PREDATORS: " + state.finalPredators);
+        writer.newLine();
+        writer.write("EXTINCTION OCCURRED: " + state.extinction);
+        writer.newLine();
+        writer.write("RESULT: " + state.getResult());
+        writer.newLine();
+
+        writer.write("════════════════════════════════════════════");
+        writer.newLine();
+        writer.newLine();
+    }
+
+    /**
+     * Lee todos los registros (turnos con matriz y cierres) de un archivo de texto.
+     * Los registros incompletos o mal formados se descartan.
+     * @param reader Lector posicionado al inicio de un registro
+     * @param handler Receptor de los registros
+     */
+    public static void readRecords(BufferedReader reader, StateRecordHandler handler) throws IOException {
+        readRecords(reader, true, handler);
+    }
+    
+    /**
+     * Lee todos los registros de un archivo de texto.
+     * @param reader Lector posicionado al inicio de un registro
+     * @param includeCells Si es false las filas de la matriz no se decodifican
+     *                     (cells queda en null; los caimanes se cuentan igual)
+     * @param handler Receptor de los registros
+     */
+    public static void readRecords(BufferedReader reader, boolean includeCells,
+                                   StateRecordHandler handler) throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            try {
+                if (line.startsWith("=== SIMULATION: ")) {
+                    String id = line.substring("=== SIMULATION: ".length()).replace("===", "").trim();
+                    TurnSnapshot snapshot = readTurnBody(reader, id, includeCells);
+                    if (snapshot != null) {
+                        handler.onTurn(snapshot);
+                    }
+                } else if (line.startsWith("SIMULATION ID: ")) {
+                    FinalState state = readFinalBody(reader, valueOf(line));
+                    if (state != null) {
+                        handler.onFinal(state);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("[WARNING] Skipping malformed state record: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lee un turno completo (con matriz) desde su rango de bytes
+     * @param file Archivo de texto
+     * @param start Inicio del registro
+     * @param end Fin del registro
+     * @return Captura del turno, o null si el rango no tiene un turno completo
+     */
+    public static TurnSnapshot readTurnAt(Path file, long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) < 0) break;
+            }
+        }
+
+        TurnSnapshot[] found = new TurnSnapshot[1];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(bytes.array(), 0, bytes.position()), StandardCharsets.UTF_8))) {
+            readRecords(reader, new StateRecordHandler() {
+                @Override
+                public void onTurn(TurnSnapshot snapshot) {
+                    found[0] = snapshot;
+                }
+
+                @Override
+                public void onFinal(FinalState state) {
+                }
+            });
+        }
+        return found[0];
+    }
+
+    private static TurnSnapshot readTurnBody(BufferedReader reader, String simulationId,
+                                             boolean includeCells) throws IOException {
+        int turn = 0, preys = 0, predators = 0, empty = 0;
+        long timestamp = 0;
+        boolean extinction = false;
+        String scenario = "";
+        List<String> rows = new ArrayList<>();
+        int rowCount = 0;
+        int caimans = 0;
+        boolean inMatrix = false;
+        String line;
+
+        reader.mark(MAX_LINE_LENGTH);
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("=== SIMULATION:") || line.startsWith("SIMULATION ID:")) {
+                // Registro truncado: empieza otro sin haber terminado este
+                reader.reset();
+                return null;
+            } else if (line.startsWith("--- END TURN")) {
+                if (!includeCells) {
+                    return new TurnSnapshot(simulationId, scenario, turn, timestamp, preys,
+                                            predators, caimans, empty, extinction, rowCount, null);
+                }
+                return buildSnapshot(simulationId, scenario, turn, timestamp,
+                                     preys, predators, empty, extinction, rows);
+            } else if (inMatrix) {
+                rowCount++;
+                if (includeCells) {
+                    rows.add(line);
+                } else {
+                    // El conteo de caimanes no esta en la cabecera del registro
+                    caimans += countCaimans(line);
+                }
+            } else if (line.startsWith("TURN:")) {
+                turn = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("SCENARIO:")) {
+                scenario = valueOf(line);
+            } else if (line.startsWith("TIMESTAMP:")) {
+                timestamp = parseTimestamp(valueOf(line));
+            } else if (line.startsWith("PREYS:")) {
+                preys = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("PREDATORS:")) {
+                predators = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("EMPTY:")) {
+                empty = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("EXTINCTION:")) {
+                extinction = Boolean.parseBoolean(valueOf(line));
+            } else if (line.startsWith("MATRIX:")) {
+                inMatrix = true;
+            }
+            reader.mark(MAX_LINE_LENGTH);
+        }
+
+        return null; // Registro incompleto al final del archivo
+    }
+
+    private static int countCaimans(String row) {
+        int count = 0;
+        for (int k = 0; k < row.length(); k++) {
+            if (row.charAt(k) == 'C') count++;
+        }
+        return count;
+    }
+
+    private static TurnSnapshot buildSnapshot(String simulationId, String scenario, int turn,
+                                              long timestamp, int preys, int predators, int empty,
+                                              boolean extinction, List<String> rows) {
+        int size = rows.size();
+        byte[] cells = new byte[size * size];
+        int caimans = 0;
+
+        for (int i = 0; i < size; i++) {
+            String row = rows.get(i);
+            int column = 0;
+            for (int k = 0; k < row.length() && column < size; k++) {
+                char symbol = row.charAt(k);
+                if (symbol == ',') continue;
+                byte code = TurnSnapshot.codeOf(symbol);
+                if (code == TurnSnapshot.CAIMAN) caimans++;
+                cells[i * size + column++] = code;
+            }
+        }
+
+        return new TurnSnapshot(simulationId, scenario, turn, timestamp, preys, predators,
+                                caimans, empty, extinction, size, cells);
+    }
+
+    private static FinalState readFinalBody(BufferedReader reader, String simulationId)
+            throws IOException {
+        int totalTurns = 0, finalPreys = 0, finalPredators = 0;
+        boolean extinction = false;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("TOTAL TURNS:")) {
+                totalTurns = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("FINAL PREYS:")) {
+                finalPreys = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("FINAL PREDATORS:")) {
+                finalPredators = Integer.parseInt(valueOf(line));
+            } else if (line.startsWith("EXTINCTION OCCURRED:")) {
+                extinction = Boolean.parseBoolean(valueOf(line));
+            } else if (line.startsWith("RESULT:")) {
+                return new FinalState(simulationId, totalTurns, finalPreys, finalPredators, extinction);
+            }
+        }
+
+        return null;
+    }
+
+    private static String valueOf(String line) {
+        return line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    static String formatTimestamp(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault())
+            .format(TIMESTAMP_FORMAT);
+    }
+
+    static long parseTimestamp(String text) {
+        try {
+            return LocalDateTime.parse(text, TIMESTAMP_FORMAT)
+                .atZone(ZoneId.systemDefault()).toEpochSecond();
+        } catch (java.time.format.DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Escritor de texto que agrega registros al archivo
+     */
+    private static class Writer implements StateLogWriter {
+        private final BufferedWriter out;
+        private final FileChannel channel;
+
+        Writer(BufferedWriter out, FileChannel channel) {
+            this.out = out;
+            this.channel = channel;
+        }
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) throws IOException {
+            TextStateLog.writeTurn(out, snapshot);
+        }
+
+        @Override
+        public void writeFinal(FinalState state) throws IOException {
+            TextStateLog.writeFinal(out, state);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void force() throws IOException {
+            out.flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
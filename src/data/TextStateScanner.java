@@ -0,0 +1,387 @@
+package data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector rapido del formato de texto (estado_turnos.txt): mapea el archivo
+ * en memoria y recorre los bytes sin armar lineas ni Strings. Los enteros
+ * se leen en el lugar y las filas de la matriz se saltan (o solo se cuentan
+ * los caimanes), asi que sirve para indexar y leer conteos de archivos grandes.
+ *
+ * Solo entrega registros completos. Un registro cortado por el comienzo de
+ * otro se descarta; uno incompleto al final del rango queda sin leer.
+ * Para la matriz completa se usa TextStateLog.readRecords().
+ */
+public class TextStateScanner implements Closeable {
+
+    public static final int END = 0;
+    public static final int TURN = 1;
+    public static final int FINAL = 2;
+
+    // Resultados internos al leer un registro
+    private static final int INCOMPLETE = -1;
+    private static final int RESTART = -2;
+    private static final int MALFORMED = -3;
+
+    private static final byte[] SIMULATION_MARK = ascii("=== SIMULATION: ");
+    private static final byte[] END_TURN_MARK = ascii("--- END TURN");
+    private static final byte[] FINAL_MARK = "╔".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FINAL_END_MARK = "═".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TURN_KEY = ascii("TURN:");
+    private static final byte[] PREYS_KEY = ascii("PREYS:");
+    private static final byte[] PREDATORS_KEY = ascii("PREDATORS:");
+    private static final byte[] EMPTY_KEY = ascii("EMPTY:");
+    private static final byte[] EXTINCTION_KEY = ascii("EXTINCTION:");
+    private static final byte[] MATRIX_KEY = ascii("MATRIX:");
+    private static final byte[] SIMULATION_ID_KEY = ascii("SIMULATION ID:");
+    private static final byte[] TOTAL_TURNS_KEY = ascii("TOTAL TURNS:");
+    private static final byte[] FINAL_PREYS_KEY = ascii("FINAL PREYS:");
+    private static final byte[] FINAL_PREDATORS_KEY = ascii("FINAL PREDATORS:");
+    private static final byte[] EXTINCTION_OCCURRED_KEY = ascii("EXTINCTION OCCURRED:");
+    private static final byte[] TRUE = ascii("true");
+
+    // Tamaño de la ventana mapeada; crece si un registro no entra
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long regionEnd;
+    private final boolean countCaimans;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long windowSize = WINDOW_SIZE;
+    private long position;
+
+    // ID del ultimo registro (bytes en el archivo) y su String, que se reusa
+    private long idStart;
+    private long idEnd;
+    private byte[] cachedIdBytes;
+    private String cachedId;
+    private boolean malformed;
+
+    // Campos del ultimo registro leido
+    public long recordStart;
+    public long recordEnd;     // incluye las lineas en blanco que lo siguen
+    public int turn;
+    public int preys;
+    public int predators;
+    public int caimans;        // solo si se cuentan
+    public int empty;
+    public boolean extinction;
+    public int size;           // filas de la matriz
+    public int totalTurns;
+    public int finalPreys;
+    public int finalPredators;
+
+    /**
+     * @param file Archivo de texto
+     * @param from Primer byte a leer (inicio de un registro o de una linea)
+     * @param to Fin del rango (exclusivo)
+     * @param countCaimans Si es false las filas de la matriz no se recorren
+     */
+    public TextStateScanner(Path file, long from, long to, boolean countCaimans) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.regionEnd = Math.min(to, channel.size());
+        this.countCaimans = countCaimans;
+        this.position = from;
+        this.windowStart = from;
+        this.windowEnd = from;
+    }
+
+    /**
+     * Todo el archivo
+     */
+    public TextStateScanner(Path file, boolean countCaimans) throws IOException {
+        this(file, 0, Long.MAX_VALUE, countCaimans);
+    }
+
+    /**
+     * Avanza al proximo registro completo
+     * @return TURN, FINAL o END si no quedan registros completos
+     */
+    public int next() throws IOException {
+        while (true) {
+            long eol = findEol(position);
+            if (eol < 0) {
+                if (remap(position)) continue;
+                return END;
+            }
+
+            int type = 0;
+            if (startsWith(position, SIMULATION_MARK)) {
+                type = TURN;
+            } else if (startsWith(position, FINAL_MARK)) {
+                type = FINAL;
+            }
+            if (type == 0) {
+                position = eol + 1; // Linea en blanco o suelta entre registros
+                continue;
+            }
+
+            long start = position;
+            int result = type == TURN ? readTurn(start, eol) : readFinal(eol);
+            if (result == INCOMPLETE) {
+                // Registro partido por el fin de la ventana: se vuelve a mapear desde su inicio
+                if (remap(start)) continue;
+                position = start;
+                return END;
+            }
+            if (result == RESTART) {
+                continue; // position quedo en el registro siguiente
+            }
+            if (result == MALFORMED) {
+                System.err.println("[WARNING] Skipping malformed state record at byte " + start);
+                continue;
+            }
+            recordStart = start;
+            return type;
+        }
+    }
+
+    /**
+     * Posicion siguiente al ultimo registro completo leido
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * ID de la simulacion del ultimo registro. Solo crea un String nuevo
+     * cuando cambia respecto del registro anterior.
+     */
+    public String simulationId() {
+        int length = (int) (idEnd - idStart);
+        if (cachedIdBytes != null && cachedIdBytes.length == length) {
+            boolean same = true;
+            for (int i = 0; i < length && same; i++) {
+                same = cachedIdBytes[i] == at(idStart + i);
+            }
+            if (same) return cachedId;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = at(idStart + i);
+        }
+        cachedIdBytes = bytes;
+        cachedId = new String(bytes, StandardCharsets.UTF_8);
+        return cachedId;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    // Registros
+
+    private int readTurn(long start, long markerEol) {
+        // "=== SIMULATION: <id> ==="
+        long end = contentEnd(start, markerEol);
+        long idFrom = start + SIMULATION_MARK.length;
+        end = trimEnd(idFrom, end);
+        if (end - idFrom >= 3 && at(end - 1) == '=' && at(end - 2) == '=' && at(end - 3) == '=') {
+            end = trimEnd(idFrom, end - 3);
+        }
+        idStart = trimStart(idFrom, end);
+        idEnd = end;
+
+        turn = preys = predators = caimans = empty = size = 0;
+        extinction = false;
+        malformed = false;
+        boolean inMatrix = false;
+        long rowLength = -1;
+        long p = markerEol + 1;
+
+        while (true) {
+            long eol = -1;
+            if (inMatrix && rowLength > 0) {
+                // Filas del mismo largo: se salta directo al fin de linea
+                long guess = p + rowLength;
+                if (guess < windowEnd && at(guess) == '\n') eol = guess;
+            }
+            if (eol < 0) eol = findEol(p);
+            if (eol < 0) return INCOMPLETE;
+
+            byte first = eol > p ? at(p) : 0;
+            if (first == '=' && startsWith(p, SIMULATION_MARK) ||
+                first == FINAL_MARK[0] && startsWith(p, FINAL_MARK)) {
+                position = p; // Registro truncado
+                return RESTART;
+            }
+            if (first == '-' && startsWith(p, END_TURN_MARK)) {
+                position = skipBlankLines(eol + 1);
+                recordEnd = position;
+                return malformed ? MALFORMED : TURN;
+            }
+
+            if (inMatrix) {
+                size++;
+                rowLength = eol - p;
+                if (countCaimans) {
+                    for (long i = p; i < eol; i++) {
+                        if (at(i) == 'C') caimans++;
+                    }
+                }
+            } else if (startsWith(p, TURN_KEY)) {
+                turn = parseInt(p + TURN_KEY.length, eol);
+            } else if (startsWith(p, PREYS_KEY)) {
+                preys = parseInt(p + PREYS_KEY.length, eol);
+            } else if (startsWith(p, PREDATORS_KEY)) {
+                predators = parseInt(p + PREDATORS_KEY.length, eol);
+            } else if (startsWith(p, EMPTY_KEY)) {
+                empty = parseInt(p + EMPTY_KEY.length, eol);
+            } else if (startsWith(p, EXTINCTION_KEY)) {
+                extinction = startsWith(trimStart(p + EXTINCTION_KEY.length, eol), TRUE);
+            } else if (startsWith(p, MATRIX_KEY)) {
+                inMatrix = true;
+            }
+            p = eol + 1;
+        }
+    }
+
+    private int readFinal(long markerEol) {
+        totalTurns = finalPreys = finalPredators = 0;
+        extinction = false;
+        malformed = false;
+        boolean hasId = false;
+        long p = markerEol + 1;
+
+        while (true) {
+            long eol = findEol(p);
+            if (eol < 0) return INCOMPLETE;
+
+            if (startsWith(p, SIMULATION_MARK)) {
+                position = p;
+                return RESTART;
+            }
+            if (startsWith(p, FINAL_END_MARK)) {
+                position = skipBlankLines(eol + 1);
+                if (!hasId) return RESTART; // Cierre sin ID: no se puede asignar
+                recordEnd = position;
+                return malformed ? MALFORMED : FINAL;
+            }
+
+            if (startsWith(p, SIMULATION_ID_KEY)) {
+                long end = trimEnd(p, contentEnd(p, eol));
+                idStart = trimStart(p + SIMULATION_ID_KEY.length, end);
+                idEnd = end;
+                hasId = true;
+            } else if (startsWith(p, TOTAL_TURNS_KEY)) {
+                totalTurns = parseInt(p + TOTAL_TURNS_KEY.length, eol);
+            } else if (startsWith(p, FINAL_PREYS_KEY)) {
+                finalPreys = parseInt(p + FINAL_PREYS_KEY.length, eol);
+            } else if (startsWith(p, FINAL_PREDATORS_KEY)) {
+                finalPredators = parseInt(p + FINAL_PREDATORS_KEY.length, eol);
+            } else if (startsWith(p, EXTINCTION_OCCURRED_KEY)) {
+                extinction = startsWith(trimStart(p + EXTINCTION_OCCURRED_KEY.length, eol), TRUE);
+            }
+            p = eol + 1;
+        }
+    }
+
+    // Bytes
+
+    /**
+     * Entero decimal entre from y el fin de linea, ignorando espacios
+     */
+    private int parseInt(long from, long eol) {
+        long p = trimStart(from, eol);
+        long end = trimEnd(p, contentEnd(p, eol));
+        boolean negative = p < end && at(p) == '-';
+        if (negative) p++;
+        if (p >= end) {
+            malformed = true;
+            return 0;
+        }
+
+        int value = 0;
+        for (; p < end; p++) {
+            int digit = at(p) - '0';
+            if (digit < 0 || digit > 9) {
+                malformed = true;
+                return 0;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private long skipBlankLines(long p) {
+        while (p < windowEnd) {
+            long next = at(p) == '\n' ? p + 1 :
+                        p + 1 < windowEnd && at(p) == '\r' && at(p + 1) == '\n' ? p + 2 : -1;
+            if (next < 0) break;
+            p = next;
+        }
+        return p;
+    }
+
+    private long findEol(long p) {
+        for (long i = p; i < windowEnd; i++) {
+            if (at(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Fin del contenido de una linea, sin el '\r' de Windows
+     */
+    private long contentEnd(long p, long eol) {
+        return eol > p && at(eol - 1) == '\r' ? eol - 1 : eol;
+    }
+
+    private long trimStart(long p, long end) {
+        while (p < end && at(p) == ' ') p++;
+        return p;
+    }
+
+    private long trimEnd(long start, long end) {
+        while (end > start && (at(end - 1) == ' ' || at(end - 1) == '\r')) end--;
+        return end;
+    }
+
+    private boolean startsWith(long p, byte[] prefix) {
+        if (p + prefix.length > windowEnd) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (at(p + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private byte at(long p) {
+        return window.get((int) (p - windowStart));
+    }
+
+    /**
+     * Mapea una ventana que empieza en from. Si from ya es el inicio de la
+     * ventana actual, la agranda (un registro mas largo que la ventana).
+     * @return false si no queda nada mas por mapear
+     */
+    private boolean remap(long from) throws IOException {
+        if (windowEnd >= regionEnd) return false;
+        if (window != null && from == windowStart) {
+            windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+        }
+
+        long length = Math.min(windowSize, regionEnd - from);
+        if (window != null && from == windowStart && from + length == windowEnd) {
+            return false; // Ya no puede crecer
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        windowStart = from;
+        windowEnd = from + length;
+        return true;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,258 @@
+package data;
+
+import model.Ecosystem;
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Series de conteos por turno guardadas por columnas: un directorio por
+ * simulacion (series/&lt;id&gt;/) con un archivo de enteros de 32 bits por
+ * metrica (preys.i32, predators.i32, ...). Cada turno agrega un entero a
+ * cada columna, asi una serie se lee como int[] o IntBuffer sin parsear
+ * el registro de estados.
+ *
+ * Si el programa se corta entre columnas, las filas validas son las de la
+ * columna mas corta; al reabrir la simulacion se recortan las demas.
+ */
+public class TimeSeriesStore {
+
+    private static final String COLUMN_SUFFIX = ".i32";
+    private static final String ID_FILE = "id.txt";
+
+    /**
+     * Columnas de la serie, en el orden de las filas de append()
+     */
+    public enum Metric {
+        TURN,
+        PREYS,
+        PREDATORS,
+        CAIMANS,
+        EMPTY,
+        BIRTHS,
+        DEATHS,
+        HUNTS,
+        MUTATIONS;
+
+        String fileName() {
+            return name().toLowerCase() + COLUMN_SUFFIX;
+        }
+    }
+
+    private final Path directory;
+
+    /**
+     * @param directory Directorio de las series
+     */
+    public TimeSeriesStore(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Fila con los conteos y eventos del ultimo turno del ecosistema
+     */
+    public static int[] capture(Ecosystem ecosystem) {
+        int[] row = new int[Metric.values().length];
+        row[Metric.TURN.ordinal()] = ecosystem.getCurrentTurn();
+        row[Metric.PREYS.ordinal()] = ecosystem.countPreys();
+        row[Metric.PREDATORS.ordinal()] = ecosystem.countPredators();
+        row[Metric.CAIMANS.ordinal()] = ecosystem.countCaimans();
+        row[Metric.EMPTY.ordinal()] = ecosystem.countEmptyCells();
+        row[Metric.BIRTHS.ordinal()] = ecosystem.getTurnBirths();
+        row[Metric.DEATHS.ordinal()] = ecosystem.getTurnDeaths();
+        row[Metric.HUNTS.ordinal()] = ecosystem.getTurnHunts();
+        row[Metric.MUTATIONS.ordinal()] = ecosystem.getTurnMutations();
+        return row;
+    }
+
+    /**
+     * Abre un escritor que agrega filas a la serie de una simulacion
+     * @param bufferSize Tamaño del buffer de cada columna en bytes
+     */
+    public Writer openWriter(String simulationId, int bufferSize) throws IOException {
+        Path simDirectory = simulationDirectory(simulationId);
+        Files.createDirectories(simDirectory);
+        Path idFile = simDirectory.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.write(idFile, simulationId.getBytes(StandardCharsets.UTF_8));
+        }
+        return new Writer(simDirectory, bufferSize);
+    }
+
+    /**
+     * Cantidad de turnos completos guardados (0 si no hay serie)
+     */
+    public int rowCount(String simulationId) {
+        return rowCount(simulationDirectory(simulationId));
+    }
+
+    /**
+     * Lee una columna completa
+     */
+    public int[] readColumn(String simulationId, Metric metric) throws IOException {
+        Path simDirectory = simulationDirectory(simulationId);
+        int rows = rowCount(simDirectory);
+        int[] values = new int[rows];
+        if (rows == 0) return values;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(simDirectory.resolve(metric.fileName())), 64 * 1024))) {
+            for (int i = 0; i < rows; i++) {
+                values[i] = in.readInt();
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Mapea una columna en memoria (solo lectura), sin copiarla.
+     * Conviene para series largas; el mapeo dura hasta que el buffer se libera.
+     */
+    public IntBuffer mapColumn(String simulationId, Metric metric) throws IOException {
+        Path simDirectory = simulationDirectory(simulationId);
+        int rows = rowCount(simDirectory);
+        if (rows == 0) return IntBuffer.allocate(0);
+
+        try (FileChannel channel = FileChannel.open(simDirectory.resolve(metric.fileName()),
+                StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) rows * Integer.BYTES)
+                          .asIntBuffer();
+        }
+    }
+
+    /**
+     * IDs de las simulaciones con serie guardada
+     */
+    public List<String> listSimulations() throws IOException {
+        List<String> ids = new ArrayList<>();
+        File[] dirs = directory.toFile().listFiles(File::isDirectory);
+        if (dirs == null) return ids;
+
+        for (File dir : dirs) {
+            Path idFile = dir.toPath().resolve(ID_FILE);
+            if (Files.exists(idFile)) {
+                ids.add(new String(Files.readAllBytes(idFile), StandardCharsets.UTF_8));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Borra la serie de una simulacion
+     */
+    public boolean delete(String simulationId) {
+        return deleteDirectory(simulationDirectory(simulationId).toFile());
+    }
+
+    /**
+     * Borra todas las series
+     */
+    public boolean clear() {
+        File[] dirs = directory.toFile().listFiles(File::isDirectory);
+        boolean cleared = true;
+        if (dirs != null) {
+            for (File dir : dirs) {
+                cleared &= deleteDirectory(dir);
+            }
+        }
+        return cleared;
+    }
+
+    // Archivos
+
+    /**
+     * Directorio seguro a partir del ID de la simulacion
+     */
+    private Path simulationDirectory(String simulationId) {
+        return directory.resolve(simulationId.replaceAll("[^A-Za-z0-9._@-]", "_"));
+    }
+
+    private static int rowCount(Path simDirectory) {
+        long rows = Long.MAX_VALUE;
+        for (Metric metric : Metric.values()) {
+            File column = simDirectory.resolve(metric.fileName()).toFile();
+            rows = Math.min(rows, column.length() / Integer.BYTES);
+        }
+        return (int) rows;
+    }
+
+    private static boolean deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return !dir.exists();
+
+        boolean deleted = true;
+        for (File file : files) {
+            deleted &= file.delete();
+        }
+        return deleted & dir.delete();
+    }
+
+    /**
+     * Escritor de una simulacion: un flujo con buffer por columna
+     */
+    public static class Writer implements Closeable {
+
+        private final DataOutputStream[] columns;
+
+        private Writer(Path simDirectory, int bufferSize) throws IOException {
+            Metric[] metrics = Metric.values();
+            int rows = rowCount(simDirectory);
+            int columnBuffer = Math.max(512, bufferSize / metrics.length);
+            this.columns = new DataOutputStream[metrics.length];
+
+            try {
+                for (Metric metric : metrics) {
+                    File file = simDirectory.resolve(metric.fileName()).toFile();
+                    // Descartar filas a medio escribir antes de seguir agregando
+                    if (file.length() > (long) rows * Integer.BYTES) {
+                        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                            raf.setLength((long) rows * Integer.BYTES);
+                        }
+                    }
+                    columns[metric.ordinal()] = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(file, true), columnBuffer));
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Agrega un turno
+         * @param row Un valor por metrica, en el orden de Metric
+         */
+        public void append(int[] row) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].writeInt(row[i]);
+            }
+        }
+
+        public void flush() throws IOException {
+            for (DataOutputStream column : columns) {
+                column.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (DataOutputStream column : columns) {
+                if (column == null) continue;
+                try {
+                    column.close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+}
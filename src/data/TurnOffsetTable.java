@@ -0,0 +1,90 @@
+package data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Posicion de cada turno de una simulacion en los archivos de texto
+ * (archivo y rango de bytes del registro), para leer un turno con su
+ * matriz sin recorrer los anteriores. Se completa de forma incremental:
+ * recuerda hasta donde recorrio y solo lee lo agregado despues.
+ */
+class TurnOffsetTable {
+
+    private int count;
+    private int[] turns = new int[64];
+    private int[] files = new int[64];
+    private long[] starts = new long[64];
+    private long[] ends = new long[64];
+    private boolean sorted = true;
+
+    // Hasta donde se recorrio: numero de archivo (segmento) y byte
+    int coveredFile;
+    long coveredPosition;
+
+    /**
+     * Agrega los turnos completos de un rango de un archivo
+     * @param fileIndex Numero de archivo que se guarda con cada turno
+     */
+    void scan(Path file, int fileIndex, long from, long to) throws IOException {
+        try (TextStateScanner scanner = new TextStateScanner(file, from, to, false)) {
+            int type;
+            while ((type = scanner.next()) != TextStateScanner.END) {
+                if (type == TextStateScanner.TURN) {
+                    add(scanner.turn, fileIndex, scanner.recordStart, scanner.recordEnd);
+                }
+            }
+            coveredFile = fileIndex;
+            coveredPosition = scanner.getPosition();
+        }
+    }
+
+    private void add(int turn, int file, long start, long end) {
+        if (count == turns.length) {
+            int capacity = count * 2;
+            turns = Arrays.copyOf(turns, capacity);
+            files = Arrays.copyOf(files, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        if (count > 0 && turn <= turns[count - 1]) {
+            sorted = false;
+        }
+        turns[count] = turn;
+        files[count] = file;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * Posicion del turno en la tabla, o -1 si no esta
+     */
+    int indexOf(int turn) {
+        if (sorted) {
+            int found = Arrays.binarySearch(turns, 0, count, turn);
+            return found >= 0 ? found : -1;
+        }
+        for (int i = 0; i < count; i++) {
+            if (turns[i] == turn) return i;
+        }
+        return -1;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int fileAt(int index) {
+        return files[index];
+    }
+
+    long startAt(int index) {
+        return starts[index];
+    }
+
+    long endAt(int index) {
+        return ends[index];
+    }
+}
@@ -0,0 +1,120 @@
+package data;
+
+import model.Animal;
+import model.Caiman;
+import model.Ecosystem;
+import model.Predator;
+import model.Prey;
+import java.time.Instant;
+
+/**
+ * Captura inmutable de un turno tal como se guarda en el registro de estados.
+ * Las celdas se guardan como codigos de especie en orden fila por fila,
+ * independientes del formato (texto o binario) en que se escriban.
+ */
+public class TurnSnapshot {
+    
+    // Codigos de celda
+    public static final byte EMPTY = 0;
+    public static final byte PREY = 1;
+    public static final byte PREDATOR = 2;
+    public static final byte CAIMAN = 3;
+    
+    public final String simulationId;
+    public final String scenario;
+    public final int turn;
+    public final long timestamp; // segundos desde epoch
+    public final int preys;
+    public final int predators;
+    public final int caimans;
+    public final int empty;
+    public final boolean extinction;
+    public final int size;
+    public final byte[] cells;
+    
+    public TurnSnapshot(String simulationId, String scenario, int turn, long timestamp,
+                        int preys, int predators, int caimans, int empty,
+                        boolean extinction, int size, byte[] cells) {
+        this.simulationId = simulationId;
+        this.scenario = scenario;
+        this.turn = turn;
+        this.timestamp = timestamp;
+        this.preys = preys;
+        this.predators = predators;
+        this.caimans = caimans;
+        this.empty = empty;
+        this.extinction = extinction;
+        this.size = size;
+        this.cells = cells;
+    }
+    
+    /**
+     * Captura el estado actual de un ecosistema
+     * @param simulationId ID de la simulacion
+     * @param ecosystem Ecosistema actual
+     * @return Captura del turno
+     */
+    public static TurnSnapshot capture(String simulationId, Ecosystem ecosystem) {
+        Animal[][] matrix = ecosystem.getMatrix();
+        int size = matrix.length;
+        byte[] cells = new byte[size * size];
+        
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cells[i * size + j] = codeOf(matrix[i][j]);
+            }
+        }
+        
+        return new TurnSnapshot(simulationId, ecosystem.getScenario(), ecosystem.getCurrentTurn(),
+            Instant.now().getEpochSecond(), ecosystem.countPreys(), ecosystem.countPredators(),
+            ecosystem.countCaimans(), ecosystem.countEmptyCells(), ecosystem.hasExtinction(),
+            size, cells);
+    }
+    
+    /**
+     * Codigo de celda para un animal (o null)
+     */
+    public static byte codeOf(Animal animal) {
+        if (animal == null) return EMPTY;
+        if (animal instanceof Prey) return PREY;
+        if (animal instanceof Predator) return PREDATOR;
+        if (animal instanceof Caiman) return CAIMAN;
+        return EMPTY;
+    }
+    
+    /**
+     * Simbolo usado en el formato de texto (E, P, D, C)
+     */
+    public static char symbolOf(byte code) {
+        switch (code) {
+            case PREY:
+                return 'P';
+            case PREDATOR:
+                return 'D';
+            case CAIMAN:
+                return 'C';
+            default:
+                return 'E';
+        }
+    }
+    
+    /**
+     * Codigo de celda a partir del simbolo del formato de texto
+     */
+    public static byte codeOf(char symbol) {
+        switch (symbol) {
+            case 'P':
+                return PREY;
+            case 'D':
+                return PREDATOR;
+            case 'C':
+                return CAIMAN;
+            default:
+                return EMPTY;
+        }
+    }
+    
+    public byte getCell(int row, int column) {
+        return cells[row * size + column];
+    }
+}
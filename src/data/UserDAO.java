@@ -2,214 +2,283 @@ package data;
 
 import model.User;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Data Access Object para la gestión de usuarios en archivo.
  * Maneja lectura y escritura en usuarios.txt
+ *
+ * Los usuarios se cargan una vez y quedan indexados por cédula y por
+ * correo (en minúsculas). El archivo solo crece: una actualización agrega
+ * la línea completa del usuario (gana la última) y un borrado agrega una
+ * lápida "-|cédula". Cuando las líneas obsoletas superan a las vigentes,
+ * un hilo en segundo plano reescribe el archivo y lo reemplaza de forma
+ * atómica. Si el archivo cambia por fuera, se vuelve a cargar.
  */
-public class UserDAO {
-    
+public class UserDAO implements UserRepository {
+
     private static final String USERS_FILE = "usuarios.txt";
-    
+    // Prefijo de la línea que marca un usuario borrado
+    private static final String TOMBSTONE = "-|";
+    // Líneas obsoletas mínimas para compactar en segundo plano
+    private static final int COMPACT_MIN_OBSOLETE = 1000;
+
+    // Usuarios vigentes en orden de registro e índice por correo
+    private final Map<Integer, User> byId = new LinkedHashMap<>();
+    private final Map<String, User> byEmail = new HashMap<>();
+    private boolean loaded;
+    // Líneas del archivo (vigentes + obsoletas)
+    private int fileRecords;
+    // Tamaño y fecha del archivo después de la última lectura o escritura propia
+    private long knownLength = -1;
+    private long knownModified;
+    private boolean compacting;
+    // Una compactación por vez (se toma antes que el lock del DAO)
+    private final Object compactLock = new Object();
+
     /**
      * Guarda un nuevo usuario en el archivo
      * @param user Usuario a guardar
      * @return true si se guardó exitosamente
      */
-    public boolean saveUser(User user) {
-        try (BufferedWriter writer = new BufferedWriter(
-                new FileWriter(USERS_FILE, true))) {
-            
-            writer.write(user.toFileFormat());
-            writer.newLine();
-            
-            System.out.println("[OK] User saved: " + user.getName());
-            return true;
-            
-        } catch (IOException e) {
-            System.err.println("[ERROR] Failed to save user: " + e.getMessage());
-            return false;
-        }
+    @Override
+    public synchronized boolean saveUser(User user) {
+        refresh();
+        if (!append(user.toFileFormat())) return false;
+
+        index(copy(user));
+        System.out.println("[OK] User saved: " + user.getName());
+        return true;
     }
-    
+
     /**
      * Carga todos los usuarios del archivo
      * @return Lista de usuarios
      */
-    public List<User> loadUsers() {
-        List<User> users = new ArrayList<>();
-        
-        File file = new File(USERS_FILE);
-        if (!file.exists()) {
-            System.out.println("Archivo de usuarios no existe. Se creará al guardar el primer usuario.");
-            return users;
+    @Override
+    public synchronized List<User> loadUsers() {
+        refresh();
+        List<User> users = new ArrayList<>(byId.size());
+        for (User user : byId.values()) {
+            users.add(copy(user));
         }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    try {
-                        User user = User.fromFileFormat(line);
-                        users.add(user);
-                    } catch (Exception e) {
-                        System.err.println("Error al parsear línea: " + line);
-                    }
-                }
-            }
-            
-            System.out.println("Cargados " + users.size() + " usuarios");
-            
-        } catch (IOException e) {
-            System.err.println("Error al cargar usuarios: " + e.getMessage());
-        }
-        
         return users;
     }
-    
+
     /**
      * Busca un usuario por cédula
      * @param idNumber Cédula a buscar
      * @return Usuario encontrado o null
      */
-    public User findByIdNumber(int idNumber) {
-        List<User> users = loadUsers();
-        
-        for (User user : users) {
-            if (user.getIdNumber() == idNumber) {
-                return user;
-            }
-        }
-        
-        return null;
+    @Override
+    public synchronized User findByIdNumber(int idNumber) {
+        refresh();
+        User user = byId.get(idNumber);
+        return user != null ? copy(user) : null;
     }
-    
+
     /**
      * Busca un usuario por correo electrónico
      * @param email Correo a buscar
      * @return Usuario encontrado o null
      */
-    public User findByEmail(String email) {
-        List<User> users = loadUsers();
-        
-        for (User user : users) {
-            if (user.getEmail().equalsIgnoreCase(email)) {
-                return user;
-            }
-        }
-        
-        return null;
+    @Override
+    public synchronized User findByEmail(String email) {
+        refresh();
+        User user = byEmail.get(emailKey(email));
+        return user != null ? copy(user) : null;
     }
-    
+
     /**
      * Verifica si una cédula ya está registrada
      * @param idNumber Cédula a verificar
      * @return true si ya existe
      */
-    public boolean existsIdNumber(int idNumber) {
-        return findByIdNumber(idNumber) != null;
+    @Override
+    public synchronized boolean existsIdNumber(int idNumber) {
+        refresh();
+        return byId.containsKey(idNumber);
     }
-    
+
     /**
      * Verifica si un correo ya está registrado
      * @param email Correo a verificar
      * @return true si ya existe
      */
-    public boolean existsEmail(String email) {
-        return findByEmail(email) != null;
+    @Override
+    public synchronized boolean existsEmail(String email) {
+        refresh();
+        return byEmail.containsKey(emailKey(email));
     }
-    
+
     /**
      * Valida credenciales de inicio de sesión
      * @param idNumber Cédula del usuario
      * @param passwordHash Hash de la contraseña
      * @return Usuario si las credenciales son correctas, null si no
      */
+    @Override
     public User validateCredentials(int idNumber, String passwordHash) {
         User user = findByIdNumber(idNumber);
-        
+
         if (user != null && user.getPasswordHash().equals(passwordHash)) {
             System.out.println(":) Login exitoso: " + user.getName());
             return user;
         }
-        
+
         System.out.println(":( Credenciales inválidas");
         return null;
     }
-    
+
     /**
-     * Actualiza la información de un usuario en el archivo
+     * Actualiza la información de un usuario: agrega su línea completa al
+     * final del archivo, que reemplaza a las anteriores al cargar
      * @param updatedUser Usuario con información actualizada
-     * @return true si se actualizó exitosamente
-     */
-    public boolean updateUser(User updatedUser) {
-        List<User> users = loadUsers();
-        boolean found = false;
-        
-        // Busca y actualiza el usuario
-        for (int i = 0; i < users.size(); i++) {
-            if (users.get(i).getIdNumber() == updatedUser.getIdNumber()) {
-                users.set(i, updatedUser);
-                found = true;
-                break;
-            }
-        }
-        
-        if (!found) {
+     * @return true si se actualizó exitosamente; false si no existe o si
+     *         el correo nuevo pertenece a otro usuario
+     */
+    @Override
+    public synchronized boolean updateUser(User updatedUser) {
+        refresh();
+        if (!byId.containsKey(updatedUser.getIdNumber())) {
             System.err.println("Usuario no encontrado para actualizar");
             return false;
         }
-        
-        // Reescribe el archivo completo
-        return rewriteFile(users);
+        User owner = byEmail.get(emailKey(updatedUser.getEmail()));
+        if (owner != null && owner.getIdNumber() != updatedUser.getIdNumber()) {
+            System.err.println("El correo ya pertenece a otro usuario");
+            return false;
+        }
+
+        if (!append(updatedUser.toFileFormat())) return false;
+        index(copy(updatedUser));
+        compactIfNeeded();
+        return true;
     }
-    
+
     /**
-     * Elimina un usuario del archivo
+     * Elimina un usuario agregando una lápida al final del archivo
      * @param idNumber Cédula del usuario a eliminar
      * @return true si se eliminó exitosamente
      */
-    public boolean deleteUser(int idNumber) {
-        List<User> users = loadUsers();
-        boolean deleted = users.removeIf(u -> u.getIdNumber() == idNumber);
-        
-        if (deleted) {
-            return rewriteFile(users);
+    @Override
+    public synchronized boolean deleteUser(int idNumber) {
+        refresh();
+        if (!byId.containsKey(idNumber)) {
+            System.err.println("Usuario no encontrado para eliminar");
+            return false;
         }
-        
-        System.err.println("Usuario no encontrado para eliminar");
-        return false;
+
+        if (!append(TOMBSTONE + idNumber)) return false;
+        unindex(idNumber);
+        compactIfNeeded();
+        return true;
     }
-    
+
     /**
-     * Reescribe el archivo completo con la lista de usuarios
-     * @param users Lista de usuarios
-     * @return true si se reescribió exitosamente
+     * Reescribe el archivo solo con los usuarios vigentes y lo reemplaza
+     * de forma atómica. Las líneas agregadas mientras se escribía se
+     * copian al final antes de reemplazarlo.
+     * @return true si se compactó exitosamente
      */
-    private boolean rewriteFile(List<User> users) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(USERS_FILE))) {
-            
-            for (User user : users) {
-                writer.write(user.toFileFormat());
-                writer.newLine();
+    public boolean compact() {
+        synchronized (compactLock) {
+            return rewrite();
+        }
+    }
+
+    private boolean rewrite() {
+        List<String> lines = new ArrayList<>();
+        long snapshotLength;
+        synchronized (this) {
+            refresh();
+            for (User user : byId.values()) {
+                lines.add(user.toFileFormat());
+            }
+            snapshotLength = knownLength;
+        }
+
+        Path target = Path.of(USERS_FILE);
+        Path temp = Path.of(USERS_FILE + ".tmp");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp.toFile()))) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+
+            synchronized (this) {
+                long length = new File(USERS_FILE).length();
+                if (length < snapshotLength || !matchesKnown()) {
+                    // Cambió por fuera: se descarta esta compactación
+                    Files.deleteIfExists(temp);
+                    return false;
+                }
+                int appended = copyTail(snapshotLength, length, temp);
+
+                try (FileOutputStream out = new FileOutputStream(temp.toFile(), true)) {
+                    out.getChannel().force(true);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                               StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+                fileRecords = lines.size() + appended;
+                remember();
+                System.out.println("Archivo de usuarios compactado: " + lines.size() + " usuarios");
+                return true;
             }
-            
-            System.out.println("Archivo actualizado correctamente");
-            return true;
-            
         } catch (IOException e) {
-            System.err.println("Error al reescribir archivo: " + e.getMessage());
+            System.err.println("Error al compactar archivo: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // El temporal se sobrescribe en la próxima compactación
+            }
             return false;
         }
     }
-    
+
+    /**
+     * Lanza la compactación en segundo plano si las líneas obsoletas
+     * superan a las vigentes
+     */
+    private void compactIfNeeded() {
+        int obsolete = fileRecords - byId.size();
+        if (compacting || obsolete < COMPACT_MIN_OBSOLETE || obsolete <= byId.size()) return;
+
+        compacting = true;
+        Thread worker = new Thread(() -> {
+            try {
+                compact();
+            } finally {
+                synchronized (this) {
+                    compacting = false;
+                }
+            }
+        }, "user-compaction");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     /**
      * Limpia el archivo de usuarios (para pruebas)
      * @return true si se limpió exitosamente
      */
-    public boolean clearFile() {
+    public synchronized boolean clearFile() {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(USERS_FILE))) {
             writer.write("");
             System.out.println("Archivo de usuarios limpiado");
@@ -217,6 +286,137 @@ public class UserDAO {
         } catch (IOException e) {
             System.err.println("Error al limpiar archivo: " + e.getMessage());
             return false;
+        } finally {
+            reset();
         }
     }
-}
\ No newline at end of file
+
+    // Índices en memoria
+
+    /**
+     * Carga el archivo si todavía no se cargó o si cambió por fuera
+     */
+    private void refresh() {
+        if (loaded && matchesKnown()) return;
+
+        reset();
+        loaded = true;
+
+        File file = new File(USERS_FILE);
+        if (!file.exists()) {
+            System.out.println("Archivo de usuarios no existe. Se creará al guardar el primer usuario.");
+            remember();
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                fileRecords++;
+                try {
+                    if (line.startsWith(TOMBSTONE)) {
+                        unindex(Integer.parseInt(line.substring(TOMBSTONE.length()).trim()));
+                    } else {
+                        index(User.fromFileFormat(line));
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error al parsear línea: " + line);
+                }
+            }
+
+            System.out.println("Cargados " + byId.size() + " usuarios");
+
+        } catch (IOException e) {
+            System.err.println("Error al cargar usuarios: " + e.getMessage());
+        }
+        remember();
+    }
+
+    private void index(User user) {
+        User previous = byId.put(user.getIdNumber(), user);
+        if (previous != null) {
+            // Solo si el correo sigue siendo suyo
+            byEmail.remove(emailKey(previous.getEmail()), previous);
+        }
+        byEmail.put(emailKey(user.getEmail()), user);
+    }
+
+    private void unindex(int idNumber) {
+        User removed = byId.remove(idNumber);
+        if (removed != null) {
+            byEmail.remove(emailKey(removed.getEmail()), removed);
+        }
+    }
+
+    private void reset() {
+        byId.clear();
+        byEmail.clear();
+        fileRecords = 0;
+        loaded = false;
+        knownLength = -1;
+    }
+
+    /**
+     * Agrega una línea al final del archivo
+     */
+    private boolean append(String line) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(USERS_FILE, true))) {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            System.err.println("Error al escribir archivo: " + e.getMessage());
+            return false;
+        }
+        fileRecords++;
+        remember();
+        return true;
+    }
+
+    /**
+     * Copia al temporal las líneas agregadas durante la compactación
+     * @return Líneas copiadas
+     */
+    private int copyTail(long from, long to, Path temp) throws IOException {
+        if (to <= from) return 0;
+
+        byte[] bytes = new byte[(int) (to - from)];
+        try (RandomAccessFile in = new RandomAccessFile(USERS_FILE, "r")) {
+            in.seek(from);
+            in.readFully(bytes);
+        }
+        try (FileOutputStream out = new FileOutputStream(temp.toFile(), true)) {
+            out.write(bytes);
+        }
+
+        int lines = 0;
+        for (byte b : bytes) {
+            if (b == '\n') lines++;
+        }
+        return lines;
+    }
+
+    private boolean matchesKnown() {
+        File file = new File(USERS_FILE);
+        long length = file.exists() ? file.length() : 0;
+        return length == knownLength && file.lastModified() == knownModified;
+    }
+
+    private void remember() {
+        File file = new File(USERS_FILE);
+        knownLength = file.exists() ? file.length() : 0;
+        knownModified = file.lastModified();
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? "" : email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Copia para que los cambios del llamador no alteren los índices
+     */
+    private static User copy(User user) {
+        return new User(user.getIdNumber(), user.getName(), user.getBirthDate(),
+                        user.getGender(), user.getPasswordHash(), user.getEmail());
+    }
+}
@@ -0,0 +1,52 @@
+package data;
+
+import model.User;
+import java.util.List;
+
+/**
+ * Almacenamiento de usuarios. UserDAO lo implementa sobre usuarios.txt y
+ * KeyValueUserRepository sobre el almacen clave-valor; RepositoryFactory
+ * elige segun la configuracion.
+ */
+public interface UserRepository {
+
+    /**
+     * Guarda un nuevo usuario
+     * @return true si se guardó exitosamente
+     */
+    boolean saveUser(User user);
+
+    /**
+     * Todos los usuarios
+     */
+    List<User> loadUsers();
+
+    /**
+     * @return Usuario con esa cédula o null
+     */
+    User findByIdNumber(int idNumber);
+
+    /**
+     * @return Usuario con ese correo (sin distinguir mayúsculas) o null
+     */
+    User findByEmail(String email);
+
+    boolean existsIdNumber(int idNumber);
+
+    boolean existsEmail(String email);
+
+    /**
+     * @return Usuario si las credenciales son correctas, null si no
+     */
+    User validateCredentials(int idNumber, String passwordHash);
+
+    /**
+     * @return true si se actualizó exitosamente
+     */
+    boolean updateUser(User updatedUser);
+
+    /**
+     * @return true si se eliminó exitosamente
+     */
+    boolean deleteUser(int idNumber);
+}
@@ -35,9 +35,10 @@ public abstract class Animal {
     
     /**
      * Método abstracto para verificar si puede reproducirse
+     * @param parameters Parámetros de la simulación
      * @return true si cumple condiciones de reproducción
      */
-    public abstract boolean canReproduce();
+    public abstract boolean canReproduce(SimulationParameters parameters);
     
     /**
      * Método abstracto para crear descendencia
@@ -91,6 +92,16 @@ public abstract class Animal {
         return turnsSurvived;
     }
     
+    /**
+     * Restaura los contadores de edad y hambre (usado al cargar un checkpoint)
+     * @param turnsWithoutEating Turnos sin comer
+     * @param turnsSurvived Turnos sobrevividos
+     */
+    public void restoreCounters(int turnsWithoutEating, int turnsSurvived) {
+        this.turnsWithoutEating = turnsWithoutEating;
+        this.turnsSurvived = turnsSurvived;
+    }
+    
     public boolean isAlive() {
         return alive;
     }
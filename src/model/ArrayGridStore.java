@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Almacenamiento clásico fila por fila (Animal[][]).
+ */
+public class ArrayGridStore implements GridStore {
+    
+    private final Animal[][] cells;
+    
+    public ArrayGridStore(int size) {
+        this.cells = new Animal[size][size];
+    }
+    
+    @Override
+    public Animal get(int row, int column) {
+        return cells[row][column];
+    }
+    
+    @Override
+    public void set(int row, int column, Animal animal) {
+        cells[row][column] = animal;
+    }
+    
+    @Override
+    public int getSize() {
+        return cells.length;
+    }
+    
+    @Override
+    public Layout getLayout() {
+        return Layout.ROW_MAJOR;
+    }
+    
+    @Override
+    public Animal[][] toMatrix() {
+        return cells;
+    }
+}
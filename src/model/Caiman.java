@@ -2,7 +2,6 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Clase Caiman - Tercera especie depredadora.
@@ -11,8 +10,6 @@ import java.util.Random;
  */
 public class Caiman extends Animal {
     
-    private static final Random random = new Random();
-    private static final int MAX_TURNS_WITHOUT_EATING = 4; // Más resistente que depredadores
     private int lastTurnAte;
     
     public Caiman(Position position) {
@@ -28,7 +25,7 @@ public class Caiman extends Animal {
         List<Position> potentialPrey = getAdjacentAnimals(ecosystem);
         
         if (!potentialPrey.isEmpty()) {
-            Position preyPosition = potentialPrey.get(random.nextInt(potentialPrey.size()));
+            Position preyPosition = potentialPrey.get(ecosystem.getRandom().nextInt(potentialPrey.size()));
             hunt(ecosystem, preyPosition);
             return;
         }
@@ -37,12 +34,12 @@ public class Caiman extends Animal {
         List<Position> emptyCells = getAdjacentEmptyCells(ecosystem);
         
         if (!emptyCells.isEmpty()) {
-            Position newPosition = emptyCells.get(random.nextInt(emptyCells.size()));
+            Position newPosition = emptyCells.get(ecosystem.getRandom().nextInt(emptyCells.size()));
             ecosystem.moveAnimal(this, newPosition);
-            System.out.println("[CAIMAN] Moved from " + this.position + " to " + newPosition);
+            ecosystem.log("[CAIMAN] Moved from " + this.position + " to " + newPosition);
             this.position = newPosition;
         } else {
-            System.out.println("[CAIMAN] At " + this.position + " has no available cells");
+            ecosystem.log("[CAIMAN] At " + this.position + " has no available cells");
         }
     }
     
@@ -52,9 +49,10 @@ public class Caiman extends Animal {
         if (prey != null && prey.isAlive()) {
             prey.die();
             ecosystem.removeAnimal(preyPosition);
+            ecosystem.recordHunt();
             
             ecosystem.moveAnimal(this, preyPosition);
-            System.out.println("[CAIMAN] Hunted " + prey.getType() + " at " + preyPosition);
+            ecosystem.log("[CAIMAN] Hunted " + prey.getType() + " at " + preyPosition);
             this.position = preyPosition;
             
             resetTurnsWithoutEating();
@@ -63,18 +61,17 @@ public class Caiman extends Animal {
     }
     
     @Override
-    public boolean canReproduce() {
+    public boolean canReproduce(SimulationParameters parameters) {
         if (!alive) return false;
-        return turnsWithoutEating == 0 && turnsSurvived >= 4;
+        return turnsWithoutEating == 0 && turnsSurvived >= parameters.caimanReproductionAge;
     }
     
-    public boolean shouldDieFromHunger() {
-        return turnsWithoutEating >= MAX_TURNS_WITHOUT_EATING;
+    public boolean shouldDieFromHunger(SimulationParameters parameters) {
+        return turnsWithoutEating >= parameters.caimanMaxTurnsWithoutEating;
     }
     
     @Override
     public Animal reproduce(Position position) {
-        System.out.println("[CAIMAN] Reproduced at " + position);
         return new Caiman(position);
     }
     
@@ -87,7 +84,7 @@ public class Caiman extends Animal {
             int newColumn = position.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid()) {
+            if (ecosystem.isInside(newPos)) {
                 Animal animal = ecosystem.getAnimal(newPos);
                 // Puede comer tanto presas como depredadores
                 if (animal != null && animal.isAlive() && !(animal instanceof Caiman)) {
@@ -108,7 +105,7 @@ public class Caiman extends Animal {
             int newColumn = position.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid() && ecosystem.isEmpty(newPos)) {
+            if (ecosystem.isInside(newPos) && ecosystem.isEmpty(newPos)) {
                 emptyCells.add(newPos);
             }
         }
@@ -116,6 +113,17 @@ public class Caiman extends Animal {
         return emptyCells;
     }
     
+    public int getLastTurnAte() {
+        return lastTurnAte;
+    }
+    
+    /**
+     * Restaura el último turno en que comió (usado al cargar un checkpoint)
+     */
+    public void restoreFeedingState(int lastTurnAte) {
+        this.lastTurnAte = lastTurnAte;
+    }
+    
     @Override
     public String toString() {
         return "CAIMAN " + super.toString() + ", Turns without eating: " + turnsWithoutEating;
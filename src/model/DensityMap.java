@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * Mapa de densidad local mantenido de forma incremental.
+ * Para cada celda guarda cuántas celdas ocupadas hay en su ventana de
+ * radio R (recortada en los bordes). Cada cambio de ocupación actualiza
+ * (2R+1)² entradas y la consulta por celda es O(1).
+ */
+public class DensityMap {
+
+    private final int size;
+    private final int radius;
+    private final int[] occupied;
+
+    /**
+     * Crea un mapa vacío
+     * @param size Lado de la matriz
+     * @param radius Radio de la ventana de vecindad
+     */
+    public DensityMap(int size, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Density radius must be >= 0");
+        }
+        this.size = size;
+        this.radius = radius;
+        this.occupied = new int[size * size];
+    }
+
+    /**
+     * Registra que una celda pasó a estar ocupada (+1) o vacía (-1)
+     */
+    public void update(int row, int column, int delta) {
+        int r1 = Math.max(0, row - radius), r2 = Math.min(size - 1, row + radius);
+        int c1 = Math.max(0, column - radius), c2 = Math.min(size - 1, column + radius);
+
+        for (int i = r1; i <= r2; i++) {
+            int base = i * size;
+            for (int j = c1; j <= c2; j++) {
+                occupied[base + j] += delta;
+            }
+        }
+    }
+
+    /**
+     * Celdas ocupadas en la ventana centrada en la celda
+     */
+    public int getOccupied(int row, int column) {
+        return occupied[row * size + column];
+    }
+
+    /**
+     * Fracción ocupada de la ventana centrada en la celda (0 a 1)
+     */
+    public double getOccupationRate(int row, int column) {
+        int rows = Math.min(size - 1, row + radius) - Math.max(0, row - radius) + 1;
+        int columns = Math.min(size - 1, column + radius) - Math.max(0, column - radius) + 1;
+        return getOccupied(row, column) / (double) (rows * columns);
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+}
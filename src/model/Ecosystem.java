@@ -1,8 +1,8 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Clase Ecosystem extendida con soporte para:
@@ -11,25 +11,65 @@ import java.util.Random;
  */
 public class Ecosystem {
     
-    private static final int SIZE = 10;
-    private Animal[][] matrix;
+    /**
+     * Cómo se mide la sobrepoblación de las presas
+     * - GLOBAL: ocupación de toda la matriz (regla original)
+     * - LOCAL: ocupación de la ventana de radio R alrededor de la presa
+     */
+    public enum OverpopulationMode {
+        GLOBAL,
+        LOCAL
+    }
+    
+    private static final int DEFAULT_SIZE = 10;
+    private static final int DEFAULT_DENSITY_RADIUS = 2;
+    private int size;
+    private GridStore grid;
+    private RegionIndex regionIndex;
+    private DensityMap densityMap;
+    private OverpopulationMode overpopulationMode = OverpopulationMode.GLOBAL;
+    private int densityRadius = DEFAULT_DENSITY_RADIUS;
     private int currentTurn;
     private int maxTurns;
     private String scenario;
     private List<Animal> aliveAnimals;
-    private Random random;
+    private SimulationRandom random;
+    private SimulationParameters parameters;
     
     // Nuevas propiedades
     private boolean terceraEspecieActiva = false;
     private boolean mutacionesActivas = false;
+    // Mensajes de cada turno y de cada animal; los análisis los apagan
+    private boolean verbose = true;
+    
+    // Eventos del último turno ejecutado
+    private int turnBirths;
+    private int turnDeaths;
+    private int turnHunts;
+    private int turnMutations;
     
     public Ecosystem(int maxTurns, String scenario) {
-        this.matrix = new Animal[SIZE][SIZE];
+        this.size = DEFAULT_SIZE;
+        this.grid = GridStore.create(GridStore.Layout.ROW_MAJOR, size);
+        this.regionIndex = new RegionIndex(size);
+        this.densityMap = createDensityMap();
         this.currentTurn = 0;
         this.maxTurns = maxTurns;
         this.scenario = scenario;
         this.aliveAnimals = new ArrayList<>();
-        this.random = new Random();
+        this.random = new SimulationRandom();
+        this.parameters = SimulationParameters.forScenario(scenario);
+    }
+    
+    /**
+     * Constructor con semilla fija para simulaciones reproducibles
+     * @param maxTurns Número máximo de turnos
+     * @param scenario Escenario inicial
+     * @param seed Semilla del generador aleatorio
+     */
+    public Ecosystem(int maxTurns, String scenario, long seed) {
+        this(maxTurns, scenario);
+        this.random = new SimulationRandom(seed);
     }
     
     /**
@@ -46,31 +86,94 @@ public class Ecosystem {
         this.mutacionesActivas = activas;
     }
     
+    /**
+     * Activa o apaga los mensajes por consola de la simulación
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+    
+    public boolean isVerbose() {
+        return verbose;
+    }
+    
+    /**
+     * Mensaje de la simulación (eventos de los animales, turnos y estadísticas)
+     */
+    void log(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+    
+    /**
+     * Reemplaza los parámetros del escenario y de las reglas.
+     * Las poblaciones iniciales solo se usan si se llama antes de initialize().
+     */
+    public void setParameters(SimulationParameters parameters) {
+        this.parameters = parameters;
+    }
+    
+    public SimulationParameters getParameters() {
+        return parameters;
+    }
+    
+    /**
+     * Configura el tamaño y la distribución en memoria de la matriz.
+     * Debe llamarse antes de initialize(). Las poblaciones iniciales
+     * se escalan con el área para conservar la densidad del escenario.
+     * @param size Lado de la matriz cuadrada
+     * @param layout Distribución de las celdas en memoria
+     */
+    public void configureGrid(int size, GridStore.Layout layout) {
+        this.size = size;
+        this.grid = GridStore.create(layout, size);
+        this.regionIndex = new RegionIndex(size);
+        this.densityMap = createDensityMap();
+    }
+    
+    /**
+     * Configura la regla de sobrepoblación de las presas (por defecto
+     * GLOBAL, la regla original). En modo LOCAL el mapa de densidad se reconstruye con el nuevo radio.
+     * @param mode GLOBAL (regla original) o LOCAL
+     * @param radius Radio de la ventana para el modo LOCAL
+     */
+    public void setOverpopulationMode(OverpopulationMode mode, int radius) {
+        this.overpopulationMode = mode;
+        this.densityRadius = radius;
+        this.densityMap = createDensityMap();
+        
+        if (densityMap != null) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    if (grid.get(i, j) != null) {
+                        densityMap.update(i, j, 1);
+                    }
+                }
+            }
+        }
+    }
+    
+    private DensityMap createDensityMap() {
+        return overpopulationMode == OverpopulationMode.LOCAL 
+            ? new DensityMap(size, densityRadius) : null;
+    }
+    
     public void initialize() {
-        int numPreys = 0;
-        int numPredators = 0;
-        int numCaimans = 0;
+        int numPreys = parameters.initialPreys;
+        int numPredators = parameters.initialPredators;
+        int numCaimans = terceraEspecieActiva ? parameters.initialCaimans : 0;
+        
+        // Escalar con el área (10x10 conserva los valores originales)
+        double areaScale = (size * (double) size) / (DEFAULT_SIZE * DEFAULT_SIZE);
+        numPreys = (int) Math.round(numPreys * areaScale);
+        numPredators = (int) Math.round(numPredators * areaScale);
+        numCaimans = (int) Math.round(numCaimans * areaScale);
         
-        switch (scenario) {
-            case "BALANCED":
-                numPreys = 30;
-                numPredators = 20;
-                numCaimans = terceraEspecieActiva ? 3 : 0;
-                break;
-            case "PREDATORS_DOM":
-                numPreys = 15;
-                numPredators = 35;
-                numCaimans = terceraEspecieActiva ? 5 : 0;
-                break;
-            case "PREYS_DOM":
-                numPreys = 35;
-                numPredators = 15;
-                numCaimans = terceraEspecieActiva ? 2 : 0;
-                break;
-            default:
-                numPreys = 30;
-                numPredators = 20;
-                numCaimans = terceraEspecieActiva ? 3 : 0;
+        int cells = size * size;
+        if (numPreys + numPredators + numCaimans > cells) {
+            throw new IllegalArgumentException("Initial populations (" + (numPreys + numPredators + numCaimans) +
+                                               ") exceed the " + cells + " cells of the grid");
         }
         
         placeAnimalsRandomly(numPreys, "PREY");
@@ -85,20 +188,26 @@ public class Ecosystem {
             applyInitialMutations();
         }
         
-        System.out.println(">>> Ecosystem initialized - Scenario: " + scenario);
-        System.out.println("    Preys: " + numPreys + " | Predators: " + numPredators + 
+        log(">>> Ecosystem initialized - Scenario: " + scenario);
+        log("    Preys: " + numPreys + " | Predators: " + numPredators + 
                           (terceraEspecieActiva ? " | Caimans: " + numCaimans : ""));
         if (mutacionesActivas) {
-            System.out.println("    Genetic mutations: ENABLED");
+            log("    Genetic mutations: ENABLED");
         }
     }
     
     private void placeAnimalsRandomly(int quantity, String type) {
+        // Con más animales que celdas libres el muestreo no terminaría nunca
+        int emptyCells = countEmptyCells();
+        if (quantity > emptyCells) {
+            throw new IllegalArgumentException("Cannot place " + quantity + " " + type + " in " +
+                                               emptyCells + " empty cells");
+        }
         int placed = 0;
         
         while (placed < quantity) {
-            int row = random.nextInt(SIZE);
-            int column = random.nextInt(SIZE);
+            int row = random.nextInt(size);
+            int column = random.nextInt(size);
             Position pos = new Position(row, column);
             
             if (isEmpty(pos)) {
@@ -117,7 +226,7 @@ public class Ecosystem {
                         continue;
                 }
                 
-                matrix[row][column] = animal;
+                setCell(row, column, animal);
                 aliveAnimals.add(animal);
                 placed++;
             }
@@ -144,13 +253,25 @@ public class Ecosystem {
     String effect = mutation == -1 ? "SLOWER reproduction" : 
                    (mutation == 1 ? "FASTER reproduction" : "NO CHANGE");
     
-    System.out.println("[MUTATION] Applied to " + animal.getType() + 
+    log("[MUTATION] Applied to " + animal.getType() + 
                       " at " + animal.getPosition() + ": " + effect);
+    turnMutations++;
     }
     
     public String executeTurn() {
         currentTurn++;
-        System.out.println("\n--- Executing Turn " + currentTurn + " ---");
+        log("\n--- Executing Turn " + currentTurn + " ---");
+        
+        turnBirths = 0;
+        turnHunts = 0;
+        turnMutations = 0;
+        int aliveBefore = countAlive();
+        
+        // En distribución Morton se procesa en el mismo orden Z que la memoria
+        if (grid.getLayout() == GridStore.Layout.MORTON) {
+            aliveAnimals.sort(Comparator.comparingInt(a -> MortonGridStore.mortonIndex(
+                a.getPosition().getRow(), a.getPosition().getColumn())));
+        }
         
         // 1. MOVIMIENTO
         List<Animal> animalsToMove = new ArrayList<>(aliveAnimals);
@@ -172,20 +293,20 @@ public class Ecosystem {
                 Predator predator = (Predator) animal;
                 predator.incrementTurnsWithoutEating();
                 
-                if (predator.shouldDieFromHunger()) {
-                    System.out.println("[DEATH] Predator died of hunger at " + predator.getPosition());
+                if (predator.shouldDieFromHunger(parameters)) {
+                    log("[DEATH] Predator died of hunger at " + predator.getPosition());
                     predator.die();
-                    matrix[predator.getPosition().getRow()][predator.getPosition().getColumn()] = null;
+                    setCell(predator.getPosition().getRow(), predator.getPosition().getColumn(), null);
                     animalsToRemove.add(predator);
                 }
             } else if (animal instanceof Caiman) {
                 Caiman caiman = (Caiman) animal;
                 caiman.incrementTurnsWithoutEating();
                 
-                if (caiman.shouldDieFromHunger()) {
-                    System.out.println("[DEATH] Caiman died of hunger at " + caiman.getPosition());
+                if (caiman.shouldDieFromHunger(parameters)) {
+                    log("[DEATH] Caiman died of hunger at " + caiman.getPosition());
                     caiman.die();
-                    matrix[caiman.getPosition().getRow()][caiman.getPosition().getColumn()] = null;
+                    setCell(caiman.getPosition().getRow(), caiman.getPosition().getColumn(), null);
                     animalsToRemove.add(caiman);
                 }
             }
@@ -198,11 +319,12 @@ public class Ecosystem {
             if (animal.isAlive()) {
                 animal.incrementTurnsSurvived();
                 
-                if (animal.canReproduce()) {
+                if (animal.canReproduce(parameters)) {
                     Position emptyCell = findAdjacentEmptyCell(animal.getPosition());
                     if (emptyCell != null) {
                         Animal offspring = animal.reproduce(emptyCell);
-                        matrix[emptyCell.getRow()][emptyCell.getColumn()] = offspring;
+                        log("[" + animal.getType() + "] Reproduced at " + emptyCell);
+                        setCell(emptyCell.getRow(), emptyCell.getColumn(), offspring);
                         newAnimals.add(offspring);
                         
                         // Aplicar mutación al descendiente si está activo
@@ -214,6 +336,9 @@ public class Ecosystem {
             }
         }
         aliveAnimals.addAll(newAnimals);
+        turnBirths = newAnimals.size();
+        // Hambre, caza y muertes de presas dentro de move()
+        turnDeaths = aliveBefore + turnBirths - countAlive();
         
         return generateTurnState();
     }
@@ -227,7 +352,7 @@ public class Ecosystem {
             int newColumn = pos.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid() && isEmpty(newPos)) {
+            if (isInside(newPos) && isEmpty(newPos)) {
                 emptyPositions.add(newPos);
             }
         }
@@ -248,27 +373,52 @@ public class Ecosystem {
             terceraEspecieActiva ? caimans : null, emptyCells
         );
         
-        System.out.println("[STATS] " + state);
+        log("[STATS] " + state);
         return state;
     }
     
     // Métodos auxiliares
     
+    /**
+     * Único punto de escritura en la matriz: mantiene el índice de regiones
+     * al día en cada movimiento, nacimiento y muerte.
+     */
+    private void setCell(int row, int column, Animal animal) {
+        Animal previous = grid.get(row, column);
+        if (previous != null) {
+            regionIndex.remove(previous, row, column);
+        }
+        grid.set(row, column, animal);
+        if (animal != null) {
+            regionIndex.add(animal, row, column);
+        }
+        if (densityMap != null && (previous == null) != (animal == null)) {
+            densityMap.update(row, column, animal != null ? 1 : -1);
+        }
+    }
+    
+    /**
+     * Verifica si una posición está dentro de la matriz de este ecosistema
+     */
+    public boolean isInside(Position pos) {
+        return pos.isValid(size);
+    }
+    
     public boolean isEmpty(Position pos) {
-        return matrix[pos.getRow()][pos.getColumn()] == null;
+        return grid.get(pos.getRow(), pos.getColumn()) == null;
     }
     
     public Animal getAnimal(Position pos) {
-        return matrix[pos.getRow()][pos.getColumn()];
+        return grid.get(pos.getRow(), pos.getColumn());
     }
     
     public void removeAnimal(Position pos) {
-        matrix[pos.getRow()][pos.getColumn()] = null;
+        setCell(pos.getRow(), pos.getColumn(), null);
     }
     
     public void moveAnimal(Animal animal, Position newPos) {
-        matrix[animal.getPosition().getRow()][animal.getPosition().getColumn()] = null;
-        matrix[newPos.getRow()][newPos.getColumn()] = animal;
+        setCell(animal.getPosition().getRow(), animal.getPosition().getColumn(), null);
+        setCell(newPos.getRow(), newPos.getColumn(), animal);
     }
     
     public int countPreys() {
@@ -289,13 +439,80 @@ public class Ecosystem {
             .count();
     }
     
+    private int countAlive() {
+        return (int) aliveAnimals.stream()
+            .filter(Animal::isAlive)
+            .count();
+    }
+    
+    /**
+     * Registra una caza del turno en curso (lo llaman Predator y Caiman)
+     */
+    public void recordHunt() {
+        turnHunts++;
+    }
+    
+    // Eventos del último turno ejecutado (en el turno 0, las mutaciones iniciales)
+    
+    public int getTurnBirths() {
+        return turnBirths;
+    }
+    
+    public int getTurnDeaths() {
+        return turnDeaths;
+    }
+    
+    public int getTurnHunts() {
+        return turnHunts;
+    }
+    
+    public int getTurnMutations() {
+        return turnMutations;
+    }
+    
     public int countEmptyCells() {
-        int empty = 0;
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (matrix[i][j] == null) empty++;
-            }
+        return size * size - regionIndex.totalOccupied();
+    }
+    
+    /**
+     * Tasa de ocupación que perciben las presas en una posición, en O(1).
+     * Según el modo es la de toda la matriz o la de su vecindad.
+     * @param pos Posición de la presa
+     * @return Fracción ocupada (0 a 1)
+     */
+    public double getOccupationRate(Position pos) {
+        if (overpopulationMode == OverpopulationMode.LOCAL) {
+            return densityMap.getOccupationRate(pos.getRow(), pos.getColumn());
         }
+        int totalCells = size * size;
+        return (totalCells - countEmptyCells()) / (double) totalCells;
+    }
+    
+    // Consultas por región (límites inclusivos, se recortan a la matriz)
+    
+    /**
+     * Cuenta animales de un tipo dentro de un rectángulo en O(log² n)
+     * @param type Tipo de animal ("PREY", "PREDATOR" o "CAIMAN")
+     * @return Cantidad de animales del tipo en la región
+     */
+    public int countInRegion(String type, int fromRow, int fromColumn, int toRow, int toColumn) {
+        return regionIndex.count(type, fromRow, fromColumn, toRow, toColumn);
+    }
+    
+    /**
+     * Cuenta celdas vacías dentro de un rectángulo en O(log² n)
+     */
+    public int countEmptyInRegion(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return regionIndex.countEmpty(fromRow, fromColumn, toRow, toColumn);
+    }
+    
+    /**
+     * Lista las celdas vacías de un rectángulo sin recorrer las zonas llenas
+     * @return Posiciones vacías dentro de la región
+     */
+    public List<Position> getEmptyCellsInRegion(int fromRow, int fromColumn, int toRow, int toColumn) {
+        List<Position> empty = new ArrayList<>();
+        regionIndex.collectEmpty(fromRow, fromColumn, toRow, toColumn, empty);
         return empty;
     }
     
@@ -308,10 +525,35 @@ public class Ecosystem {
         return preys == 0 || (predators == 0 && caimans == 0);
     }
     
+    /**
+     * Restaura el estado completo desde un checkpoint.
+     * Se conserva el orden de la lista de animales (incluidos los muertos que
+     * aún no se han retirado) para que la secuencia de turnos sea idéntica.
+     * @param currentTurn Turno en que se tomó el checkpoint
+     * @param animals Animales en el orden de procesamiento original
+     * @param placed Animales que ocupan una celda de la matriz
+     * @param randomState Estado del generador aleatorio
+     */
+    public void restoreState(int currentTurn, List<Animal> animals, 
+                             List<Animal> placed, long randomState) {
+        this.grid = GridStore.create(grid.getLayout(), size);
+        this.regionIndex = new RegionIndex(size);
+        this.densityMap = createDensityMap();
+        for (Animal animal : placed) {
+            setCell(animal.getPosition().getRow(), animal.getPosition().getColumn(), animal);
+        }
+        this.aliveAnimals = new ArrayList<>(animals);
+        this.currentTurn = currentTurn;
+        this.random.setState(randomState);
+    }
+    
     // Getters
     
+    /**
+     * Matriz de animales. En distribución MORTON es una copia.
+     */
     public Animal[][] getMatrix() {
-        return matrix;
+        return grid.toMatrix();
     }
     
     public int getCurrentTurn() {
@@ -337,4 +579,27 @@ public class Ecosystem {
     public boolean isMutacionesActivas() {
         return mutacionesActivas;
     }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public GridStore.Layout getGridLayout() {
+        return grid.getLayout();
+    }
+    
+    public OverpopulationMode getOverpopulationMode() {
+        return overpopulationMode;
+    }
+    
+    public int getDensityRadius() {
+        return densityRadius;
+    }
+    
+    /**
+     * Generador aleatorio compartido por el ecosistema y sus animales
+     */
+    public SimulationRandom getRandom() {
+        return random;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * Almacenamiento de las celdas del ecosistema.
+ * Permite cambiar la distribución en memoria de la matriz sin tocar
+ * las reglas de los animales.
+ */
+public interface GridStore {
+    
+    /**
+     * Distribuciones disponibles
+     * - ROW_MAJOR: Animal[][] clásico, una fila por arreglo
+     * - MORTON: arreglo plano en orden Z, vecinos 2D cercanos en memoria
+     */
+    enum Layout {
+        ROW_MAJOR,
+        MORTON
+    }
+    
+    /**
+     * Crea un almacenamiento vacío con la distribución indicada
+     * @param layout Distribución en memoria
+     * @param size Lado de la matriz cuadrada
+     * @return Almacenamiento vacío
+     */
+    static GridStore create(Layout layout, int size) {
+        return layout == Layout.MORTON ? new MortonGridStore(size) : new ArrayGridStore(size);
+    }
+    
+    Animal get(int row, int column);
+    
+    void set(int row, int column, Animal animal);
+    
+    int getSize();
+    
+    Layout getLayout();
+    
+    /**
+     * Vista de la matriz como Animal[][].
+     * En ROW_MAJOR es el arreglo interno; en MORTON es una copia.
+     */
+    Animal[][] toMatrix();
+}
@@ -0,0 +1,71 @@
+package model;
+
+/**
+ * Almacenamiento plano en orden Z (Morton).
+ * Las coordenadas se intercalan bit a bit, así que un vecindario 2D
+ * (radio 1 o 2) cae en unos pocos bloques contiguos del arreglo en lugar
+ * de tocar 3 a 5 arreglos de fila distintos. El lado se redondea a la
+ * siguiente potencia de 2; las celdas sobrantes nunca se usan.
+ */
+public class MortonGridStore implements GridStore {
+    
+    private final int size;
+    private final Animal[] cells;
+    
+    public MortonGridStore(int size) {
+        if (size > 32768) {
+            throw new IllegalArgumentException("Morton layout supports up to 32768 cells per side");
+        }
+        this.size = size;
+        int side = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.cells = new Animal[side * side];
+    }
+    
+    /**
+     * Índice Z de una celda: bits de la columna en posiciones pares
+     * y bits de la fila en posiciones impares.
+     */
+    public static int mortonIndex(int row, int column) {
+        return spreadBits(column) | (spreadBits(row) << 1);
+    }
+    
+    private static int spreadBits(int value) {
+        int x = value & 0xFFFF;
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        return x;
+    }
+    
+    @Override
+    public Animal get(int row, int column) {
+        return cells[mortonIndex(row, column)];
+    }
+    
+    @Override
+    public void set(int row, int column, Animal animal) {
+        cells[mortonIndex(row, column)] = animal;
+    }
+    
+    @Override
+    public int getSize() {
+        return size;
+    }
+    
+    @Override
+    public Layout getLayout() {
+        return Layout.MORTON;
+    }
+    
+    @Override
+    public Animal[][] toMatrix() {
+        Animal[][] matrix = new Animal[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                matrix[i][j] = get(i, j);
+            }
+        }
+        return matrix;
+    }
+}
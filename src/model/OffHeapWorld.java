@@ -0,0 +1,473 @@
+package model;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copia del mundo fuera del heap usando la Foreign Function & Memory API.
+ * La matriz y los atributos de los animales se guardan en un solo MemorySegment
+ * (estructura de arreglos), util para guardar o trasladar mundos grandes.
+ *
+ * Es una instantanea, no el almacenamiento de la simulacion: Ecosystem sigue
+ * simulando sobre su GridStore y sus objetos Animal en el heap, asi que
+ * usarla no reduce la carga del GC durante la simulacion. Mientras el
+ * mundo vive solo aca (entre copyFrom y toEcosystem) no ocupa el heap.
+ *
+ * Distribucion del segmento (n = filas * columnas):
+ * - Cabecera de 64 bytes (magic, filas, columnas, turno, estado RNG,
+ *   banderas y radio de densidad del ecosistema)
+ * - Especie por celda (1 byte)
+ * - Factor de mutacion por celda (1 byte)
+ * - Turnos sin comer por celda (2 bytes)
+ * - Turnos sobrevividos por celda (4 bytes)
+ * - Presas comidas por celda (4 bytes)
+ *
+ * El ciclo de vida lo controla un Arena: al cerrarlo se libera la memoria.
+ * Con {@link #map} el segmento queda respaldado por un archivo y
+ * {@link #checkpoint()} basta para persistir el mundo completo.
+ *
+ * {@link #copyFrom} vuelca un ecosistema y {@link #toEcosystem} lo
+ * reconstruye para seguir simulando. Al reconstruirlo los animales se
+ * procesan en orden de filas (no en el orden original) y no se conserva
+ * el ultimo turno en que comio cada uno, que las reglas no usan; para
+ * reanudar turno a turno identico estan los checkpoints de CheckpointDAO.
+ */
+public class OffHeapWorld implements AutoCloseable {
+
+    // Codigos de especie por celda
+    public static final byte EMPTY = 0;
+    public static final byte PREY = 1;
+    public static final byte PREDATOR = 2;
+    public static final byte CAIMAN = 3;
+
+    private static final int MAGIC = 0x45435746; // "ECWF"
+    private static final long HEADER_SIZE = 64;
+    private static final long BYTES_PER_CELL = 12;
+
+    // Posiciones de la cabecera
+    private static final long TURN_OFFSET = 12;
+    private static final long RANDOM_OFFSET = 16;
+    private static final long FLAGS_OFFSET = 24;
+    private static final long RADIUS_OFFSET = 28;
+
+    private static final int FLAG_THIRD_SPECIES = 1;
+    private static final int FLAG_MUTATIONS = 2;
+    private static final int FLAG_GLOBAL_OVERPOPULATION = 4;
+
+    private final Arena arena;
+    private final boolean ownsArena;
+    private final boolean mapped;
+    private final MemorySegment segment;
+    private final int rows;
+    private final int columns;
+    private final long cells;
+
+    // Desplazamientos de cada seccion dentro del segmento
+    private final long speciesOffset;
+    private final long mutationOffset;
+    private final long hungerOffset;
+    private final long ageOffset;
+    private final long eatenOffset;
+
+    // Conteo incremental por especie (indice = codigo de especie)
+    private final long[] speciesCount = new long[4];
+
+    private OffHeapWorld(Arena arena, boolean ownsArena, MemorySegment segment,
+                         boolean mapped, int rows, int columns) {
+        this.arena = arena;
+        this.ownsArena = ownsArena;
+        this.segment = segment;
+        this.mapped = mapped;
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = (long) rows * columns;
+
+        this.speciesOffset = HEADER_SIZE;
+        this.mutationOffset = speciesOffset + cells;
+        this.hungerOffset = mutationOffset + cells;
+        this.ageOffset = hungerOffset + cells * 2;
+        this.eatenOffset = ageOffset + cells * 4;
+    }
+
+    /**
+     * Crea un mundo en memoria nativa con su propio Arena confinado.
+     * El Arena se cierra junto con el mundo.
+     * @param rows Numero de filas
+     * @param columns Numero de columnas
+     * @return Mundo vacio
+     */
+    public static OffHeapWorld allocate(int rows, int columns) {
+        return allocate(Arena.ofConfined(), true, rows, columns);
+    }
+
+    /**
+     * Crea un mundo en memoria nativa dentro de un Arena del llamador.
+     * La memoria se libera cuando el llamador cierra el Arena.
+     * @param arena Arena que controla el ciclo de vida
+     * @param rows Numero de filas
+     * @param columns Numero de columnas
+     * @return Mundo vacio
+     */
+    public static OffHeapWorld allocate(Arena arena, int rows, int columns) {
+        return allocate(arena, false, rows, columns);
+    }
+
+    private static OffHeapWorld allocate(Arena arena, boolean ownsArena, int rows, int columns) {
+        validateDimensions(rows, columns);
+        MemorySegment segment = arena.allocate(segmentSize(rows, columns), 8);
+        OffHeapWorld world = new OffHeapWorld(arena, ownsArena, segment, false, rows, columns);
+        world.writeHeader();
+        return world;
+    }
+
+    /**
+     * Mapea el mundo a un archivo. Si el archivo ya contiene un mundo con las
+     * mismas dimensiones se reanuda desde su contenido; si no existe o esta
+     * vacio, se inicializa vacio.
+     * @param arena Arena que controla el ciclo de vida del mapeo
+     * @param file Archivo de respaldo
+     * @param rows Numero de filas
+     * @param columns Numero de columnas
+     * @return Mundo respaldado por archivo
+     * @throws IOException si no se puede abrir o mapear el archivo, o si ya
+     *         tiene otro contenido (no se sobrescribe)
+     */
+    public static OffHeapWorld map(Arena arena, Path file, int rows, int columns) throws IOException {
+        validateDimensions(rows, columns);
+        long size = segmentSize(rows, columns);
+        boolean existing = Files.exists(file) && Files.size(file) > 0;
+        if (existing && Files.size(file) != size) {
+            throw new IOException("File " + file + " does not hold a " + rows + "x" + columns + " world");
+        }
+
+        MemorySegment segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+        }
+
+        OffHeapWorld world = new OffHeapWorld(arena, false, segment, true, rows, columns);
+        if (existing) {
+            if (!world.headerMatches()) {
+                throw new IOException("File " + file + " does not hold a " + rows + "x" + columns + " world");
+            }
+            world.recount();
+            System.out.println("[OFFHEAP] Resumed mapped world from " + file +
+                             " at turn " + world.getTurn());
+        } else {
+            world.writeHeader();
+        }
+        return world;
+    }
+
+    /**
+     * Copia el estado actual de un ecosistema a memoria nativa.
+     * @param ecosystem Ecosistema de origen
+     * @return Mundo con su propio Arena
+     */
+    public static OffHeapWorld fromEcosystem(Ecosystem ecosystem) {
+        Animal[][] matrix = ecosystem.getMatrix();
+        OffHeapWorld world = allocate(matrix.length, matrix[0].length);
+        world.copyFrom(ecosystem);
+        return world;
+    }
+
+    /**
+     * Sobrescribe el mundo con el contenido de un ecosistema de igual tamaño,
+     * incluido el estado del generador aleatorio y su configuracion.
+     * @param ecosystem Ecosistema de origen
+     */
+    public void copyFrom(Ecosystem ecosystem) {
+        Animal[][] matrix = ecosystem.getMatrix();
+        if (matrix.length != rows || matrix[0].length != columns) {
+            throw new IllegalArgumentException("Ecosystem size does not match off-heap world");
+        }
+
+        segment.asSlice(speciesOffset, cells * BYTES_PER_CELL).fill((byte) 0);
+        java.util.Arrays.fill(speciesCount, 0);
+        speciesCount[EMPTY] = cells;
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                Animal animal = matrix[i][j];
+                if (animal == null) continue;
+
+                setSpecies(i, j, speciesOf(animal));
+                setMutationFactor(i, j, animal.getMutationFactor());
+                setTurnsWithoutEating(i, j, animal.getTurnsWithoutEating());
+                setTurnsSurvived(i, j, animal.getTurnsSurvived());
+                if (animal instanceof Predator) {
+                    setPreysEaten(i, j, ((Predator) animal).getTotalPreysEaten());
+                }
+            }
+        }
+        setTurn(ecosystem.getCurrentTurn());
+
+        int flags = 0;
+        if (ecosystem.isTerceraEspecieActiva()) flags |= FLAG_THIRD_SPECIES;
+        if (ecosystem.isMutacionesActivas()) flags |= FLAG_MUTATIONS;
+        if (ecosystem.getOverpopulationMode() == Ecosystem.OverpopulationMode.GLOBAL) {
+            flags |= FLAG_GLOBAL_OVERPOPULATION;
+        }
+        segment.set(ValueLayout.JAVA_LONG_UNALIGNED, RANDOM_OFFSET, ecosystem.getRandom().getState());
+        segment.set(ValueLayout.JAVA_INT, FLAGS_OFFSET, flags);
+        segment.set(ValueLayout.JAVA_INT, RADIUS_OFFSET, ecosystem.getDensityRadius());
+    }
+
+    /**
+     * Reconstruye un ecosistema con el contenido del mundo, listo para
+     * seguir ejecutando turnos. Los parametros de la simulacion quedan los
+     * del escenario; si eran otros se vuelven a fijar con setParameters().
+     * @param maxTurns Numero maximo de turnos
+     * @param scenario Escenario de la simulacion
+     * @return Ecosistema en el turno guardado
+     */
+    public Ecosystem toEcosystem(int maxTurns, String scenario) {
+        if (rows != columns) {
+            throw new IllegalStateException("Only square worlds can become an ecosystem");
+        }
+        int flags = segment.get(ValueLayout.JAVA_INT, FLAGS_OFFSET);
+
+        Ecosystem ecosystem = new Ecosystem(maxTurns, scenario);
+        ecosystem.configureGrid(rows, GridStore.Layout.ROW_MAJOR);
+        ecosystem.setOverpopulationMode((flags & FLAG_GLOBAL_OVERPOPULATION) != 0
+            ? Ecosystem.OverpopulationMode.GLOBAL : Ecosystem.OverpopulationMode.LOCAL,
+            segment.get(ValueLayout.JAVA_INT, RADIUS_OFFSET));
+        ecosystem.setTerceraEspecieActiva((flags & FLAG_THIRD_SPECIES) != 0);
+        ecosystem.setMutacionesActivas((flags & FLAG_MUTATIONS) != 0);
+
+        List<Animal> animals = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                byte species = getSpecies(i, j);
+                if (species == EMPTY) continue;
+
+                Position pos = new Position(i, j);
+                Animal animal;
+                if (species == PREY) {
+                    animal = new Prey(pos);
+                } else if (species == PREDATOR) {
+                    animal = new Predator(pos);
+                    ((Predator) animal).restoreFeedingState(0, getPreysEaten(i, j));
+                } else {
+                    animal = new Caiman(pos);
+                }
+                animal.restoreCounters(getTurnsWithoutEating(i, j), getTurnsSurvived(i, j));
+                animal.setMutationFactor(getMutationFactor(i, j));
+                animals.add(animal);
+            }
+        }
+
+        ecosystem.restoreState(getTurn(), animals, animals,
+                               segment.get(ValueLayout.JAVA_LONG_UNALIGNED, RANDOM_OFFSET));
+        return ecosystem;
+    }
+
+    /**
+     * Obtiene el codigo de especie de un animal
+     */
+    public static byte speciesOf(Animal animal) {
+        if (animal instanceof Prey) return PREY;
+        if (animal instanceof Predator) return PREDATOR;
+        if (animal instanceof Caiman) return CAIMAN;
+        return EMPTY;
+    }
+
+    // Acceso por celda
+
+    public byte getSpecies(int row, int column) {
+        return segment.get(ValueLayout.JAVA_BYTE, speciesOffset + index(row, column));
+    }
+
+    /**
+     * @throws IllegalArgumentException si el codigo no es EMPTY, PREY,
+     *         PREDATOR ni CAIMAN
+     */
+    public void setSpecies(int row, int column, byte species) {
+        validateSpecies(species);
+        long offset = speciesOffset + index(row, column);
+        byte previous = segment.get(ValueLayout.JAVA_BYTE, offset);
+        segment.set(ValueLayout.JAVA_BYTE, offset, species);
+        speciesCount[previous]--;
+        speciesCount[species]++;
+    }
+
+    public boolean isEmpty(int row, int column) {
+        return getSpecies(row, column) == EMPTY;
+    }
+
+    public int getMutationFactor(int row, int column) {
+        return segment.get(ValueLayout.JAVA_BYTE, mutationOffset + index(row, column));
+    }
+
+    public void setMutationFactor(int row, int column, int factor) {
+        segment.set(ValueLayout.JAVA_BYTE, mutationOffset + index(row, column),
+                    (byte) Math.max(-1, Math.min(1, factor)));
+    }
+
+    public int getTurnsWithoutEating(int row, int column) {
+        return Short.toUnsignedInt(segment.get(ValueLayout.JAVA_SHORT, hungerOffset + index(row, column) * 2));
+    }
+
+    public void setTurnsWithoutEating(int row, int column, int turns) {
+        segment.set(ValueLayout.JAVA_SHORT, hungerOffset + index(row, column) * 2,
+                    (short) Math.min(turns, 0xFFFF));
+    }
+
+    public int getTurnsSurvived(int row, int column) {
+        return segment.get(ValueLayout.JAVA_INT, ageOffset + index(row, column) * 4);
+    }
+
+    public void setTurnsSurvived(int row, int column, int turns) {
+        segment.set(ValueLayout.JAVA_INT, ageOffset + index(row, column) * 4, turns);
+    }
+
+    public int getPreysEaten(int row, int column) {
+        return segment.get(ValueLayout.JAVA_INT, eatenOffset + index(row, column) * 4);
+    }
+
+    public void setPreysEaten(int row, int column, int preys) {
+        segment.set(ValueLayout.JAVA_INT, eatenOffset + index(row, column) * 4, preys);
+    }
+
+    /**
+     * Mueve un animal con todos sus atributos y deja vacia la celda de origen.
+     */
+    public void move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        setSpecies(toRow, toColumn, getSpecies(fromRow, fromColumn));
+        setMutationFactor(toRow, toColumn, getMutationFactor(fromRow, fromColumn));
+        setTurnsWithoutEating(toRow, toColumn, getTurnsWithoutEating(fromRow, fromColumn));
+        setTurnsSurvived(toRow, toColumn, getTurnsSurvived(fromRow, fromColumn));
+        setPreysEaten(toRow, toColumn, getPreysEaten(fromRow, fromColumn));
+        clear(fromRow, fromColumn);
+    }
+
+    /**
+     * Vacia una celda y sus atributos.
+     */
+    public void clear(int row, int column) {
+        setSpecies(row, column, EMPTY);
+        setMutationFactor(row, column, 0);
+        setTurnsWithoutEating(row, column, 0);
+        setTurnsSurvived(row, column, 0);
+        setPreysEaten(row, column, 0);
+    }
+
+    /**
+     * Cantidad de celdas con una especie dada, mantenida de forma incremental.
+     */
+    public long count(byte species) {
+        validateSpecies(species);
+        return speciesCount[species];
+    }
+
+    public long countEmptyCells() {
+        return speciesCount[EMPTY];
+    }
+
+    /**
+     * Persiste el mundo en disco. Solo tiene efecto en mundos mapeados.
+     */
+    public void checkpoint() {
+        if (mapped) {
+            segment.force();
+            System.out.println("[OFFHEAP] Checkpoint flushed at turn " + getTurn());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (mapped) {
+            segment.force();
+        }
+        if (ownsArena) {
+            arena.close();
+        }
+    }
+
+    // Getters
+
+    public int getTurn() {
+        return segment.get(ValueLayout.JAVA_INT, TURN_OFFSET);
+    }
+
+    public void setTurn(int turn) {
+        segment.set(ValueLayout.JAVA_INT, TURN_OFFSET, turn);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Bytes de memoria nativa usados por el mundo
+     */
+    public long byteSize() {
+        return segment.byteSize();
+    }
+
+    // Metodos auxiliares
+
+    private long index(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            throw new IndexOutOfBoundsException("Cell (" + row + "," + column + ") outside world");
+        }
+        return (long) row * columns + column;
+    }
+
+    private void writeHeader() {
+        segment.set(ValueLayout.JAVA_INT, 0, MAGIC);
+        segment.set(ValueLayout.JAVA_INT, 4, rows);
+        segment.set(ValueLayout.JAVA_INT, 8, columns);
+        speciesCount[EMPTY] = cells;
+    }
+
+    private boolean headerMatches() {
+        return segment.get(ValueLayout.JAVA_INT, 0) == MAGIC
+            && segment.get(ValueLayout.JAVA_INT, 4) == rows
+            && segment.get(ValueLayout.JAVA_INT, 8) == columns;
+    }
+
+    private void recount() throws IOException {
+        java.util.Arrays.fill(speciesCount, 0);
+        for (long i = 0; i < cells; i++) {
+            byte species = segment.get(ValueLayout.JAVA_BYTE, speciesOffset + i);
+            if (species < EMPTY || species > CAIMAN) {
+                throw new IOException("Invalid species code " + species + " in mapped world");
+            }
+            speciesCount[species]++;
+        }
+    }
+
+    private static void validateSpecies(byte species) {
+        if (species < EMPTY || species > CAIMAN) {
+            throw new IllegalArgumentException("Invalid species code: " + species);
+        }
+    }
+
+    private static long segmentSize(int rows, int columns) {
+        return HEADER_SIZE + (long) rows * columns * BYTES_PER_CELL;
+    }
+
+    private static void validateDimensions(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("World dimensions must be positive");
+        }
+    }
+}
@@ -27,6 +27,15 @@ public class Position {
         return row >= 0 && row < 10 && column >= 0 && column < 10;
     }
     
+    /**
+     * Verifica si la posición es válida en una matriz de lado arbitrario
+     * @param size Lado de la matriz
+     * @return true si está dentro de los límites
+     */
+    public boolean isValid(int size) {
+        return row >= 0 && row < size && column >= 0 && column < size;
+    }
+    
     /**
      * Calcula la distancia Manhattan entre dos posiciones
      * @param other Otra posición
@@ -2,7 +2,6 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Clase Predator BALANCEADA.
@@ -13,8 +12,6 @@ import java.util.Random;
  */
 public class Predator extends Animal {
     
-    private static final Random random = new Random();
-    private static final int MAX_TURNS_WITHOUT_EATING = 4; // Aumentado de 3 a 4
     private int lastTurnAte;
     private int totalPreysEaten; // Nuevo: contador de presas comidas
     
@@ -38,7 +35,7 @@ public class Predator extends Animal {
         List<Position> adjacentPreys = getAdjacentPreys(ecosystem);
         
         if (!adjacentPreys.isEmpty()) {
-            Position preyPosition = adjacentPreys.get(random.nextInt(adjacentPreys.size()));
+            Position preyPosition = adjacentPreys.get(ecosystem.getRandom().nextInt(adjacentPreys.size()));
             hunt(ecosystem, preyPosition);
             return;
         }
@@ -56,12 +53,12 @@ public class Predator extends Animal {
         List<Position> emptyCells = getAdjacentEmptyCells(ecosystem);
         
         if (!emptyCells.isEmpty()) {
-            Position newPosition = emptyCells.get(random.nextInt(emptyCells.size()));
+            Position newPosition = emptyCells.get(ecosystem.getRandom().nextInt(emptyCells.size()));
             ecosystem.moveAnimal(this, newPosition);
-            System.out.println("[PREDATOR] Moved from " + this.position + " to " + newPosition);
+            ecosystem.log("[PREDATOR] Moved from " + this.position + " to " + newPosition);
             this.position = newPosition;
         } else {
-            System.out.println("[PREDATOR] At " + this.position + " has no available cells");
+            ecosystem.log("[PREDATOR] At " + this.position + " has no available cells");
         }
     }
     
@@ -74,9 +71,10 @@ public class Predator extends Animal {
         if (prey != null && prey instanceof Prey && prey.isAlive()) {
             prey.die();
             ecosystem.removeAnimal(preyPosition);
+            ecosystem.recordHunt();
             
             ecosystem.moveAnimal(this, preyPosition);
-            System.out.println("[PREDATOR] Hunted prey at " + preyPosition);
+            ecosystem.log("[PREDATOR] Hunted prey at " + preyPosition);
             this.position = preyPosition;
             
             resetTurnsWithoutEating();
@@ -92,9 +90,9 @@ public class Predator extends Animal {
         List<Position> nearbyPreys = new ArrayList<>();
         
         for (int i = Math.max(0, position.getRow() - radius); 
-             i <= Math.min(9, position.getRow() + radius); i++) {
+             i <= Math.min(ecosystem.getSize() - 1, position.getRow() + radius); i++) {
             for (int j = Math.max(0, position.getColumn() - radius); 
-                 j <= Math.min(9, position.getColumn() + radius); j++) {
+                 j <= Math.min(ecosystem.getSize() - 1, position.getColumn() + radius); j++) {
                 
                 Position pos = new Position(i, j);
                 if (!pos.equals(position)) {
@@ -106,7 +104,7 @@ public class Predator extends Animal {
             }
         }
         
-        return nearbyPreys.isEmpty() ? null : nearbyPreys.get(random.nextInt(nearbyPreys.size()));
+        return nearbyPreys.isEmpty() ? null : nearbyPreys.get(ecosystem.getRandom().nextInt(nearbyPreys.size()));
     }
     
     /**
@@ -122,7 +120,7 @@ public class Predator extends Animal {
         if (rowDiff != 0) {
             int newRow = position.getRow() + (rowDiff > 0 ? 1 : -1);
             Position candidate = new Position(newRow, position.getColumn());
-            if (candidate.isValid() && ecosystem.isEmpty(candidate)) {
+            if (ecosystem.isInside(candidate) && ecosystem.isEmpty(candidate)) {
                 candidates.add(candidate);
             }
         }
@@ -131,42 +129,42 @@ public class Predator extends Animal {
         if (colDiff != 0) {
             int newCol = position.getColumn() + (colDiff > 0 ? 1 : -1);
             Position candidate = new Position(position.getRow(), newCol);
-            if (candidate.isValid() && ecosystem.isEmpty(candidate)) {
+            if (ecosystem.isInside(candidate) && ecosystem.isEmpty(candidate)) {
                 candidates.add(candidate);
             }
         }
         
         if (!candidates.isEmpty()) {
-            Position newPosition = candidates.get(random.nextInt(candidates.size()));
+            Position newPosition = candidates.get(ecosystem.getRandom().nextInt(candidates.size()));
             ecosystem.moveAnimal(this, newPosition);
-            System.out.println("[PREDATOR] Moving towards prey from " + this.position + " to " + newPosition);
+            ecosystem.log("[PREDATOR] Moving towards prey from " + this.position + " to " + newPosition);
             this.position = newPosition;
         }
     }
     
     /**
      * Reproducción MÁS RESTRICTIVA.
-     * Ahora requiere: haber comido recientemente Y haber comido al menos 2 presas en total.
+     * Ahora requiere: haber comido recientemente Y haber comido al menos 2 presas en total (valores por defecto).
      */
     @Override
-    public boolean canReproduce() {
+    public boolean canReproduce(SimulationParameters parameters) {
         if (!alive) return false;
 
-        int adjustedSurvivalRequirement = 5 + mutationFactor;
+        int adjustedSurvivalRequirement = parameters.predatorReproductionAge + mutationFactor;
         adjustedSurvivalRequirement = Math.max(3, adjustedSurvivalRequirement);
 
         boolean ateRecently = turnsWithoutEating <= 1;
-        boolean hasEatenEnough = totalPreysEaten >= 2;
+        boolean hasEatenEnough = totalPreysEaten >= parameters.predatorPreysToReproduce;
         boolean hasSurvivedEnough = turnsSurvived >= adjustedSurvivalRequirement;
 
         return ateRecently && hasEatenEnough && hasSurvivedEnough;
     }
     
     /**
-     * Verificación de muerte por hambre (ahora 4 turnos).
+     * Verificación de muerte por hambre (4 turnos por defecto).
      */
-    public boolean shouldDieFromHunger() {
-        return turnsWithoutEating >= MAX_TURNS_WITHOUT_EATING;
+    public boolean shouldDieFromHunger(SimulationParameters parameters) {
+        return turnsWithoutEating >= parameters.predatorMaxTurnsWithoutEating;
     }
     
     /**
@@ -174,7 +172,6 @@ public class Predator extends Animal {
      */
     @Override
     public Animal reproduce(Position position) {
-        System.out.println("[PREDATOR] Reproduced at " + position);
         return new Predator(position);
     }
     
@@ -190,7 +187,7 @@ public class Predator extends Animal {
             int newColumn = position.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid()) {
+            if (ecosystem.isInside(newPos)) {
                 Animal animal = ecosystem.getAnimal(newPos);
                 if (animal instanceof Prey && animal.isAlive()) {
                     preys.add(newPos);
@@ -213,7 +210,7 @@ public class Predator extends Animal {
             int newColumn = position.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid() && ecosystem.isEmpty(newPos)) {
+            if (ecosystem.isInside(newPos) && ecosystem.isEmpty(newPos)) {
                 emptyCells.add(newPos);
             }
         }
@@ -225,6 +222,18 @@ public class Predator extends Animal {
         return totalPreysEaten;
     }
     
+    public int getLastTurnAte() {
+        return lastTurnAte;
+    }
+    
+    /**
+     * Restaura el historial de alimentación (usado al cargar un checkpoint)
+     */
+    public void restoreFeedingState(int lastTurnAte, int totalPreysEaten) {
+        this.lastTurnAte = lastTurnAte;
+        this.totalPreysEaten = totalPreysEaten;
+    }
+    
     @Override
     public String toString() {
         return "PREDATOR " + super.toString() + 
@@ -2,7 +2,6 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Clase Prey con BALANCE CRÍTICO MEJORADO.
@@ -13,11 +12,6 @@ import java.util.Random;
  */
 public class Prey extends Animal {
     
-    private static final Random random = new Random();
-    private static final int REPRODUCTION_COOLDOWN = 4; // Aumentado de 3 a 4
-    private static final double OVERPOPULATION_THRESHOLD = 0.65; // Reducido de 0.7 a 0.65
-    private static final double STRESS_DEATH_CHANCE = 0.15; // Nueva: muerte por estrés
-    
     /**
      * Constructor de Prey
      * @param position Posición inicial
@@ -37,7 +31,7 @@ public class Prey extends Animal {
         if (shouldDieFromOverpopulation(ecosystem)) {
             die();
             ecosystem.removeAnimal(this.position);
-            System.out.println("[PREY] Died from overpopulation at " + position);
+            ecosystem.log("[PREY] Died from overpopulation at " + position);
             return;
         }
         
@@ -45,44 +39,43 @@ public class Prey extends Animal {
         if (shouldDieFromStress(ecosystem)) {
             die();
             ecosystem.removeAnimal(this.position);
-            System.out.println("[PREY] Died from environmental stress at " + position);
+            ecosystem.log("[PREY] Died from environmental stress at " + position);
             return;
         }
         
         List<Position> emptyCells = getAdjacentEmptyCells(ecosystem);
         
         if (!emptyCells.isEmpty()) {
-            Position newPosition = emptyCells.get(random.nextInt(emptyCells.size()));
+            Position newPosition = emptyCells.get(ecosystem.getRandom().nextInt(emptyCells.size()));
             ecosystem.moveAnimal(this, newPosition);
-            System.out.println("[PREY] Moved from " + this.position + " to " + newPosition);
+            ecosystem.log("[PREY] Moved from " + this.position + " to " + newPosition);
             this.position = newPosition;
         } else {
-            System.out.println("[PREY] At " + this.position + " has no empty cells to move");
+            ecosystem.log("[PREY] At " + this.position + " has no empty cells to move");
             
-            // NUEVO: Si no puede moverse, 10% chance de muerte por encierro
-            if (random.nextDouble() < 0.10) {
+            // NUEVO: Si no puede moverse, 10% chance (por defecto) de muerte por encierro
+            if (ecosystem.getRandom().nextDouble() < ecosystem.getParameters().preyConfinementDeathChance) {
                 die();
                 ecosystem.removeAnimal(this.position);
-                System.out.println("[PREY] Died from confinement at " + position);
+                ecosystem.log("[PREY] Died from confinement at " + position);
             }
         }
     }
     
     /**
      * Verifica si debe morir por sobrepoblación.
-     * Probabilidad aumenta con la densidad.
+     * Probabilidad aumenta con la densidad (local o global según el ecosistema).
      */
     private boolean shouldDieFromOverpopulation(Ecosystem ecosystem) {
-        int totalCells = 100;
-        int occupiedCells = totalCells - ecosystem.countEmptyCells();
-        double occupationRate = occupiedCells / (double) totalCells;
+        double occupationRate = ecosystem.getOccupationRate(position);
+        double threshold = ecosystem.getParameters().preyOverpopulationThreshold;
         
-        if (occupationRate > OVERPOPULATION_THRESHOLD) {
+        if (occupationRate > threshold) {
             // Probabilidad escala con la sobrepoblación
-            double deathChance = 0.25 + (occupationRate - OVERPOPULATION_THRESHOLD) * 2;
+            double deathChance = 0.25 + (occupationRate - threshold) * 2;
             deathChance = Math.min(deathChance, 0.60); // Máximo 60%
             
-            return random.nextDouble() < deathChance;
+            return ecosystem.getRandom().nextDouble() < deathChance;
         }
         return false;
     }
@@ -95,7 +88,7 @@ public class Prey extends Animal {
         
         // Si hay 3+ depredadores cerca, 15% chance de muerte por estrés
         if (nearbyPredators >= 3) {
-            return random.nextDouble() < STRESS_DEATH_CHANCE;
+            return ecosystem.getRandom().nextDouble() < ecosystem.getParameters().preyStressDeathChance;
         }
         
         return false;
@@ -105,29 +98,18 @@ public class Prey extends Animal {
      * Cuenta depredadores en un radio de 2 celdas.
      */
     private int countNearbyPredators(Ecosystem ecosystem) {
-        int count = 0;
-        
-        for (int i = Math.max(0, position.getRow() - 2); 
-             i <= Math.min(9, position.getRow() + 2); i++) {
-            for (int j = Math.max(0, position.getColumn() - 2); 
-                 j <= Math.min(9, position.getColumn() + 2); j++) {
-                Animal animal = ecosystem.getAnimal(new Position(i, j));
-                if (animal instanceof Predator && animal.isAlive()) {
-                    count++;
-                }
-            }
-        }
-        
-        return count;
+        return ecosystem.countInRegion("PREDATOR",
+            position.getRow() - 2, position.getColumn() - 2,
+            position.getRow() + 2, position.getColumn() + 2);
     }
     
     /**
-     * Reproducción más lenta: cada 4 turnos.
+     * Reproducción más lenta: cada 4 turnos por defecto.
      */
     @Override
-    public boolean canReproduce() {
+    public boolean canReproduce(SimulationParameters parameters) {
         // Ajustar cooldown basado en mutación genética
-        int adjustedCooldown = REPRODUCTION_COOLDOWN + mutationFactor;
+        int adjustedCooldown = parameters.preyReproductionCooldown + mutationFactor;
         adjustedCooldown = Math.max(2, adjustedCooldown); // Mínimo 2 turnos
 
         return alive && turnsSurvived >= adjustedCooldown && 
@@ -139,7 +121,6 @@ public class Prey extends Animal {
      */
     @Override
     public Animal reproduce(Position position) {
-        System.out.println("[PREY] Reproduced at " + position);
         return new Prey(position);
     }
     
@@ -155,7 +136,7 @@ public class Prey extends Animal {
             int newColumn = position.getColumn() + dir[1];
             Position newPos = new Position(newRow, newColumn);
             
-            if (newPos.isValid() && ecosystem.isEmpty(newPos)) {
+            if (ecosystem.isInside(newPos) && ecosystem.isEmpty(newPos)) {
                 emptyCells.add(newPos);
             }
         }
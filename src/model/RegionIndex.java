@@ -0,0 +1,173 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Índice de conteo por regiones rectangulares.
+ * Mantiene un árbol de Fenwick 2D por especie, actualizado en cada
+ * movimiento, nacimiento y muerte, de modo que "cuántas presas hay en el
+ * rectángulo R" se responde en O(log² n) sin recorrer la matriz.
+ */
+public class RegionIndex {
+
+    // Índices de especie dentro del arreglo de árboles
+    private static final int PREY = 0;
+    private static final int PREDATOR = 1;
+    private static final int CAIMAN = 2;
+
+    private final int size;
+    private final int stride;
+    private final int[][] trees;
+    private final int[] totals;
+
+    /**
+     * Crea un índice vacío para una matriz cuadrada
+     * @param size Lado de la matriz
+     */
+    public RegionIndex(int size) {
+        this.size = size;
+        this.stride = size + 1;
+        this.trees = new int[3][stride * stride];
+        this.totals = new int[3];
+    }
+
+    /**
+     * Registra un animal en una celda
+     */
+    public void add(Animal animal, int row, int column) {
+        update(speciesOf(animal), row, column, 1);
+    }
+
+    /**
+     * Retira un animal de una celda
+     */
+    public void remove(Animal animal, int row, int column) {
+        update(speciesOf(animal), row, column, -1);
+    }
+
+    /**
+     * Cuenta animales de un tipo en un rectángulo (límites inclusivos,
+     * se recortan a la matriz)
+     * @param type Tipo de animal ("PREY", "PREDATOR" o "CAIMAN")
+     */
+    public int count(String type, int fromRow, int fromColumn, int toRow, int toColumn) {
+        return regionSum(speciesOf(type), fromRow, fromColumn, toRow, toColumn);
+    }
+
+    /**
+     * Cuenta celdas ocupadas por cualquier especie en un rectángulo
+     */
+    public int countOccupied(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return regionSum(PREY, fromRow, fromColumn, toRow, toColumn)
+             + regionSum(PREDATOR, fromRow, fromColumn, toRow, toColumn)
+             + regionSum(CAIMAN, fromRow, fromColumn, toRow, toColumn);
+    }
+
+    /**
+     * Cuenta celdas vacías en un rectángulo
+     */
+    public int countEmpty(int fromRow, int fromColumn, int toRow, int toColumn) {
+        int r1 = Math.max(0, fromRow), c1 = Math.max(0, fromColumn);
+        int r2 = Math.min(size - 1, toRow), c2 = Math.min(size - 1, toColumn);
+        if (r1 > r2 || c1 > c2) return 0;
+
+        int area = (r2 - r1 + 1) * (c2 - c1 + 1);
+        return area - countOccupied(r1, c1, r2, c2);
+    }
+
+    /**
+     * Agrega a la lista las celdas vacías de un rectángulo.
+     * Subdivide el rectángulo y descarta las partes sin celdas vacías,
+     * así el costo depende de cuántas celdas vacías hay y no del área.
+     */
+    public void collectEmpty(int fromRow, int fromColumn, int toRow, int toColumn, List<Position> result) {
+        int r1 = Math.max(0, fromRow), c1 = Math.max(0, fromColumn);
+        int r2 = Math.min(size - 1, toRow), c2 = Math.min(size - 1, toColumn);
+        if (r1 > r2 || c1 > c2) return;
+
+        collectEmptyRecursive(r1, c1, r2, c2, result);
+    }
+
+    private void collectEmptyRecursive(int r1, int c1, int r2, int c2, List<Position> result) {
+        if (countEmpty(r1, c1, r2, c2) == 0) return;
+
+        if (r1 == r2 && c1 == c2) {
+            result.add(new Position(r1, c1));
+            return;
+        }
+
+        // Partir por la dimensión más larga
+        if (r2 - r1 >= c2 - c1) {
+            int mid = (r1 + r2) >>> 1;
+            collectEmptyRecursive(r1, c1, mid, c2, result);
+            collectEmptyRecursive(mid + 1, c1, r2, c2, result);
+        } else {
+            int mid = (c1 + c2) >>> 1;
+            collectEmptyRecursive(r1, c1, r2, mid, result);
+            collectEmptyRecursive(r1, mid + 1, r2, c2, result);
+        }
+    }
+
+    /**
+     * Total de celdas ocupadas en toda la matriz (O(1))
+     */
+    public int totalOccupied() {
+        return totals[PREY] + totals[PREDATOR] + totals[CAIMAN];
+    }
+
+    // Árbol de Fenwick
+
+    private void update(int species, int row, int column, int delta) {
+        int[] tree = trees[species];
+        for (int i = row + 1; i <= size; i += i & -i) {
+            for (int j = column + 1; j <= size; j += j & -j) {
+                tree[i * stride + j] += delta;
+            }
+        }
+        totals[species] += delta;
+    }
+
+    /**
+     * Suma del rectángulo [0..row] x [0..column]
+     */
+    private int prefixSum(int species, int row, int column) {
+        int[] tree = trees[species];
+        int sum = 0;
+        for (int i = row + 1; i > 0; i -= i & -i) {
+            for (int j = column + 1; j > 0; j -= j & -j) {
+                sum += tree[i * stride + j];
+            }
+        }
+        return sum;
+    }
+
+    private int regionSum(int species, int fromRow, int fromColumn, int toRow, int toColumn) {
+        int r1 = Math.max(0, fromRow), c1 = Math.max(0, fromColumn);
+        int r2 = Math.min(size - 1, toRow), c2 = Math.min(size - 1, toColumn);
+        if (r1 > r2 || c1 > c2) return 0;
+
+        return prefixSum(species, r2, c2)
+             - prefixSum(species, r1 - 1, c2)
+             - prefixSum(species, r2, c1 - 1)
+             + prefixSum(species, r1 - 1, c1 - 1);
+    }
+
+    private static int speciesOf(Animal animal) {
+        if (animal instanceof Prey) return PREY;
+        if (animal instanceof Predator) return PREDATOR;
+        return CAIMAN;
+    }
+
+    private static int speciesOf(String type) {
+        switch (type) {
+            case "PREY":
+                return PREY;
+            case "PREDATOR":
+                return PREDATOR;
+            case "CAIMAN":
+                return CAIMAN;
+            default:
+                throw new IllegalArgumentException("Unknown animal type: " + type);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Parámetros de una simulación: poblaciones iniciales del escenario y
+ * umbrales de las reglas de cada especie.
+ *
+ * Es inmutable; with() devuelve una copia con un valor cambiado, lo que
+ * permite barrer parámetros sin tocar el resto. Los valores por defecto
+ * de forScenario() son los que tenía el código fijo.
+ *
+ * Las poblaciones son las de una matriz de 10x10; Ecosystem las escala
+ * con el área. Los caimanes solo se colocan con la tercera especie activa.
+ * Entre las tres no pueden superar las celdas de esa matriz.
+ */
+public class SimulationParameters {
+
+    // Celdas de la matriz de referencia de las poblaciones (10x10)
+    public static final int REFERENCE_CELLS = 100;
+
+    /**
+     * Cada parámetro, con su rango válido
+     */
+    public enum Parameter {
+        INITIAL_PREYS(true, 0, REFERENCE_CELLS),
+        INITIAL_PREDATORS(true, 0, REFERENCE_CELLS),
+        INITIAL_CAIMANS(true, 0, REFERENCE_CELLS),
+        PREY_REPRODUCTION_COOLDOWN(true, 1, Double.MAX_VALUE),
+        PREY_OVERPOPULATION_THRESHOLD(false, 0, 1),
+        PREY_STRESS_DEATH_CHANCE(false, 0, 1),
+        PREY_CONFINEMENT_DEATH_CHANCE(false, 0, 1),
+        PREDATOR_MAX_TURNS_WITHOUT_EATING(true, 1, Double.MAX_VALUE),
+        PREDATOR_REPRODUCTION_AGE(true, 0, Double.MAX_VALUE),
+        PREDATOR_PREYS_TO_REPRODUCE(true, 0, Double.MAX_VALUE),
+        CAIMAN_MAX_TURNS_WITHOUT_EATING(true, 1, Double.MAX_VALUE),
+        CAIMAN_REPRODUCTION_AGE(true, 0, Double.MAX_VALUE);
+
+        public final boolean integer;
+        public final double min;
+        public final double max;
+
+        Parameter(boolean integer, double min, double max) {
+            this.integer = integer;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * @throws IllegalArgumentException si el valor está fuera de rango o
+         *         no es entero en un parámetro entero
+         */
+        public void validate(double value) {
+            if (Double.isNaN(value) || value < min || value > max) {
+                throw new IllegalArgumentException(this + " out of range: " + value);
+            }
+            if (integer && value != Math.rint(value)) {
+                throw new IllegalArgumentException(this + " must be an integer: " + value);
+            }
+        }
+    }
+
+    public final int initialPreys;
+    public final int initialPredators;
+    public final int initialCaimans;
+    public final int preyReproductionCooldown;
+    public final double preyOverpopulationThreshold;
+    public final double preyStressDeathChance;
+    public final double preyConfinementDeathChance;
+    public final int predatorMaxTurnsWithoutEating;
+    public final int predatorReproductionAge;
+    public final int predatorPreysToReproduce;
+    public final int caimanMaxTurnsWithoutEating;
+    public final int caimanReproductionAge;
+
+    // Los mismos valores, indexados por Parameter
+    private final double[] values;
+
+    private SimulationParameters(double[] values) {
+        this.values = values;
+        this.initialPreys = (int) values[Parameter.INITIAL_PREYS.ordinal()];
+        this.initialPredators = (int) values[Parameter.INITIAL_PREDATORS.ordinal()];
+        this.initialCaimans = (int) values[Parameter.INITIAL_CAIMANS.ordinal()];
+        this.preyReproductionCooldown = (int) values[Parameter.PREY_REPRODUCTION_COOLDOWN.ordinal()];
+        this.preyOverpopulationThreshold = values[Parameter.PREY_OVERPOPULATION_THRESHOLD.ordinal()];
+        this.preyStressDeathChance = values[Parameter.PREY_STRESS_DEATH_CHANCE.ordinal()];
+        this.preyConfinementDeathChance = values[Parameter.PREY_CONFINEMENT_DEATH_CHANCE.ordinal()];
+        this.predatorMaxTurnsWithoutEating = (int) values[Parameter.PREDATOR_MAX_TURNS_WITHOUT_EATING.ordinal()];
+        this.predatorReproductionAge = (int) values[Parameter.PREDATOR_REPRODUCTION_AGE.ordinal()];
+        this.predatorPreysToReproduce = (int) values[Parameter.PREDATOR_PREYS_TO_REPRODUCE.ordinal()];
+        this.caimanMaxTurnsWithoutEating = (int) values[Parameter.CAIMAN_MAX_TURNS_WITHOUT_EATING.ordinal()];
+        this.caimanReproductionAge = (int) values[Parameter.CAIMAN_REPRODUCTION_AGE.ordinal()];
+    }
+
+    /**
+     * Valores por defecto de un escenario (BALANCED, PREDATORS_DOM o
+     * PREYS_DOM; cualquier otro usa los de BALANCED)
+     */
+    public static SimulationParameters forScenario(String scenario) {
+        int preys;
+        int predators;
+        int caimans;
+        switch (scenario == null ? "" : scenario) {
+            case "PREDATORS_DOM":
+                preys = 15;
+                predators = 35;
+                caimans = 5;
+                break;
+            case "PREYS_DOM":
+                preys = 35;
+                predators = 15;
+                caimans = 2;
+                break;
+            default:
+                preys = 30;
+                predators = 20;
+                caimans = 3;
+        }
+
+        double[] values = new double[Parameter.values().length];
+        values[Parameter.INITIAL_PREYS.ordinal()] = preys;
+        values[Parameter.INITIAL_PREDATORS.ordinal()] = predators;
+        values[Parameter.INITIAL_CAIMANS.ordinal()] = caimans;
+        values[Parameter.PREY_REPRODUCTION_COOLDOWN.ordinal()] = 4;
+        values[Parameter.PREY_OVERPOPULATION_THRESHOLD.ordinal()] = 0.65;
+        values[Parameter.PREY_STRESS_DEATH_CHANCE.ordinal()] = 0.15;
+        values[Parameter.PREY_CONFINEMENT_DEATH_CHANCE.ordinal()] = 0.10;
+        values[Parameter.PREDATOR_MAX_TURNS_WITHOUT_EATING.ordinal()] = 4;
+        values[Parameter.PREDATOR_REPRODUCTION_AGE.ordinal()] = 5;
+        values[Parameter.PREDATOR_PREYS_TO_REPRODUCE.ordinal()] = 2;
+        values[Parameter.CAIMAN_MAX_TURNS_WITHOUT_EATING.ordinal()] = 4;
+        values[Parameter.CAIMAN_REPRODUCTION_AGE.ordinal()] = 4;
+        return new SimulationParameters(values);
+    }
+
+    public double get(Parameter parameter) {
+        return values[parameter.ordinal()];
+    }
+
+    /**
+     * Copia con un parámetro cambiado
+     * @throws IllegalArgumentException si el valor está fuera de rango, no
+     *         es entero en un parámetro entero o las poblaciones no entran
+     */
+    public SimulationParameters with(Parameter parameter, double value) {
+        return with(new Parameter[]{parameter}, new double[]{value});
+    }
+
+    /**
+     * Copia con varios parámetros cambiados a la vez; las poblaciones se
+     * validan con todos los cambios aplicados
+     */
+    public SimulationParameters with(Parameter[] parameters, double[] newValues) {
+        if (parameters.length != newValues.length) {
+            throw new IllegalArgumentException("Expected " + parameters.length + " values, got " +
+                                               newValues.length);
+        }
+        double[] copy = values.clone();
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i].validate(newValues[i]);
+            copy[parameters[i].ordinal()] = newValues[i];
+        }
+
+        double population = copy[Parameter.INITIAL_PREYS.ordinal()] +
+                            copy[Parameter.INITIAL_PREDATORS.ordinal()] +
+                            copy[Parameter.INITIAL_CAIMANS.ordinal()];
+        if (population > REFERENCE_CELLS) {
+            throw new IllegalArgumentException("Initial populations (" + (long) population +
+                                               ") exceed the " + REFERENCE_CELLS + " cells of the grid");
+        }
+        return new SimulationParameters(copy);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SimulationParameters &&
+               Arrays.equals(values, ((SimulationParameters) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Parameter parameter : Parameter.values()) {
+            if (text.length() > 0) text.append(", ");
+            double value = get(parameter);
+            text.append(parameter).append('=');
+            text.append(parameter.integer ? String.valueOf((long) value) : String.valueOf(value));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Generador aleatorio de la simulacion con estado accesible.
+ * Produce exactamente la misma secuencia que java.util.Random para una misma
+ * semilla, pero permite leer y restaurar el estado interno para poder
+ * reanudar una simulacion desde un checkpoint de forma identica.
+ * No se usa nextGaussian(), por lo que su valor en cache no forma parte del estado.
+ */
+public class SimulationRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // Sin inicializador: Random llama a setSeed() desde su constructor
+    private long state;
+
+    /**
+     * Constructor con semilla aleatoria
+     */
+    public SimulationRandom() {
+        super();
+    }
+
+    /**
+     * Constructor con semilla fija (simulaciones reproducibles)
+     * @param seed Semilla inicial
+     */
+    public SimulationRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * Obtiene el estado interno de 48 bits
+     * @return Estado actual del generador
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restaura un estado obtenido con {@link #getState()}
+     * @param state Estado interno de 48 bits
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
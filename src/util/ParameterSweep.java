@@ -0,0 +1,244 @@
+package util;
+
+import controller.EcosystemController;
+import data.SweepResultCube;
+import data.SweepResultDAO;
+import model.Ecosystem;
+import model.SimulationParameters;
+import model.SimulationParameters.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Barrido de parámetros: ejecuta un escenario con distintos valores de sus
+ * parámetros y agrega las réplicas de cada combinación en un cubo de
+ * resultados.
+ *
+ * Los puntos son el producto cartesiano de los valores dados con vary(),
+ * o solo los agregados con addPoint() si hay alguno. Las réplicas de todos
+ * los puntos se reparten juntas entre los hilos, como en SimulationAnalyzer,
+ * y no guardan estados: solo queda el cubo.
+ *
+ * La réplica i de cada punto usa la misma semilla, así las diferencias
+ * entre puntos se deben a los parámetros y no al azar de cada corrida.
+ */
+public class ParameterSweep {
+
+    private final String scenario;
+    private final int maxTurns;
+    private SimulationParameters baseParameters;
+    private int replicates = SimulationAnalyzer.Options.defaults().replicatesPerScenario;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Long baseSeed;
+    private boolean thirdSpecies;
+    private boolean mutations;
+
+    private final List<Parameter> axes = new ArrayList<>();
+    private final List<double[]> axisValues = new ArrayList<>();
+    private final List<double[]> points = new ArrayList<>();
+
+    public ParameterSweep(String scenario, int maxTurns) {
+        this.scenario = scenario;
+        this.maxTurns = maxTurns;
+        this.baseParameters = SimulationParameters.forScenario(scenario);
+    }
+
+    /**
+     * Parámetros que no se varían (por defecto, los del escenario)
+     */
+    public void setBaseParameters(SimulationParameters parameters) {
+        this.baseParameters = parameters;
+    }
+
+    /**
+     * Agrega un parámetro a variar. Sin valores solo declara la columna,
+     * para definir los puntos a mano con addPoint()
+     */
+    public void vary(Parameter parameter, double... values) {
+        if (axes.contains(parameter)) {
+            throw new IllegalArgumentException(parameter + " is already varied");
+        }
+        if (!points.isEmpty()) {
+            throw new IllegalStateException("Parameters must be varied before adding points");
+        }
+        // Las poblaciones se validan con cada punto completo, en run()
+        for (double value : values) {
+            parameter.validate(value);
+        }
+        axes.add(parameter);
+        axisValues.add(values.clone());
+    }
+
+    /**
+     * Agrega un punto a la grilla definida por el usuario: un valor por
+     * parámetro variado, en el orden de vary()
+     * @throws IllegalArgumentException si algún valor no es válido o las
+     *         poblaciones del punto no entran en la matriz
+     */
+    public void addPoint(double... values) {
+        baseParameters.with(axes.toArray(new Parameter[0]), values);
+        points.add(values.clone());
+    }
+
+    public void setReplicates(int replicates) {
+        if (replicates < 1) {
+            throw new IllegalArgumentException("Replicates must be >= 1");
+        }
+        this.replicates = replicates;
+    }
+
+    public void setParallelism(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
+        this.parallelism = threads;
+    }
+
+    /**
+     * Semilla base; null = una nueva en cada run()
+     */
+    public void setBaseSeed(Long seed) {
+        this.baseSeed = seed;
+    }
+
+    public void setThirdSpecies(boolean active) {
+        this.thirdSpecies = active;
+    }
+
+    public void setMutations(boolean active) {
+        this.mutations = active;
+    }
+
+    /**
+     * Cantidad de puntos que se van a simular
+     */
+    public int getPointCount() {
+        if (!points.isEmpty()) return points.size();
+        long count = 1;
+        for (double[] values : axisValues) {
+            count *= values.length;
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many sweep points");
+            }
+        }
+        return (int) count;
+    }
+
+    /**
+     * Ejecuta el barrido y guarda el cubo
+     * @return Cubo de resultados, o null si no se pudo guardar
+     */
+    public SweepResultCube run(String fileName) {
+        SweepResultCube cube = run();
+        return new SweepResultDAO().save(cube, fileName) ? cube : null;
+    }
+
+    /**
+     * Ejecuta el barrido en paralelo
+     * @throws IllegalArgumentException si las poblaciones de algún punto no
+     *         entran en la matriz; no se simula ninguno
+     */
+    public SweepResultCube run() {
+        double[][] grid = buildGrid();
+        Parameter[] columns = axes.toArray(new Parameter[0]);
+        SimulationParameters[] settings = new SimulationParameters[grid.length];
+        for (int point = 0; point < grid.length; point++) {
+            try {
+                settings[point] = baseParameters.with(columns, grid[point]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid sweep point " + Arrays.toString(grid[point]) +
+                                                   ": " + e.getMessage(), e);
+            }
+        }
+
+        int replicates = this.replicates;
+        long seed = baseSeed != null ? baseSeed : System.nanoTime();
+        EcosystemController.PersistencePolicy policy = EcosystemController.PersistencePolicy.none();
+
+        SimulationAnalyzer.ScenarioAccumulator[] accumulators =
+            new SimulationAnalyzer.ScenarioAccumulator[grid.length];
+        for (int point = 0; point < grid.length; point++) {
+            accumulators[point] = new SimulationAnalyzer.ScenarioAccumulator(replicates);
+        }
+
+        long total = (long) grid.length * replicates;
+        long progressStep = Math.max(1, total / 10);
+        AtomicLong completed = new AtomicLong();
+
+        System.out.println("[SWEEP] " + grid.length + " points x " + replicates + " replicates (" +
+                           scenario + ", " + maxTurns + " turns)");
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> LongStream.range(0, total).parallel().forEach(task -> {
+                int point = (int) (task / replicates);
+                int replicate = (int) (task % replicates);
+
+                Ecosystem eco = SimulationAnalyzer.runReplicate(scenario, maxTurns, thirdSpecies, mutations,
+                    settings[point], policy, SimulationAnalyzer.replicateSeed(seed, 0, replicate), null);
+                accumulators[point].add(eco, maxTurns);
+
+                long done = completed.incrementAndGet();
+                if (done % progressStep == 0) {
+                    System.out.println("[SWEEP] " + done + "/" + total + " simulations completed");
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Sweep failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        float[][] metrics = new float[grid.length][];
+        for (int point = 0; point < grid.length; point++) {
+            metrics[point] = toMetrics(accumulators[point].toAnalysis(scenario, maxTurns));
+        }
+        return new SweepResultCube(scenario, maxTurns, replicates, seed, thirdSpecies, mutations,
+                                   baseParameters, columns, grid, metrics);
+    }
+
+    /**
+     * Puntos a simular: los agregados a mano o el producto cartesiano
+     */
+    private double[][] buildGrid() {
+        if (!points.isEmpty()) {
+            return points.toArray(new double[0][]);
+        }
+
+        double[][] grid = new double[getPointCount()][axes.size()];
+        for (int point = 0; point < grid.length; point++) {
+            // El último parámetro varía más rápido
+            int rest = point;
+            for (int i = axes.size() - 1; i >= 0; i--) {
+                double[] values = axisValues.get(i);
+                grid[point][i] = values[rest % values.length];
+                rest /= values.length;
+            }
+        }
+        return grid;
+    }
+
+    private static float[] toMetrics(SimulationAnalyzer.ScenarioAnalysis analysis) {
+        float[] metrics = new float[SweepResultCube.Metric.values().length];
+        int runs = analysis.totalSimulations;
+        metrics[SweepResultCube.Metric.EXTINCTION_RATE.ordinal()] = (float) analysis.extinctionRate;
+        metrics[SweepResultCube.Metric.PREY_EXTINCTION_RATE.ordinal()] = analysis.preyExtinctions / (float) runs;
+        metrics[SweepResultCube.Metric.PREDATOR_EXTINCTION_RATE.ordinal()] =
+            analysis.predatorExtinctions / (float) runs;
+        metrics[SweepResultCube.Metric.AVG_EXTINCTION_TURN.ordinal()] = (float) analysis.avgExtinctionTurn;
+        metrics[SweepResultCube.Metric.AVG_FINAL_PREYS.ordinal()] = (float) analysis.avgFinalPreys;
+        metrics[SweepResultCube.Metric.AVG_FINAL_PREDATORS.ordinal()] = (float) analysis.avgFinalPredators;
+        metrics[SweepResultCube.Metric.AVG_FINAL_CAIMANS.ordinal()] = (float) analysis.avgFinalCaimans;
+        metrics[SweepResultCube.Metric.POPULATION_STABILITY.ordinal()] = (float) analysis.populationStability;
+        metrics[SweepResultCube.Metric.AVG_OCCUPATION_RATE.ordinal()] = (float) analysis.avgOccupationRate;
+        return metrics;
+    }
+}
@@ -1,7 +1,10 @@
 package util;
 
 import model.Ecosystem;
+import data.StateCursor;
 import data.StateDAO;
+import data.StateQuery;
+import data.StateRepository;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
@@ -25,7 +28,7 @@ public class ReportGenerator {
     /**
      * Genera un reporte completo de la simulación.
      */
-    public static String generateReport(Ecosystem ecosystem, String username, StateDAO stateDAO) {
+    public static String generateReport(Ecosystem ecosystem, String username, StateRepository stateRepository) {
         try {
             String timestamp = LocalDateTime.now()
                 .format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
@@ -57,11 +60,11 @@ public class ReportGenerator {
             document.add(Chunk.NEWLINE);
             
             // Análisis de extinción
-            addExtinctionAnalysis(document, ecosystem, stateDAO);
+            addExtinctionAnalysis(document, ecosystem, stateRepository);
             document.add(Chunk.NEWLINE);
             
             // Evolución por turnos (tabla) - CORREGIDO
-            addTurnEvolutionTable(document, stateDAO, ecosystem);
+            addTurnEvolutionTable(document, stateRepository, ecosystem);
             
             // Footer
             addFooter(document);
@@ -336,7 +339,7 @@ public class ReportGenerator {
     /**
      * Agrega análisis de extinción.
      */
-    private static void addExtinctionAnalysis(Document document, Ecosystem ecosystem, StateDAO stateDAO) 
+    private static void addExtinctionAnalysis(Document document, Ecosystem ecosystem, StateRepository stateRepository) 
             throws DocumentException {
         
         Paragraph subtitle = new Paragraph("EXTINCTION ANALYSIS", SUBTITLE_FONT);
@@ -345,7 +348,7 @@ public class ReportGenerator {
         document.add(subtitle);
         
         if (ecosystem.hasExtinction()) {
-            int extinctionTurn = findExtinctionTurn(stateDAO, ecosystem);
+            int extinctionTurn = findExtinctionTurn(stateRepository, ecosystem);
             
             Paragraph para = new Paragraph();
             para.add(new Chunk("Extinction occurred at turn: ", NORMAL_FONT));
@@ -370,10 +373,23 @@ public class ReportGenerator {
         }
     }
     
+    /**
+     * Agrega una fila de la tabla de evolución
+     */
+    private static void addTurnRow(PdfPTable table, StateDAO.TurnState state, boolean withCaimans) {
+        addTableCell(table, String.valueOf(state.turn));
+        addTableCell(table, String.valueOf(state.preys));
+        addTableCell(table, String.valueOf(state.predators));
+        if (withCaimans) {
+            addTableCell(table, String.valueOf(state.caimans));
+        }
+        addTableCell(table, String.valueOf(state.empty));
+    }
+    
     /**
      * Agrega tabla de evolución por turnos - VERSIÓN CORREGIDA.
      */
-    private static void addTurnEvolutionTable(Document document, StateDAO stateDAO, Ecosystem ecosystem) 
+    private static void addTurnEvolutionTable(Document document, StateRepository stateRepository, Ecosystem ecosystem) 
             throws DocumentException {
         
         Paragraph subtitle = new Paragraph("TURN-BY-TURN EVOLUTION", SUBTITLE_FONT);
@@ -396,7 +412,7 @@ public class ReportGenerator {
         // FIX CRÍTICO: Obtener el simulation ID correcto
         // El StateDAO guarda con formato: "scenario_username_timestamp"
         // Necesitamos obtener todos los IDs y buscar el más reciente del escenario actual
-        List<String> allSimIds = stateDAO.getAllSimulationIds();
+        List<String> allSimIds = stateRepository.getAllSimulationIds();
         String targetSimId = null;
         
         // Buscar el ID más reciente que coincida con el escenario actual
@@ -428,13 +444,13 @@ public class ReportGenerator {
             return;
         }
         
-        // Cargar estados con el ID correcto
-        List<StateDAO.TurnState> states = stateDAO.loadSimulationStates(targetSimId);
+        // Contar los turnos sin cargarlos (serie o resumen)
+        int turnCount = stateRepository.countTurns(targetSimId);
         
         System.out.println("[REPORT] Loading turn states for: " + targetSimId);
-        System.out.println("[REPORT] Found " + states.size() + " turn states");
+        System.out.println("[REPORT] Found " + turnCount + " turn states");
         
-        if (states.isEmpty()) {
+        if (turnCount == 0) {
             addTableCell(table, "No turns recorded");
             addTableCell(table, "-");
             addTableCell(table, "-");
@@ -447,30 +463,25 @@ public class ReportGenerator {
         }
         
         // Determinar paso: mostrar máximo 15 filas
-        int step = Math.max(1, states.size() / 15);
-        
-        // Agregar datos
-        for (int i = 0; i < states.size(); i += step) {
-            StateDAO.TurnState state = states.get(i);
-            addTableCell(table, String.valueOf(state.turn));
-            addTableCell(table, String.valueOf(state.preys));
-            addTableCell(table, String.valueOf(state.predators));
-            if (ecosystem.isTerceraEspecieActiva()) {
-                addTableCell(table, "N/A"); // TODO: agregar en StateDAO
+        int step = Math.max(1, turnCount / 15);
+        
+        // Recorrer los estados de a uno, sin cargarlos todos en memoria
+        StateDAO.TurnState lastState = null;
+        int index = 0;
+        try (StateCursor states = stateRepository.openCursor(StateQuery.simulation(targetSimId))) {
+            while (states.hasNext()) {
+                lastState = states.next();
+                if (index++ % step == 0) {
+                    addTurnRow(table, lastState, ecosystem.isTerceraEspecieActiva());
+                }
             }
-            addTableCell(table, String.valueOf(state.empty));
+        } catch (IOException e) {
+            System.err.println("[ERROR] Failed to close state cursor: " + e.getMessage());
         }
         
         // Siempre agregar el último turno si no está incluido
-        StateDAO.TurnState lastState = states.get(states.size() - 1);
-        if ((states.size() - 1) % step != 0) {
-            addTableCell(table, String.valueOf(lastState.turn));
-            addTableCell(table, String.valueOf(lastState.preys));
-            addTableCell(table, String.valueOf(lastState.predators));
-            if (ecosystem.isTerceraEspecieActiva()) {
-                addTableCell(table, "N/A");
-            }
-            addTableCell(table, String.valueOf(lastState.empty));
+        if (lastState != null && (index - 1) % step != 0) {
+            addTurnRow(table, lastState, ecosystem.isTerceraEspecieActiva());
         }
         
         document.add(table);
@@ -479,7 +490,7 @@ public class ReportGenerator {
         if (step > 1) {
             Paragraph note = new Paragraph(
                 String.format("Note: Showing data every %d turn(s) for readability (total: %d turns)",
-                             step, states.size()),
+                             step, turnCount),
                 new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY)
             );
             note.setSpacingBefore(5);
@@ -537,11 +548,11 @@ public class ReportGenerator {
     /**
      * Encuentra el turno de extinción - VERSIÓN CORREGIDA.
      */
-    private static int findExtinctionTurn(StateDAO stateDAO, Ecosystem ecosystem) {
+    private static int findExtinctionTurn(StateRepository stateRepository, Ecosystem ecosystem) {
         String extinctSpecies = ecosystem.countPreys() == 0 ? "PREYS" : "PREDATORS";
         
         // Buscar el simulation ID más reciente del escenario actual
-        List<String> allSimIds = stateDAO.getAllSimulationIds();
+        List<String> allSimIds = stateRepository.getAllSimulationIds();
         String targetSimId = null;
         String scenarioPrefix = ecosystem.getScenario() + "_";
         
@@ -557,7 +568,7 @@ public class ReportGenerator {
             return ecosystem.getCurrentTurn();
         }
         
-        int turn = stateDAO.findExtinctionTurn(targetSimId, extinctSpecies);
+        int turn = stateRepository.findExtinctionTurn(targetSimId, extinctSpecies);
         
         return turn != -1 ? turn : ecosystem.getCurrentTurn();
     }
@@ -1,9 +1,14 @@
 package util;
 
 import model.Ecosystem;
+import model.SimulationParameters;
 import controller.EcosystemController;
-import data.StateDAO;
-import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
 
 /**
  * Analizador automático de simulaciones para comparación entre escenarios.
@@ -11,7 +16,68 @@ import java.util.*;
  */
 public class SimulationAnalyzer {
     
-    private static final int SIMULATIONS_PER_SCENARIO = 10; // Número de simulaciones por escenario
+    private static final int SIMULATIONS_PER_SCENARIO = 10; // Réplicas por escenario por defecto
+    
+    // Numera los análisis del proceso; va en el ID de cada réplica
+    private static final AtomicLong ANALYSES = new AtomicLong();
+    
+    /**
+     * Configuración de un análisis: réplicas por escenario, hilos, semilla
+     * base y qué se guarda de cada réplica. Es inmutable y cada análisis
+     * recibe la suya, así dos análisis simultáneos no se pisan.
+     */
+    public static class Options {
+        public final int replicatesPerScenario;
+        public final int parallelism;
+        public final Long baseSeed; // null = una semilla distinta en cada análisis
+        public final EcosystemController.PersistencePolicy persistencePolicy;
+        
+        public Options(int replicatesPerScenario, int parallelism, Long baseSeed,
+                       EcosystemController.PersistencePolicy persistencePolicy) {
+            if (replicatesPerScenario < 1) {
+                throw new IllegalArgumentException("Replicates per scenario must be >= 1");
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be >= 1");
+            }
+            this.replicatesPerScenario = replicatesPerScenario;
+            this.parallelism = parallelism;
+            this.baseSeed = baseSeed;
+            this.persistencePolicy = persistencePolicy;
+        }
+        
+        /**
+         * 10 réplicas, un hilo por núcleo, semilla nueva y solo el resumen
+         * de cada réplica
+         */
+        public static Options defaults() {
+            return new Options(SIMULATIONS_PER_SCENARIO, Runtime.getRuntime().availableProcessors(),
+                               null, EcosystemController.PersistencePolicy.finalOnly());
+        }
+        
+        public Options withReplicates(int replicates) {
+            return new Options(replicates, parallelism, baseSeed, persistencePolicy);
+        }
+        
+        public Options withParallelism(int threads) {
+            return new Options(replicatesPerScenario, threads, baseSeed, persistencePolicy);
+        }
+        
+        /**
+         * Con la misma semilla y la misma cantidad de réplicas el resultado
+         * se repite
+         */
+        public Options withBaseSeed(Long seed) {
+            return new Options(replicatesPerScenario, parallelism, seed, persistencePolicy);
+        }
+        
+        /**
+         * full() para poder reproducir las réplicas turno a turno
+         */
+        public Options withPersistencePolicy(EcosystemController.PersistencePolicy policy) {
+            return new Options(replicatesPerScenario, parallelism, baseSeed, policy);
+        }
+    }
     
     /**
      * Resultado de análisis de un escenario específico
@@ -210,116 +276,19 @@ public class SimulationAnalyzer {
     public static ScenarioAnalysis analyzeScenario(String scenario, int maxTurns, 
                                                    boolean withThirdSpecies, 
                                                    boolean withMutations) {
+        return analyzeScenario(scenario, maxTurns, withThirdSpecies, withMutations, Options.defaults());
+    }
+    
+    /**
+     * Ejecuta análisis completo de un escenario con la configuración indicada
+     */
+    public static ScenarioAnalysis analyzeScenario(String scenario, int maxTurns, 
+                                                   boolean withThirdSpecies, 
+                                                   boolean withMutations, Options options) {
         System.out.println("\n[ANALYZER] Starting analysis for: " + scenario);
         
-        ScenarioAnalysis analysis = new ScenarioAnalysis();
-        analysis.scenarioName = scenario;
-        analysis.totalSimulations = SIMULATIONS_PER_SCENARIO;
-        
-        List<Integer> extinctionTurns = new ArrayList<>();
-        List<Integer> finalPreys = new ArrayList<>();
-        List<Integer> finalPredators = new ArrayList<>();
-        List<Integer> finalCaimans = new ArrayList<>();
-        List<Double> occupationRates = new ArrayList<>();
-        
-        int totalExtinctions = 0;
-        int preyExtinctionCount = 0;
-        int predatorExtinctionCount = 0;
-        
-        // Ejecutar múltiples simulaciones
-        for (int i = 0; i < SIMULATIONS_PER_SCENARIO; i++) {
-            EcosystemController controller = new EcosystemController();
-            controller.setCurrentUser("AnalysisBot");
-            controller.setTerceraEspecieActiva(withThirdSpecies);
-            controller.setMutacionesActivas(withMutations);
-            controller.createEcosystem(maxTurns, scenario);
-            
-            // Ejecutar hasta terminar
-            int turnCount = 0;
-            while (turnCount < maxTurns && controller.executeTurn()) {
-                turnCount++;
-            }
-            
-            Ecosystem eco = controller.getEcosystem();
-            
-            // Recolectar datos
-            finalPreys.add(eco.countPreys());
-            finalPredators.add(eco.countPredators());
-            finalCaimans.add(eco.countCaimans());
-            
-            int occupied = 100 - eco.countEmptyCells();
-            occupationRates.add(occupied / 100.0);
-            
-            if (eco.hasExtinction()) {
-                totalExtinctions++;
-                extinctionTurns.add(eco.getCurrentTurn());
-                
-                if (eco.countPreys() == 0) {
-                    preyExtinctionCount++;
-                } else {
-                    predatorExtinctionCount++;
-                }
-            } else {
-                extinctionTurns.add(maxTurns); // No extinción
-            }
-            
-            System.out.println("  Simulation " + (i+1) + "/" + SIMULATIONS_PER_SCENARIO + 
-                             " completed. Extinction: " + eco.hasExtinction());
-        }
-        
-        // Calcular métricas
-        analysis.extinctionsOccurred = totalExtinctions;
-        analysis.preyExtinctions = preyExtinctionCount;
-        analysis.predatorExtinctions = predatorExtinctionCount;
-        analysis.extinctionRate = totalExtinctions / (double) SIMULATIONS_PER_SCENARIO;
-        
-        analysis.avgExtinctionTurn = extinctionTurns.stream()
-            .mapToInt(Integer::intValue)
-            .average()
-            .orElse(maxTurns);
-        
-        analysis.avgFinalPreys = finalPreys.stream()
-            .mapToInt(Integer::intValue)
-            .average()
-            .orElse(0);
-        
-        analysis.avgFinalPredators = finalPredators.stream()
-            .mapToInt(Integer::intValue)
-            .average()
-            .orElse(0);
-        
-        analysis.avgFinalCaimans = finalCaimans.stream()
-            .mapToInt(Integer::intValue)
-            .average()
-            .orElse(0);
-        
-        analysis.avgOccupationRate = occupationRates.stream()
-            .mapToDouble(Double::doubleValue)
-            .average()
-            .orElse(0);
-        
-        // Calcular estabilidad (desviación estándar de población final)
-        double preyStdDev = calculateStdDev(finalPreys);
-        double predatorStdDev = calculateStdDev(finalPredators);
-        analysis.populationStability = (preyStdDev + predatorStdDev) / 2.0;
-        
-        // Determinar especie dominante
-        if (analysis.avgFinalPreys == 0 || analysis.avgFinalPredators == 0) {
-            analysis.dominantSpecies = "EXTINCT";
-            analysis.dominanceScore = 0;
-        } else {
-            double ratio = analysis.avgFinalPreys / analysis.avgFinalPredators;
-            if (ratio >= 1.5 && ratio <= 3.0) {
-                analysis.dominantSpecies = "BALANCED";
-                analysis.dominanceScore = 1.0 - Math.abs(ratio - 2.25) / 2.25;
-            } else if (ratio > 3.0) {
-                analysis.dominantSpecies = "PREYS";
-                analysis.dominanceScore = Math.min(ratio / 10.0, 1.0);
-            } else {
-                analysis.dominantSpecies = "PREDATORS";
-                analysis.dominanceScore = Math.min(3.0 / ratio / 10.0, 1.0);
-            }
-        }
+        ScenarioAnalysis analysis = runScenarios(new String[]{scenario}, maxTurns,
+                                                 withThirdSpecies, withMutations, options)[0];
         
         System.out.println("[ANALYZER] Analysis complete for: " + scenario);
         return analysis;
@@ -331,18 +300,25 @@ public class SimulationAnalyzer {
     public static ComparativeAnalysis executeFullAnalysis(int maxTurns, 
                                                          boolean withThirdSpecies,
                                                          boolean withMutations) {
+        return executeFullAnalysis(maxTurns, withThirdSpecies, withMutations, Options.defaults());
+    }
+    
+    /**
+     * Ejecuta el análisis comparativo con la configuración indicada
+     */
+    public static ComparativeAnalysis executeFullAnalysis(int maxTurns, 
+                                                         boolean withThirdSpecies,
+                                                         boolean withMutations, Options options) {
         System.out.println("\n╔══════════════════════════════════════════╗");
         System.out.println("║   STARTING FULL COMPARATIVE ANALYSIS     ║");
         System.out.println("╚══════════════════════════════════════════╝");
         
-        ScenarioAnalysis balanced = analyzeScenario("BALANCED", maxTurns, 
-                                                    withThirdSpecies, withMutations);
-        ScenarioAnalysis predatorsDom = analyzeScenario("PREDATORS_DOM", maxTurns, 
-                                                        withThirdSpecies, withMutations);
-        ScenarioAnalysis preysDom = analyzeScenario("PREYS_DOM", maxTurns, 
-                                                    withThirdSpecies, withMutations);
+        // Las réplicas de los tres escenarios se reparten juntas entre los núcleos
+        ScenarioAnalysis[] analyses = runScenarios(
+            new String[]{"BALANCED", "PREDATORS_DOM", "PREYS_DOM"},
+            maxTurns, withThirdSpecies, withMutations, options);
         
-        ComparativeAnalysis comparative = new ComparativeAnalysis(balanced, predatorsDom, preysDom);
+        ComparativeAnalysis comparative = new ComparativeAnalysis(analyses[0], analyses[1], analyses[2]);
         
         System.out.println("\n╔══════════════════════════════════════════╗");
         System.out.println("║   COMPARATIVE ANALYSIS COMPLETED         ║");
@@ -352,14 +328,198 @@ public class SimulationAnalyzer {
     }
     
     /**
-     * Calcula desviación estándar de una lista de enteros
+     * Ejecuta las réplicas de todos los escenarios en paralelo. Cada réplica
+     * tiene su propio controlador y ecosistema (confinados a un hilo) y su
+     * propia semilla; los resultados se suman en acumuladores sin bloqueos.
      */
-    private static double calculateStdDev(List<Integer> values) {
-        double mean = values.stream().mapToInt(Integer::intValue).average().orElse(0);
-        double variance = values.stream()
-            .mapToDouble(v -> Math.pow(v - mean, 2))
-            .average()
-            .orElse(0);
-        return Math.sqrt(variance);
+    private static ScenarioAnalysis[] runScenarios(String[] scenarios, int maxTurns,
+                                                   boolean withThirdSpecies, boolean withMutations,
+                                                   Options options) {
+        int replicates = options.replicatesPerScenario;
+        long seed = options.baseSeed != null ? options.baseSeed : System.nanoTime();
+        EcosystemController.PersistencePolicy policy = options.persistencePolicy;
+        long analysis = ANALYSES.incrementAndGet();
+        
+        ScenarioAccumulator[] accumulators = new ScenarioAccumulator[scenarios.length];
+        for (int i = 0; i < scenarios.length; i++) {
+            accumulators[i] = new ScenarioAccumulator(replicates);
+        }
+        
+        long total = (long) scenarios.length * replicates;
+        long progressStep = Math.max(1, total / 10);
+        AtomicLong completed = new AtomicLong();
+        
+        ForkJoinPool pool = new ForkJoinPool(options.parallelism);
+        try {
+            pool.submit(() -> LongStream.range(0, total).parallel().forEach(task -> {
+                int scenario = (int) (task / replicates);
+                int replicate = (int) (task % replicates);
+                
+                Ecosystem eco = runReplicate(scenarios[scenario], maxTurns, withThirdSpecies, withMutations,
+                                             null, policy, replicateSeed(seed, scenario, replicate),
+                                             "a" + analysis + "_r" + replicate);
+                accumulators[scenario].add(eco, maxTurns);
+                
+                long done = completed.incrementAndGet();
+                if (done % progressStep == 0) {
+                    System.out.println("  " + done + "/" + total + " simulations completed");
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        
+        ScenarioAnalysis[] analyses = new ScenarioAnalysis[scenarios.length];
+        for (int i = 0; i < scenarios.length; i++) {
+            analyses[i] = accumulators[i].toAnalysis(scenarios[i], maxTurns);
+        }
+        return analyses;
+    }
+    
+    /**
+     * Una réplica completa, de principio a fin en el hilo que la ejecuta,
+     * sin los mensajes de cada turno
+     * @param parameters Parámetros de la simulación (null = los del escenario)
+     * @param tag Sufijo del ID de la simulación guardada (null = ninguno)
+     */
+    static Ecosystem runReplicate(String scenario, int maxTurns, boolean withThirdSpecies,
+                                  boolean withMutations, SimulationParameters parameters,
+                                  EcosystemController.PersistencePolicy policy, long seed, String tag) {
+        EcosystemController controller = new EcosystemController();
+        controller.setCurrentUser("AnalysisBot");
+        controller.setSimulationTag(tag);
+        controller.setVerbose(false);
+        controller.setPersistencePolicy(policy);
+        controller.setTerceraEspecieActiva(withThirdSpecies);
+        controller.setMutacionesActivas(withMutations);
+        controller.setSimulationParameters(parameters);
+        controller.createEcosystem(maxTurns, scenario, seed);
+        
+        // Ejecutar hasta terminar
+        int turnCount = 0;
+        while (turnCount < maxTurns && controller.executeTurn()) {
+            turnCount++;
+        }
+        return controller.getEcosystem();
+    }
+    
+    /**
+     * Semilla de una réplica: la semilla base mezclada con el escenario y el
+     * número de réplica (SplitMix64), así réplicas vecinas no quedan
+     * correlacionadas y el resultado no depende del orden de ejecución
+     */
+    static long replicateSeed(long baseSeed, int scenario, int replicate) {
+        long z = baseSeed + 0x9E3779B97F4A7C15L * ((((long) scenario) << 32 | replicate) + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * Métricas de las réplicas de un escenario, sumadas desde varios hilos
+     */
+    static class ScenarioAccumulator {
+        final int replicates;
+        final LongAdder extinctions = new LongAdder();
+        final LongAdder preyExtinctions = new LongAdder();
+        final LongAdder predatorExtinctions = new LongAdder();
+        final LongAdder extinctionTurns = new LongAdder();
+        final LongAdder finalPreys = new LongAdder();
+        final LongAdder finalPreysSquared = new LongAdder();
+        final LongAdder finalPredators = new LongAdder();
+        final LongAdder finalPredatorsSquared = new LongAdder();
+        final LongAdder finalCaimans = new LongAdder();
+        final DoubleAdder occupation = new DoubleAdder();
+        
+        ScenarioAccumulator(int replicates) {
+            this.replicates = replicates;
+        }
+        
+        void add(Ecosystem eco, int maxTurns) {
+            int preys = eco.countPreys();
+            int predators = eco.countPredators();
+            finalPreys.add(preys);
+            finalPreysSquared.add((long) preys * preys);
+            finalPredators.add(predators);
+            finalPredatorsSquared.add((long) predators * predators);
+            finalCaimans.add(eco.countCaimans());
+            
+            int totalCells = eco.getSize() * eco.getSize();
+            int occupied = totalCells - eco.countEmptyCells();
+            occupation.add(occupied / (double) totalCells);
+            
+            if (eco.hasExtinction()) {
+                extinctions.increment();
+                extinctionTurns.add(eco.getCurrentTurn());
+                
+                if (preys == 0) {
+                    preyExtinctions.increment();
+                } else {
+                    predatorExtinctions.increment();
+                }
+            } else {
+                extinctionTurns.add(maxTurns); // No extinción
+            }
+        }
+        
+        ScenarioAnalysis toAnalysis(String scenario, int maxTurns) {
+            ScenarioAnalysis analysis = new ScenarioAnalysis();
+            analysis.scenarioName = scenario;
+            analysis.totalSimulations = replicates;
+            
+            // Calcular métricas
+            analysis.extinctionsOccurred = (int) extinctions.sum();
+            analysis.preyExtinctions = (int) preyExtinctions.sum();
+            analysis.predatorExtinctions = (int) predatorExtinctions.sum();
+            analysis.extinctionRate = extinctions.sum() / (double) replicates;
+            analysis.avgExtinctionTurn = replicates > 0 ? extinctionTurns.sum() / (double) replicates : maxTurns;
+            analysis.avgFinalPreys = average(finalPreys);
+            analysis.avgFinalPredators = average(finalPredators);
+            analysis.avgFinalCaimans = average(finalCaimans);
+            analysis.avgOccupationRate = replicates > 0 ? occupation.sum() / replicates : 0;
+            
+            // Calcular estabilidad (desviación estándar de población final)
+            double preyStdDev = stdDev(finalPreys, finalPreysSquared);
+            double predatorStdDev = stdDev(finalPredators, finalPredatorsSquared);
+            analysis.populationStability = (preyStdDev + predatorStdDev) / 2.0;
+            
+            // Determinar especie dominante
+            if (analysis.avgFinalPreys == 0 || analysis.avgFinalPredators == 0) {
+                analysis.dominantSpecies = "EXTINCT";
+                analysis.dominanceScore = 0;
+            } else {
+                double ratio = analysis.avgFinalPreys / analysis.avgFinalPredators;
+                if (ratio >= 1.5 && ratio <= 3.0) {
+                    analysis.dominantSpecies = "BALANCED";
+                    analysis.dominanceScore = 1.0 - Math.abs(ratio - 2.25) / 2.25;
+                } else if (ratio > 3.0) {
+                    analysis.dominantSpecies = "PREYS";
+                    analysis.dominanceScore = Math.min(ratio / 10.0, 1.0);
+                } else {
+                    analysis.dominantSpecies = "PREDATORS";
+                    analysis.dominanceScore = Math.min(3.0 / ratio / 10.0, 1.0);
+                }
+            }
+            return analysis;
+        }
+        
+        private double average(LongAdder sum) {
+            return replicates > 0 ? sum.sum() / (double) replicates : 0;
+        }
+        
+        /**
+         * Desviación estándar poblacional a partir de la suma y la suma de cuadrados
+         */
+        private double stdDev(LongAdder sum, LongAdder squares) {
+            if (replicates == 0) return 0;
+            double mean = sum.sum() / (double) replicates;
+            double variance = squares.sum() / (double) replicates - mean * mean;
+            return Math.sqrt(Math.max(variance, 0));
+        }
     }
-}
\ No newline at end of file
+}
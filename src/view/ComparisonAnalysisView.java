@@ -199,7 +199,7 @@ public class ComparisonAnalysisView extends JFrame {
                     JOptionPane.showMessageDialog(
                         ComparisonAnalysisView.this,
                         "Comparative analysis completed successfully!\n" +
-                        "30 simulations executed.\n\n" +
+                        (currentAnalysis.balanced.totalSimulations * 3) + " simulations executed.\n\n" +
                         "Review the detailed results below.",
                         "Analysis Complete",
                         JOptionPane.INFORMATION_MESSAGE
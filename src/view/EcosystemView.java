@@ -66,6 +66,13 @@ public class EcosystemView extends JFrame {
     private void initComponents() {
         setTitle("Ecosystem Simulator - " + currentUser.getName());
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                // Volcar los turnos pendientes antes de salir
+                controller.endSimulation();
+            }
+        });
         setSize(1650, 950);
         setResizable(true);
         
@@ -396,6 +403,7 @@ public class EcosystemView extends JFrame {
         if (simulationTimer != null) {
             simulationTimer.stop();
         }
+        controller.endSimulation();
         
         isRunning = false;
         btnStart.setEnabled(true);
@@ -576,7 +584,7 @@ public class EcosystemView extends JFrame {
                 return util.ReportGenerator.generateReport(
                     controller.getEcosystem(),
                     currentUser.getName(),
-                    controller.getStateDAO()
+                    controller.getStateRepository()
                 );
             }
             
@@ -709,6 +717,7 @@ public class EcosystemView extends JFrame {
             if (simulationTimer != null) {
                 simulationTimer.stop();
             }
+            controller.endSimulation();
             
             this.dispose();
             new LoginView().setVisible(true);
@@ -0,0 +1,113 @@
+package data;
+
+import model.Ecosystem;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ida y vuelta del registro comprimido. Sin series por columnas, StateDAO
+ * lee los conteos de aca sin decodificar las matrices.
+ */
+public class CompressedStateLogTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("compressed-log", ".dz");
+        file.deleteOnExit();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void keepsCaimanCountsWithoutDecodingCells() throws IOException {
+        List<TurnSnapshot> written = writeSimulation("SIM", 30);
+        assertTrue("The run has no caimans", caimansIn(written.get(0)) > 0);
+
+        List<TurnSnapshot> read = readSimulation("SIM", false);
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            TurnSnapshot expected = written.get(i);
+            TurnSnapshot actual = read.get(i);
+            assertEquals("Turn", expected.turn, actual.turn);
+            assertEquals("Preys on turn " + expected.turn, expected.preys, actual.preys);
+            assertEquals("Predators on turn " + expected.turn, expected.predators, actual.predators);
+            // El registro de texto guarda la matriz, no el conteo
+            assertEquals("Caimans on turn " + expected.turn, caimansIn(expected), actual.caimans);
+        }
+    }
+
+    @Test
+    public void countsMatchWithAndWithoutCells() throws IOException {
+        writeSimulation("SIM", 20);
+
+        List<TurnSnapshot> withCells = readSimulation("SIM", true);
+        List<TurnSnapshot> withoutCells = readSimulation("SIM", false);
+        assertEquals(withCells.size(), withoutCells.size());
+        for (int i = 0; i < withCells.size(); i++) {
+            assertEquals(withCells.get(i).caimans, withoutCells.get(i).caimans);
+        }
+    }
+
+    private static int caimansIn(TurnSnapshot snapshot) {
+        int count = 0;
+        for (byte cell : snapshot.cells) {
+            if (cell == TurnSnapshot.CAIMAN) count++;
+        }
+        return count;
+    }
+
+    private List<TurnSnapshot> writeSimulation(String simulationId, int turns) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<TurnSnapshot> written = new ArrayList<>();
+        try {
+            Ecosystem ecosystem = new Ecosystem(turns, "BALANCED", 42);
+            ecosystem.setTerceraEspecieActiva(true);
+            ecosystem.initialize();
+
+            // Bloques chicos, asi la simulacion ocupa varios
+            try (StateLogWriter writer = new CompressedStateLog(file.getPath()).openWriter(4096)) {
+                for (int turn = 0; turn < turns; turn++) {
+                    ecosystem.executeTurn();
+                    TurnSnapshot snapshot = TurnSnapshot.capture(simulationId, ecosystem);
+                    writer.writeTurn(snapshot);
+                    written.add(snapshot);
+                }
+            }
+        } finally {
+            System.setOut(console);
+        }
+        return written;
+    }
+
+    private List<TurnSnapshot> readSimulation(String simulationId, boolean includeCells)
+            throws IOException {
+        List<TurnSnapshot> read = new ArrayList<>();
+        new CompressedStateLog(file.getPath()).readSimulation(simulationId, includeCells,
+            new StateRecordHandler() {
+                @Override
+                public void onTurn(TurnSnapshot snapshot) {
+                    read.add(snapshot);
+                }
+
+                @Override
+                public void onFinal(FinalState state) {
+                }
+            });
+        return read;
+    }
+}
@@ -0,0 +1,197 @@
+package data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Entrega de los registros de cada cliente al escritor compartido
+ */
+public class SharedStateWriterTest {
+
+    private static final int SIZE = 10;
+
+    private String key;
+    private CountingWriter target;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = File.createTempFile("shared-writer", ".log");
+        file.deleteOnExit();
+        key = file.getAbsolutePath();
+        target = new CountingWriter();
+    }
+
+    @After
+    public void tearDown() {
+        new File(key).delete();
+    }
+
+    @Test
+    public void keepsRecordsUntilTheBufferFills() throws IOException {
+        SharedStateWriter.Client client = SharedStateWriter.acquire(key,
+            StateDAO.FlushPolicy.onEnd().bufferSize, () -> target);
+
+        for (int turn = 1; turn <= 10; turn++) {
+            client.writeTurn(snapshot(turn));
+        }
+        assertEquals(10, client.getPending());
+        assertEquals(0, target.turns.get());
+
+        client.close();
+        assertEquals(10, target.turns.get());
+    }
+
+    @Test
+    public void handsOffPendingRecordsUnderOnEnd() throws Exception {
+        int bufferSize = StateDAO.FlushPolicy.onEnd().bufferSize;
+        SharedStateWriter.Client client = SharedStateWriter.acquire(key, bufferSize, () -> target);
+
+        // Varias veces el buffer, sin ningun volcado
+        int turns = 4 * bufferSize / (SIZE * SIZE);
+        for (int turn = 1; turn <= turns; turn++) {
+            client.writeTurn(snapshot(turn));
+        }
+        assertTrue("Pending records exceed the buffer: " + client.getPending(),
+                   (long) client.getPending() * SIZE * SIZE < bufferSize);
+
+        // El hilo escribe lo entregado sin que nadie lo pida
+        long deadline = System.currentTimeMillis() + 5000;
+        while (target.turns.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Nothing was handed off before the flush", target.turns.get() > 0);
+        assertEquals(0, target.flushes.get());
+
+        client.close();
+        assertEquals(turns, target.turns.get());
+    }
+
+    @Test(timeout = 30000)
+    public void keepsEachSimulationInOrderWithManyClients() throws Exception {
+        int clients = 8;
+        int simulations = 3;
+        int turns = 50;
+        RecordingWriter recording = new RecordingWriter();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Buffer chico: cada cliente entrega varias veces por simulacion
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            String prefix = "C" + c + "-";
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    try (SharedStateWriter.Client client =
+                             SharedStateWriter.acquire(key, 1024, () -> recording)) {
+                        for (int sim = 0; sim < simulations; sim++) {
+                            String id = prefix + sim;
+                            for (int turn = 1; turn <= turns; turn++) {
+                                client.writeTurn(snapshot(id, turn));
+                            }
+                            client.writeFinal(new FinalState(id, turns, 0, 0, false));
+                            client.flush();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull("Client failed: " + failure.get(), failure.get());
+        assertEquals(clients * simulations, recording.finals.size());
+        for (Map.Entry<String, List<Integer>> entry : recording.turns.entrySet()) {
+            List<Integer> received = entry.getValue();
+            assertEquals("Turns of " + entry.getKey(), turns, received.size());
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals("Turn order of " + entry.getKey(), i + 1, (int) received.get(i));
+            }
+            assertTrue("Final before the turns of " + entry.getKey(),
+                       recording.finals.contains(entry.getKey()));
+        }
+    }
+
+    private static TurnSnapshot snapshot(int turn) {
+        return snapshot("SIM", turn);
+    }
+
+    private static TurnSnapshot snapshot(String simulationId, int turn) {
+        return new TurnSnapshot(simulationId, "BALANCED", turn, 0, 0, 0, 0, SIZE * SIZE,
+                                false, SIZE, new byte[SIZE * SIZE]);
+    }
+
+    /**
+     * Escritor real que solo cuenta lo que recibe
+     */
+    private static class CountingWriter implements StateLogWriter {
+        final AtomicInteger turns = new AtomicInteger();
+        final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void writeTurn(TurnSnapshot snapshot) {
+            turns.incrementAndGet();
+        }
+
+        @Override
+        public void writeFinal(FinalState state) {
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Escritor que guarda el orden en que llegan los turnos de cada simulacion
+     */
+    private static class RecordingWriter implements StateLogWriter {
+        final Map<String, List<Integer>> turns = new HashMap<>();
+        final List<String> finals = new ArrayList<>();
+
+        @Override
+        public synchronized void writeTurn(TurnSnapshot snapshot) {
+            if (finals.contains(snapshot.simulationId)) {
+                throw new IllegalStateException("Turn after the final of " + snapshot.simulationId);
+            }
+            turns.computeIfAbsent(snapshot.simulationId, id -> new ArrayList<>()).add(snapshot.turn);
+        }
+
+        @Override
+        public synchronized void writeFinal(FinalState state) {
+            finals.add(state.simulationId);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
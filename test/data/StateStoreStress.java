@@ -0,0 +1,205 @@
+package data;
+
+import model.Ecosystem;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prueba de carga del registro de estados con muchos escritores a la vez:
+ * cada hilo tiene su propio StateDAO y guarda varias simulaciones completas
+ * en el mismo archivo. Al terminar verifica que cada simulacion tenga todos
+ * sus turnos, en orden, y su estado final.
+ *
+ * Escribe en los archivos de estados del directorio actual (solo agrega;
+ * no borra nada), asi que conviene correrla en un directorio aparte.
+ * No es un test de JUnit: se corre a mano con las clases de test en el
+ * classpath. La verificacion acotada esta en SharedStateWriterTest.
+ *
+ * Uso: java data.StateStoreStress [formato] [escritores] [simulaciones] [turnos]
+ * (por defecto TEXT 64 3 40)
+ */
+public class StateStoreStress {
+
+    public static void main(String[] args) throws Exception {
+        StateDAO.StateFormat format = args.length > 0
+            ? StateDAO.StateFormat.valueOf(args[0].toUpperCase()) : StateDAO.StateFormat.TEXT;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int simulations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int turns = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+
+        PrintStream console = System.out;
+        console.println("[STRESS] " + writers + " writers x " + simulations + " simulations x " +
+                        turns + " turns, format " + format);
+
+        // Los mensajes de cada turno no interesan aca y serializarian los hilos
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<String> ids;
+        long elapsed;
+        try {
+            long start = System.nanoTime();
+            ids = write(format, writers, simulations, turns);
+            elapsed = (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            System.setOut(console);
+        }
+
+        long records = (long) writers * simulations * (turns + 1);
+        console.println("[STRESS] Wrote " + records + " records in " + elapsed + " ms");
+
+        int failures = verify(format, ids, turns, console);
+        console.println("[STRESS] " + (ids.size() - failures) + "/" + ids.size() + " simulations intact");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lanza los escritores juntos y espera a que terminen
+     * @return IDs de las simulaciones guardadas
+     */
+    private static List<String> write(StateDAO.StateFormat format, int writers, int simulations,
+                                      int turns) throws Exception {
+        CountDownLatch ready = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        // IDs de cada escritor; se leen despues del join
+        String[][] written = new String[writers][simulations];
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    ready.await();
+                    StateDAO dao = new StateDAO();
+                    dao.setFormat(format);
+                    for (int s = 0; s < simulations; s++) {
+                        written[writer][s] = runSimulation(dao, "w" + writer + "s" + s, turns,
+                                                           writer * 1000L + s);
+                    }
+                    dao.closeWriter();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-writer-" + writer);
+            threads.add(thread);
+            thread.start();
+        }
+
+        ready.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Writer failed: " + failure.get(), failure.get());
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (String[] ofWriter : written) {
+            for (String id : ofWriter) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Una simulacion completa guardada turno a turno
+     * @return ID de la simulacion
+     */
+    private static String runSimulation(StateDAO dao, String name, int turns, long seed) {
+        Ecosystem ecosystem = new Ecosystem(turns, "BALANCED", seed);
+        ecosystem.initialize();
+
+        dao.startNewSimulation("STRESS", name);
+        String id = dao.getCurrentSimulationId();
+        if (!dao.openWriter()) {
+            throw new IllegalStateException("Could not open state writer");
+        }
+        for (int turn = 0; turn < turns; turn++) {
+            ecosystem.executeTurn();
+            if (!dao.saveTurnState(ecosystem)) {
+                throw new IllegalStateException("Could not save turn " + ecosystem.getCurrentTurn());
+            }
+        }
+        dao.saveFinalState(ecosystem, turns);
+        return id;
+    }
+
+    /**
+     * @return Cantidad de simulaciones con turnos faltantes o desordenados
+     */
+    private static int verify(StateDAO.StateFormat format, List<String> ids, int turns,
+                              PrintStream console) throws Exception {
+        StateDAO reader = new StateDAO();
+        reader.setFormat(format);
+        StateIndex index = format == StateDAO.StateFormat.TEXT
+            ? new StateIndex(StateDAO.STATE_FILE, StateDAO.INDEX_FILE) : null;
+        if (index != null) index.refresh();
+        // Los formatos binarios no tienen resumenes: los cierres se leen del registro
+        Set<String> finals = format == StateDAO.StateFormat.BINARY || format == StateDAO.StateFormat.COMPRESSED
+            ? readFinals(format, ids) : null;
+
+        int failures = 0;
+        int maxBlocks = 0;
+        long blocks = 0;
+        for (String id : ids) {
+            List<StateDAO.TurnState> states = reader.loadSimulationStates(id);
+            boolean ordered = states.size() == turns;
+            for (int i = 0; ordered && i < states.size(); i++) {
+                ordered = states.get(i).turn == i + 1;
+            }
+            boolean completed;
+            if (finals != null) {
+                completed = finals.contains(id);
+            } else {
+                SimulationSummary summary = reader.getSimulationSummary(id);
+                completed = summary != null && summary.completed;
+            }
+            if (!ordered || !completed) {
+                failures++;
+                console.println("[STRESS] Broken simulation " + id + ": " + states.size() + " turns" +
+                                (completed ? "" : ", no final state"));
+            }
+
+            if (index != null && index.get(id) != null) {
+                int ranges = index.get(id).ranges.size();
+                blocks += ranges;
+                maxBlocks = Math.max(maxBlocks, ranges);
+            }
+        }
+
+        if (index != null) {
+            console.println(String.format("[STRESS] Contiguous blocks per simulation: avg %.1f, max %d",
+                                          blocks / (double) ids.size(), maxBlocks));
+        }
+        return failures;
+    }
+
+    private static Set<String> readFinals(StateDAO.StateFormat format, List<String> ids) throws IOException {
+        Set<String> wanted = new HashSet<>(ids);
+        Set<String> finals = new HashSet<>();
+        StateRecordHandler handler = new StateRecordHandler() {
+            @Override
+            public void onTurn(TurnSnapshot snapshot) {
+            }
+
+            @Override
+            public void onFinal(FinalState state) {
+                finals.add(state.simulationId);
+            }
+        };
+        if (format == StateDAO.StateFormat.BINARY) {
+            new BinaryStateLog(StateDAO.BINARY_STATE_FILE).read(wanted::contains, false, handler);
+        } else {
+            new CompressedStateLog(StateDAO.COMPRESSED_STATE_FILE).read(wanted::contains, false, handler);
+        }
+        return finals;
+    }
+}